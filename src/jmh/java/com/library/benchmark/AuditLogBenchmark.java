@@ -0,0 +1,82 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import com.library.audit.AuditLog;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Bulk insert with INFO logging written to a file, so every addBook produces a formatted
+ * line. {@code off} raises the level to WARNING as a baseline, {@code sync} logs in the
+ * mutating thread; {@code block} and {@code drop}
+ * go through the audit queue with that overflow policy. The score is the time the caller
+ * spends adding {@code size} books; lines still queued are written during the close that
+ * follows, outside the measurement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AuditLogBenchmark {
+    private static final Logger LIBRARY_LOGGER = Logger.getLogger(Library.class.getName());
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"off", "sync", "block", "drop"})
+    public String mode;
+
+    private List<Book> books;
+    private Path dir;
+    private FileHandler handler;
+    private Library library;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        books = CatalogGenerator.generate(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void newDirectory() throws IOException {
+        dir = BenchmarkSupport.tempDir("library-audit");
+        handler = new FileHandler(dir.resolve("library.log").toString());
+        handler.setFormatter(new SimpleFormatter());
+        LIBRARY_LOGGER.setLevel(mode.equals("off") ? java.util.logging.Level.WARNING : java.util.logging.Level.INFO);
+        LIBRARY_LOGGER.setUseParentHandlers(false);
+        LIBRARY_LOGGER.addHandler(handler);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        library.close();
+        LIBRARY_LOGGER.removeHandler(handler);
+        handler.close();
+        try {
+            BenchmarkSupport.deleteDir(dir);
+        } catch (UncheckedIOException e) {
+            // FileHandler leaves a .lck file behind on some platforms; the directory is temporary
+        }
+    }
+
+    @Benchmark
+    public Library bulkAdd() {
+        library = new Library(BenchmarkSupport.config(dir)
+                .setAuditQueueCapacity(mode.equals("sync") ? 0 : 8192)
+                .setAuditOverflowPolicy(mode.equals("drop") ? AuditLog.OverflowPolicy.DROP_NEWEST
+                        : AuditLog.OverflowPolicy.BLOCK));
+        for (Book book : books) {
+            library.addBook(book);
+        }
+        return library;
+    }
+}
@@ -0,0 +1,104 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.BookBatch;
+import com.library.Library;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The same changes to a prefilled library made by {@link Library#applyBatch} and by
+ * calling the single-item methods in a loop, journal included. {@code prices} updates
+ * the price of {@code changes} books; {@code mixed} spreads them over adds, updates,
+ * availability changes and deletes. Each measurement applies all the changes once to a
+ * freshly built library.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BatchMutationBenchmark {
+    @Param({"100000"})
+    public int size;
+
+    @Param({"1000", "100000"})
+    public int changes;
+
+    @Param({"prices", "mixed"})
+    public String kind;
+
+    private Book[] catalog;
+    private Book[] additions;
+    private Book[] updates;
+    private Library library;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        CatalogGenerator generator = new CatalogGenerator();
+        catalog = generator.books(size).toArray(new Book[0]);
+        additions = new Book[changes];
+        updates = new Book[changes];
+        for (int i = 0; i < changes; i++) {
+            additions[i] = generator.book(size + i);
+            // Distinct books spread over the catalog
+            Book book = catalog[(int) ((long) i * size / changes)];
+            updates[i] = new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getYear(),
+                    book.getPrice() + 1, book.getGenre());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillLibrary() {
+        dir = BenchmarkSupport.tempDir("library-batch");
+        library = new Library(BenchmarkSupport.config(dir));
+        library.addBooks(Arrays.asList(catalog));
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public void loop() {
+        boolean mixed = kind.equals("mixed");
+        for (int i = 0; i < changes; i++) {
+            Book update = updates[i];
+            switch (mixed ? i % 4 : 1) {
+                case 0 -> library.addBook(additions[i]);
+                case 1 -> library.updateBook(update.getId(), update);
+                case 2 -> {
+                    Book current = library.getBookById(update.getId());
+                    Book flipped = new Book(current.getId(), current.getTitle(), current.getAuthor(),
+                            current.getYear(), current.getPrice(), current.getGenre());
+                    flipped.setAvailable(!current.isAvailable());
+                    library.updateBook(update.getId(), flipped);
+                }
+                default -> library.deleteBook(update.getId());
+            }
+        }
+    }
+
+    @Benchmark
+    public void batch() {
+        boolean mixed = kind.equals("mixed");
+        BookBatch batch = new BookBatch(changes);
+        for (int i = 0; i < changes; i++) {
+            Book update = updates[i];
+            switch (mixed ? i % 4 : 1) {
+                case 0 -> batch.add(additions[i]);
+                case 1 -> batch.update(update.getId(), update);
+                case 2 -> batch.setAvailable(update.getId(), !library.getBookById(update.getId()).isAvailable());
+                default -> batch.delete(update.getId());
+            }
+        }
+        library.applyBatch(batch);
+    }
+}
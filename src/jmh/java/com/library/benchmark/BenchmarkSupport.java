@@ -0,0 +1,58 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import com.library.LibraryConfig;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared setup for benchmarks: scratch directories, quiet logging, prefilled libraries.
+ */
+final class BenchmarkSupport {
+    // Held strongly, otherwise LogManager may drop the logger and its level
+    private static final Logger LIBRARY_LOGGER = Logger.getLogger("com.library");
+
+    private BenchmarkSupport() {
+    }
+
+    static void quietLogs() {
+        LIBRARY_LOGGER.setLevel(Level.WARNING);
+    }
+
+    static Path tempDir(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static LibraryConfig config(Path dir) {
+        return new LibraryConfig().setDataFile(dir.resolve("library_data.ser").toString());
+    }
+
+    static Library library(Path dir, List<Book> books) {
+        Library library = new Library(config(dir));
+        for (Book book : books) {
+            library.addBook(book);
+        }
+        return library;
+    }
+
+    static void deleteDir(Path dir) {
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+            Files.delete(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
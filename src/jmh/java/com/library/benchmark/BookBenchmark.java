@@ -0,0 +1,49 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Per-book costs that every bulk operation multiplies: validated construction, the
+ * trusted construction used when loading from disk, and formatting.
+ * Run with {@code -prof gc} to see allocation per operation; validated construction
+ * of an already trimmed record should allocate nothing beyond the Book itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookBenchmark {
+    private static final int SAMPLES = 1024;
+
+    private List<Book> samples;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        samples = CatalogGenerator.generate(SAMPLES);
+    }
+
+    @Benchmark
+    public Book construct() {
+        Book source = samples.get(next++ & (SAMPLES - 1));
+        return new Book(source.getId(), source.getTitle(), source.getAuthor(),
+                source.getYear(), source.getPrice(), source.getGenre());
+    }
+
+    @Benchmark
+    public Book constructTrusted() {
+        Book source = samples.get(next++ & (SAMPLES - 1));
+        return Book.trusted(source.getId(), source.getTitle(), source.getAuthor(),
+                source.getYear(), source.getPrice(), source.getGenre(), source.isAvailable());
+    }
+
+    @Benchmark
+    public String format() {
+        return samples.get(next++ & (SAMPLES - 1)).toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Bulk insert of a whole catalog into an empty Library.
+ * Throughput in books/sec = size / score.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BulkAddBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Book> books;
+    private Path dir;
+    private Library library;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        books = CatalogGenerator.generate(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void newDirectory() {
+        dir = BenchmarkSupport.tempDir("library-bulk");
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Library bulkAdd() {
+        library = new Library(BenchmarkSupport.config(dir));
+        for (Book book : books) {
+            library.addBook(book);
+        }
+        return library;
+    }
+}
@@ -0,0 +1,125 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic catalogs for benchmarks, so every run and every machine
+ * sees the same data without any download.
+ * <p>
+ * Authors and genres are skewed the way real catalogs are (a few very common values,
+ * a long tail), titles are built from a fixed vocabulary and years lean towards the
+ * recent past. The same seed always yields the same books in the same order.
+ * <p>
+ * Writing a data file: {@code CatalogGenerator <size> <data file> [seed]}.
+ */
+public final class CatalogGenerator {
+    public static final long DEFAULT_SEED = 20240917L;
+
+    private static final String[] WORDS = {
+            "night", "river", "shadow", "garden", "empire", "silent", "winter", "glass", "house", "secret",
+            "storm", "journey", "kingdom", "stone", "fire", "ocean", "letters", "dream", "city", "forest",
+            "crown", "mirror", "last", "lost", "hidden", "golden", "broken", "distant", "war", "peace",
+            "heart", "light", "dark", "machine", "star", "island", "road", "memory", "blood", "song",
+            "summer", "iron", "wolf", "dragon", "tower", "child", "stranger", "bridge", "harbor", "north"};
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Boris", "Clara", "David", "Elena", "Fyodor", "Grace", "Henry", "Irina", "James",
+            "Katherine", "Leo", "Maria", "Nikolai", "Olga", "Peter", "Rosa", "Sergei", "Tatiana", "Victor",
+            "William", "Yuri", "Zoe", "Arthur", "Beatrice", "Charles", "Dmitri", "Emily", "Frank", "George"};
+    private static final String[] LAST_NAMES = {
+            "Tolkien", "Tolstoy", "Austen", "Orwell", "Herbert", "Christie", "Dostoevsky", "Bradbury",
+            "Le Guin", "Pratchett", "Chekhov", "Woolf", "Hemingway", "Bulgakov", "Asimov", "Atwood",
+            "Dickens", "Nabokov", "Murakami", "Gaiman", "Pushkin", "Gogol", "Eco", "Borges", "Calvino",
+            "Morrison", "Steinbeck", "Faulkner", "Twain", "Verne", "Wells", "Shelley", "Bronte", "Hugo",
+            "Dumas", "Kafka", "Camus", "Mann", "Hesse", "Lem"};
+    private static final String[] GENRES = {
+            "Fiction", "Fantasy", "Science Fiction", "Mystery", "Romance", "History", "Biography",
+            "Poetry", "Drama", "Thriller", "Horror", "Philosophy", "Science", "Travel", "Children",
+            "Classics", "Adventure", "Humor", "Essays", "Religion", "Art", "Cooking", "Economics",
+            "Politics", "Psychology", "Memoir", "Young Adult", "Graphic Novel", "Reference", "Crime"};
+
+    private final Random random;
+
+    public CatalogGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public CatalogGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static String id(int index) {
+        return String.format("B-%08d", index);
+    }
+
+    public static List<Book> generate(int size) {
+        return new CatalogGenerator().books(size);
+    }
+
+    public List<Book> books(int size) {
+        List<Book> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(book(i));
+        }
+        return books;
+    }
+
+    public Book book(int index) {
+        Book book = new Book(id(index), title(), author(), year(), price(), skewed(GENRES));
+        book.setAvailable(random.nextInt(10) != 0);
+        return book;
+    }
+
+    private String title() {
+        int words = 1 + random.nextInt(4);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return title.toString();
+    }
+
+    // Roughly 1,200 distinct authors, the most common ones far more frequent
+    private String author() {
+        return skewed(FIRST_NAMES) + " " + skewed(LAST_NAMES);
+    }
+
+    private int year() {
+        double r = random.nextDouble();
+        return 2024 - (int) (r * r * r * 570);
+    }
+
+    private double price() {
+        return 1 + random.nextInt(14_900) / 100.0;
+    }
+
+    private String skewed(String[] values) {
+        double r = random.nextDouble();
+        return values[(int) (r * r * values.length)];
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: CatalogGenerator <size> <data file> [seed]");
+            System.exit(2);
+        }
+        int size = Integer.parseInt(args[0]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        BenchmarkSupport.quietLogs();
+        CatalogGenerator generator = new CatalogGenerator(seed);
+        try (Library library = new Library(args[1])) {
+            for (int i = 0; i < size; i++) {
+                library.addBook(generator.book(i));
+            }
+            library.saveData();
+        }
+        System.out.println("Generated " + size + " books into " + args[1]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.storage.ColumnarBookStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Full scans over one field group: average price of available books from the 1990s,
+ * over a plain {@code ArrayList<Book>} and over the columns of {@link ColumnarBookStore}.
+ * Heap footprint of the same catalogs: {@link FootprintReport}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ColumnarScanBenchmark {
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private List<Book> list;
+    private ColumnarBookStore columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = new ArrayList<>(CatalogGenerator.generate(size));
+        columns = new ColumnarBookStore();
+        list.forEach(columns::put);
+    }
+
+    @Benchmark
+    public double scanList() {
+        double sum = 0;
+        int count = 0;
+        for (Book book : list) {
+            if (book.isAvailable() && book.getYear() >= 1990 && book.getYear() < 2000) {
+                sum += book.getPrice();
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    @Benchmark
+    public double scanColumns() {
+        double sum = 0;
+        int count = 0;
+        for (int row = 0, rows = columns.rowCount(); row < rows; row++) {
+            int year = columns.year(row);
+            if (year >= 1990 && year < 2000 && columns.isAvailable(row) && columns.isLive(row)) {
+                sum += columns.price(row);
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    // Building a Book per row, as getAllBooks() does in columnar mode
+    @Benchmark
+    public double scanColumnsAsBooks() {
+        double sum = 0;
+        int count = 0;
+        for (Book book : columns) {
+            if (book.isAvailable() && book.getYear() >= 1990 && book.getYear() < 2000) {
+                sum += book.getPrice();
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Shared-library throughput as threads are added. Run with increasing thread counts
+ * to see scaling, e.g. {@code -Djmh.args="ConcurrentLibrary -t 1,2,4,8,max"}
+ * ({@code -t} applies to the non-grouped benchmarks; the mixed group is 3 readers per writer).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ConcurrentLibraryBenchmark {
+    @Param({"100000"})
+    public int size;
+
+    private List<Book> books;
+    private Library library;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        dir = BenchmarkSupport.tempDir("library-concurrent");
+        books = CatalogGenerator.generate(size);
+        library = BenchmarkSupport.library(dir, books);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    private String randomId() {
+        return CatalogGenerator.id(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public Book lookup() {
+        return library.getBookById(randomId());
+    }
+
+    @Benchmark
+    public int search() {
+        return library.searchBooks("silent garden").size();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Book mixedRead() {
+        return library.getBookById(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedUpdate() {
+        Book book = books.get(ThreadLocalRandom.current().nextInt(size));
+        Book changed = new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getYear(),
+                ThreadLocalRandom.current().nextInt(1000), book.getGenre());
+        library.updateBook(book.getId(), changed);
+    }
+}
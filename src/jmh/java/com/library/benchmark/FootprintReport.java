@@ -0,0 +1,130 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.inventory.Holdings;
+import com.library.storage.BookFormat;
+import com.library.storage.BookWriter;
+import com.library.storage.ColumnarBookStore;
+import com.library.storage.StringDictionary;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Prints the retained heap of one catalog in different in-memory representations,
+ * measured as used heap after full GCs before and after building it, and the size of
+ * its data file with and without the author/genre dictionary, and of 20 copies per title
+ * as a book each or as the titles' copy inventories. Run with a fixed
+ * heap so that GC ergonomics do not blur the numbers:
+ * {@code java -Xms4g -Xmx4g -cp ... com.library.benchmark.FootprintReport [size]}.
+ */
+public final class FootprintReport {
+    private FootprintReport() {
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("Catalog of %,d books%n", size);
+        report("ArrayList<Book>", () -> new ArrayList<>(CatalogGenerator.generate(size)));
+        // What a Library holds: every author and genre interned into its shared dictionary
+        report("ArrayList<Book>, interned", () -> {
+            StringDictionary strings = new StringDictionary();
+            List<Book> books = new ArrayList<>(size);
+            for (Book book : CatalogGenerator.generate(size)) {
+                books.add(Book.trusted(book.getId(), book.getTitle(), strings.intern(book.getAuthor()),
+                        book.getYear(), book.getPrice(), strings.intern(book.getGenre()), book.isAvailable()));
+            }
+            return books;
+        });
+        report("ColumnarBookStore", () -> {
+            ColumnarBookStore store = new ColumnarBookStore();
+            CatalogGenerator generator = new CatalogGenerator();
+            for (int i = 0; i < size; i++) {
+                store.put(generator.book(i));
+            }
+            return store;
+        });
+        copies(size);
+        fileSizes(size);
+    }
+
+    private static void copies(int size) {
+        int titles = size / 20;
+        String[] branches = {"Main", "North", "South", "East", "West"};
+        report("Book per copy, 20 copies", () -> {
+            List<Book> books = new ArrayList<>(size);
+            for (Book title : CatalogGenerator.generate(titles)) {
+                for (int copy = 0; copy < 20; copy++) {
+                    books.add(Book.trusted(title.getId() + "-" + copy, title.getTitle(), title.getAuthor(),
+                            title.getYear(), title.getPrice(), title.getGenre(), title.isAvailable()));
+                }
+            }
+            return books;
+        });
+        // Only the copies: the titles themselves are the same in both
+        report("CopyInventory, 20 copies", () -> {
+            Holdings holdings = new Holdings();
+            CatalogGenerator generator = new CatalogGenerator();
+            for (int i = 0; i < titles; i++) {
+                holdings.addCopies(generator.book(i).getId(), 19, branches[i % branches.length]);
+            }
+            return holdings;
+        });
+    }
+
+    private static void fileSizes(int size) {
+        CountingStream plain = new CountingStream();
+        CountingStream dictionary = new CountingStream();
+        try (DataOutputStream records = new DataOutputStream(plain);
+             BookWriter writer = new BookWriter(dictionary)) {
+            CatalogGenerator generator = new CatalogGenerator();
+            for (int i = 0; i < size; i++) {
+                Book book = generator.book(i);
+                records.writeByte(1);
+                BookFormat.writeBook(records, book);
+                writer.write(book);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Version 1 framing: header, trailer, ID index and footer around the same records
+        long version1 = plain.count + 8 + 13 + size * 8L + 12;
+        System.out.printf("%-26s %,8.1f MB%n", "Data file, version 1", version1 / (1024.0 * 1024.0));
+        System.out.printf("%-26s %,8.1f MB%n", "Data file, version 2", dictionary.count / (1024.0 * 1024.0));
+    }
+
+    static void report(String name, Supplier<Object> build) {
+        long before = usedAfterGc();
+        Object catalog = build.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(catalog);
+        System.out.printf("%-26s %,8.1f MB%n", name, (after - before) / (1024.0 * 1024.0));
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class CountingStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
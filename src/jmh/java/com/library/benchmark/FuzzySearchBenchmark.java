@@ -0,0 +1,52 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Top-20 fuzzy searches over a prefilled library, sampled so that the percentiles show
+ * the latency distribution. Queries are misspelled title words and authors: a common
+ * word, a rarer author within one and two edits, and several words at once.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FuzzySearchBenchmark {
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"shadwo", "tolkein", "dostoyevsky", "silnet wintre storm", "hiden harbr murakami"})
+    public String query;
+
+    private Library library;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        dir = BenchmarkSupport.tempDir("library-fuzzy");
+        library = new Library(BenchmarkSupport.config(dir));
+        library.addBooks(CatalogGenerator.generate(size));
+        long started = System.nanoTime();
+        library.fuzzySearch(query, 1);
+        System.out.printf("%nFuzzy index built in %,d ms%n", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public List<Book> fuzzySearch() {
+        return library.fuzzySearch(query, 20);
+    }
+}
@@ -0,0 +1,141 @@
+package com.library.benchmark;
+
+import com.library.Library;
+import com.library.metrics.LatencyHistogram;
+import com.library.ui.HttpLibraryUI;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of {@link HttpLibraryUI} over loopback: a fixed number of clients, each on its
+ * own keep-alive connection, send requests back to back for a while, and requests per
+ * second and latency percentiles are printed per concurrency level. Requests are 80%
+ * lookups by ID and 20% one-word title searches; the batched mode sends the same lookups
+ * 32 to a {@code /batch} request and counts each as one operation.
+ * <p>
+ * Not a JMH benchmark, as JMH drives one process's threads rather than a server:
+ * {@code java -cp ... com.library.benchmark.HttpLoadTest [books] [seconds per level] [levels...]}.
+ * Client and server share the machine, so this is a comparison between levels, not a
+ * capacity figure.
+ */
+public final class HttpLoadTest {
+    private static final int BATCH = 32;
+    private static final String[] WORDS = {"night", "river", "shadow", "garden", "empire", "winter", "storm", "ocean"};
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+        List<Integer> levels = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            levels.add(Integer.parseInt(args[i]));
+        }
+        if (levels.isEmpty()) {
+            levels = List.of(1, 4, 16, 64);
+        }
+
+        BenchmarkSupport.quietLogs();
+        Path dir = BenchmarkSupport.tempDir("library-http");
+        Library library = new Library(BenchmarkSupport.config(dir));
+        library.addBooks(CatalogGenerator.generate(size));
+        int threads = levels.stream().mapToInt(Integer::intValue).max().orElse(1);
+        HttpLibraryUI server = new HttpLibraryUI(library, new InetSocketAddress("127.0.0.1", 0), threads);
+        try {
+            URI base = URI.create("http://127.0.0.1:" + server.bind().getPort());
+            System.out.printf("Catalog of %,d books, %d s per level, %d processors%n",
+                    size, duration.toSeconds(), Runtime.getRuntime().availableProcessors());
+            System.out.printf("%-8s %6s %12s %10s %10s %10s %10s%n",
+                    "mode", "conns", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us");
+            for (boolean batched : new boolean[]{false, true}) {
+                // Warm up the server and the client before measuring
+                run(base, size, 4, Duration.ofSeconds(2), batched);
+                for (int clients : levels) {
+                    Result result = run(base, size, clients, duration, batched);
+                    LatencyHistogram latencies = result.latencies();
+                    System.out.printf("%-8s %6d %,12.0f %10.0f %10.0f %10.0f %10.0f%n",
+                            batched ? "batch" + BATCH : "single", clients,
+                            result.operations() / (result.nanos() / 1e9),
+                            latencies.getPercentile(0.5) / 1e3, latencies.getPercentile(0.99) / 1e3,
+                            latencies.getPercentile(0.999) / 1e3, latencies.getMax() / 1e3);
+                }
+            }
+        } finally {
+            server.shutdown();
+            library.close();
+            BenchmarkSupport.deleteDir(dir);
+        }
+    }
+
+    private record Result(long operations, long nanos, LatencyHistogram latencies) {
+    }
+
+    private static Result run(URI base, int size, int clients, Duration duration, boolean batched) throws Exception {
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong operations = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        try {
+            List<Future<?>> futures = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                int seed = c;
+                futures.add(executor.submit(() -> {
+                    // A client of its own keeps one connection per simulated user
+                    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                    SplittableRandom random = new SplittableRandom(seed);
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = batched ? batch(base, size, random) : single(base, size, random);
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies.record(System.nanoTime() - sent);
+                        if (response.statusCode() != 200) {
+                            throw new IOException("HTTP " + response.statusCode() + ": " + response.body());
+                        }
+                        operations.addAndGet(batched ? BATCH : 1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(operations.get(), System.nanoTime() - started, latencies);
+    }
+
+    private static HttpRequest single(URI base, int size, SplittableRandom random) {
+        String path = random.nextInt(5) == 0
+                ? "/books?limit=20&q=" + WORDS[random.nextInt(WORDS.length)]
+                : "/books/" + CatalogGenerator.id(random.nextInt(size));
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private static HttpRequest batch(URI base, int size, SplittableRandom random) {
+        StringBuilder body = new StringBuilder(BATCH * 48).append('[');
+        for (int i = 0; i < BATCH; i++) {
+            String path = random.nextInt(5) == 0
+                    ? "/books?limit=20&q=" + WORDS[random.nextInt(WORDS.length)]
+                    : "/books/" + CatalogGenerator.id(random.nextInt(size));
+            body.append(i == 0 ? "" : ",").append("{\"method\":\"GET\",\"path\":\"").append(path).append("\"}");
+        }
+        return HttpRequest.newBuilder(base.resolve("/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString())).build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.benchmark;
+
+import com.library.Library;
+import com.library.io.BookExporter;
+import com.library.io.BookFileFormat;
+import com.library.io.BookImporter;
+import com.library.io.TransferReport;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Streaming import of a catalog file into an empty Library, sequential vs parallel parsing.
+ * Throughput in rows/sec = size / score.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ImportBenchmark {
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"CSV", "JSON_LINES"})
+    public BookFileFormat format;
+
+    // 0 = importer default (one worker per CPU)
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private Path sourceDir;
+    private Path file;
+    private Path dir;
+    private Library library;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        BenchmarkSupport.quietLogs();
+        sourceDir = BenchmarkSupport.tempDir("library-import-src");
+        file = sourceDir.resolve(format == BookFileFormat.CSV ? "books.csv" : "books.jsonl");
+        try (Library source = BenchmarkSupport.library(sourceDir, CatalogGenerator.generate(size))) {
+            new BookExporter(source).exportFile(file);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        BenchmarkSupport.deleteDir(sourceDir);
+    }
+
+    @Setup(Level.Iteration)
+    public void newDirectory() {
+        dir = BenchmarkSupport.tempDir("library-import");
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public TransferReport importFile() throws IOException {
+        library = new Library(BenchmarkSupport.config(dir));
+        BookImporter importer = new BookImporter(library);
+        if (parallelism > 0) {
+            importer.setParallelism(parallelism);
+        }
+        return importer.importFile(file);
+    }
+}
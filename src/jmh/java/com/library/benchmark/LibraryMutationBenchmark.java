@@ -0,0 +1,80 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Single-item mutations against a prefilled library, including the journal append.
+ * Each measured batch runs {@value #BATCH} operations on a freshly built library,
+ * so deletes never run out of books; divide the score by the batch for per-op cost.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = LibraryMutationBenchmark.BATCH)
+@Measurement(iterations = 5, batchSize = LibraryMutationBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LibraryMutationBenchmark {
+    static final int BATCH = 5_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Book> catalog;
+    private List<Book> additions;
+    private Book[] updates;
+    private Library library;
+    private Path dir;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        CatalogGenerator generator = new CatalogGenerator();
+        catalog = generator.books(size);
+        additions = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            additions.add(generator.book(size + i));
+        }
+        updates = new Book[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            Book book = catalog.get((int) ((long) i * 7919 % size));
+            updates[i] = new Book(book.getId(), book.getTitle() + " II", book.getAuthor(),
+                    book.getYear(), book.getPrice() + 1, book.getGenre());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fillLibrary() {
+        dir = BenchmarkSupport.tempDir("library-mutation");
+        library = BenchmarkSupport.library(dir, catalog);
+        next = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public void addBook() {
+        library.addBook(additions.get(next++));
+    }
+
+    @Benchmark
+    public void updateBook() {
+        Book update = updates[next++];
+        library.updateBook(update.getId(), update);
+    }
+
+    @Benchmark
+    public boolean deleteBook() {
+        return library.deleteBook(updates[next++].getId());
+    }
+}
@@ -0,0 +1,116 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.BookFilter;
+import com.library.BookPage;
+import com.library.BookQuery;
+import com.library.Library;
+import com.library.index.SortKey;
+import com.library.stats.LibraryStatistics;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Read paths of a prefilled library: ID lookups, substring search, statistics, list pages
+ * and filtered queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LibraryQueryBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Library library;
+    private Path dir;
+    private String[] ids;
+    private int next;
+    private BookQuery afterMiddle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        dir = BenchmarkSupport.tempDir("library-query");
+        library = BenchmarkSupport.library(dir, CatalogGenerator.generate(size));
+        ids = new String[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = CatalogGenerator.id((int) ((long) i * 7919 % size));
+        }
+        BookQuery byPrice = new BookQuery().setSort(SortKey.PRICE, false).setOffset(size / 2).setLimit(20);
+        String cursor = library.query(byPrice).getNextCursor();
+        afterMiddle = byPrice.setOffset(0).setCursor(cursor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Book getBookById() {
+        return library.getBookById(ids[next++ & (ids.length - 1)]);
+    }
+
+    // Repeated query: served by the result cache after the first call
+    @Benchmark
+    public List<Book> searchBooks(Query query) {
+        return library.searchBooks(query.text);
+    }
+
+    @Benchmark
+    public LibraryStatistics statistics() {
+        return library.getStatistics();
+    }
+
+    // Baseline: what the console statistics view used to do, three passes over a copy
+    @Benchmark
+    public double statisticsByScan() {
+        List<Book> books = library.getAllBooks();
+        long available = books.stream().filter(Book::isAvailable).count();
+        long checkedOut = books.stream().filter(b -> !b.isAvailable()).count();
+        return available + checkedOut + books.stream().mapToDouble(Book::getPrice).average().orElse(0);
+    }
+
+    // What the list window reads on open, and a jump to the middle of a sorted list
+    @Benchmark
+    public List<Book> firstPage() {
+        return library.getBooks(SortKey.ADDED, false, 0, 20);
+    }
+
+    @Benchmark
+    public List<Book> middlePageByTitle() {
+        return library.getBooks(SortKey.TITLE, false, size / 2, 20);
+    }
+
+    @Benchmark
+    public BookPage nextPageByCursor() {
+        return library.query(afterMiddle);
+    }
+
+    // Narrow year range within a common genre: planned query vs. filtering a full copy
+    private static final BookFilter FILTER = BookFilter.yearBetween(1990, 1991).and(BookFilter.genre("Poetry"))
+            .and(BookFilter.available(true));
+
+    @Benchmark
+    public BookPage filteredQuery() {
+        return library.query(new BookQuery().setFilter(FILTER).setLimit(20));
+    }
+
+    @Benchmark
+    public List<Book> filteredScan() {
+        return library.getAllBooks().stream().filter(FILTER).limit(20).toList();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Query {
+        // Selective author, common genre, title phrase, two-letter scan, no match
+        @Param({"tolkien", "fantasy", "silent garden", "ar", "zzzz"})
+        public String text;
+    }
+}
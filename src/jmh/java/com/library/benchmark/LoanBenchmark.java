@@ -0,0 +1,96 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import com.library.loan.Loan;
+import com.library.loan.LoanEngine;
+import com.library.loan.Patron;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Concurrent checkout-and-return of random titles; one operation is a checkout of any
+ * copy on the shelf plus its return, with {@code copies} copies per title.
+ * {@code viaUpdateBook} is the old way, flipping the availability flag by rewriting the
+ * book under the library's write lock and journal. Run with several thread counts to see
+ * scaling, e.g. {@code -Djmh.args="LoanBenchmark -t 8"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LoanBenchmark {
+    @Param({"100000"})
+    public int size;
+
+    @Param({"1", "20"})
+    public int copies;
+
+    private List<Book> books;
+    private Library library;
+    private LoanEngine loans;
+    private Path dir;
+    private final AtomicInteger patrons = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Borrower {
+        String patronId;
+
+        @Setup(Level.Trial)
+        public void register(LoanBenchmark benchmark) {
+            patronId = "P-" + benchmark.patrons.incrementAndGet();
+            benchmark.loans.registerPatron(new Patron(patronId, "Patron " + patronId, 1));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        dir = BenchmarkSupport.tempDir("library-loans");
+        books = CatalogGenerator.generate(size);
+        library = BenchmarkSupport.library(dir, books);
+        if (copies > 1) {
+            for (Book book : books) {
+                library.addCopies(book.getId(), copies - 1, "Main");
+            }
+        }
+        loans = new LoanEngine(library, dir.resolve("loans"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loans.close();
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public boolean checkOutAndIn(Borrower borrower) {
+        String bookId = books.get(ThreadLocalRandom.current().nextInt(size)).getId();
+        Loan loan;
+        try {
+            loan = loans.checkOut(bookId, borrower.patronId);
+        } catch (IllegalStateException e) {
+            // Other threads have every copy
+            return false;
+        }
+        loans.checkIn(bookId, loan.copy());
+        return true;
+    }
+
+    @Benchmark
+    public void viaUpdateBook() {
+        Book book = books.get(ThreadLocalRandom.current().nextInt(size));
+        Book out = new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getYear(), book.getPrice(),
+                book.getGenre());
+        out.setAvailable(false);
+        library.updateBook(book.getId(), out);
+        library.updateBook(book.getId(), book);
+    }
+}
@@ -0,0 +1,56 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of metrics on the cheapest instrumented call, an ID lookup, with and without
+ * recording; run with {@code -t 4} to see contention on the shared histogram.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+    private static final int SIZE = 100_000;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private Library library;
+    private Path dir;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        dir = BenchmarkSupport.tempDir("metrics-overhead");
+        library = new Library(BenchmarkSupport.config(dir).setMetricsEnabled(metrics));
+        library.addBooks(CatalogGenerator.generate(SIZE));
+        ids = new String[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = CatalogGenerator.id((int) ((long) i * 7919 % SIZE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public Book getBookById(Cursor cursor) {
+        return library.getBookById(ids[cursor.next++ & (ids.length - 1)]);
+    }
+}
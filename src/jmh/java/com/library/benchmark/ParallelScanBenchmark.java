@@ -0,0 +1,82 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.BookFilter;
+import com.library.BookPage;
+import com.library.BookQuery;
+import com.library.Library;
+import com.library.index.ParallelScan;
+import com.library.index.QueryCache;
+import com.library.index.SearchIndex;
+import com.library.stats.StatisticsAggregator;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Full scans with {@code threads} workers and no threshold, so every size forks; threads = 1
+ * is the sequential path. Where the two curves cross is the size to pass to
+ * {@link com.library.LibraryConfig#setParallelThreshold} on that host, e.g.
+ * {@code -Djmh.args="ParallelScanBenchmark -p threads=1,8,32"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParallelScanBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    // Broad enough that the planner's best candidate list is a large share of the catalog
+    private static final BookFilter BROAD = BookFilter.available(true).and(BookFilter.priceBelow(100));
+
+    private List<Book> books;
+    private ParallelScan scan;
+    private SearchIndex searchIndex;
+    private Library library;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        books = CatalogGenerator.generate(size);
+        scan = threads == 1 ? ParallelScan.SEQUENTIAL : new ParallelScan(threads, 1);
+        searchIndex = new SearchIndex(scan, QueryCache.DISABLED);
+        books.forEach(searchIndex::add);
+        dir = BenchmarkSupport.tempDir("parallel-scan");
+        library = new Library(BenchmarkSupport.config(dir).setParallelism(threads).setParallelThreshold(1));
+        library.addBooks(books);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        scan.shutdown();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    // Two letters: no trigram to narrow by, every search text is checked
+    @Benchmark
+    public List<Book> shortSearch() {
+        return searchIndex.search("ar");
+    }
+
+    @Benchmark
+    public BookPage broadFilter() {
+        return library.query(new BookQuery().setFilter(BROAD).setLimit(20));
+    }
+
+    // What a library pays to build its statistics on load
+    @Benchmark
+    public StatisticsAggregator buildStatistics() {
+        StatisticsAggregator statistics = new StatisticsAggregator();
+        statistics.addAll(books, scan);
+        return statistics;
+    }
+}
@@ -0,0 +1,49 @@
+package com.library.benchmark;
+
+import com.library.Library;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Full snapshot save and load (including index build) through the public Library API.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private Library library;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        dir = BenchmarkSupport.tempDir("library-persistence");
+        library = BenchmarkSupport.library(dir, CatalogGenerator.generate(size));
+        library.saveData();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        library.close();
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public void saveData() {
+        library.saveData();
+    }
+
+    @Benchmark
+    public int loadData() {
+        try (Library loaded = new Library(BenchmarkSupport.config(dir))) {
+            return loaded.getAllBooks().size();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.Library;
+import com.library.LibraryConfig;
+import com.library.LibraryConfig.StorageMode;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time from {@code new Library(...)} to the first lookup, heap versus memory-mapped storage.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"HEAP", "MAPPED"})
+    public StorageMode mode;
+
+    private Path dir;
+    private LibraryConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogs();
+        dir = BenchmarkSupport.tempDir("library-startup");
+        try (Library library = BenchmarkSupport.library(dir, CatalogGenerator.generate(size))) {
+            library.saveData();
+        }
+        config = BenchmarkSupport.config(dir).setStorageMode(mode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Book openAndLookup() {
+        try (Library library = new Library(config)) {
+            return library.getBookById(CatalogGenerator.id(size / 2));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.library.benchmark;
+
+import com.library.Book;
+import com.library.storage.BookReader;
+import com.library.storage.BookWriter;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Save/load time of the binary {@code BookFormat} against the legacy Java serialization.
+ * File sizes are printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StorageFormatBenchmark {
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"BINARY", "SERIALIZATION"})
+    public String format;
+
+    private List<Book> books;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        books = CatalogGenerator.generate(size);
+        file = Files.createTempFile("library-format", ".dat");
+        save();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n%s file size for %d books: %,d bytes%n", format, size, Files.size(file));
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long save() throws IOException {
+        if (format.equals("BINARY")) {
+            try (BookWriter writer = new BookWriter(Files.newOutputStream(file))) {
+                for (Book book : books) {
+                    writer.write(book);
+                }
+            }
+        } else {
+            try (ObjectOutputStream oos = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)))) {
+                oos.writeObject(books);
+            }
+        }
+        return Files.size(file);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<Book> load() throws IOException, ClassNotFoundException {
+        if (format.equals("BINARY")) {
+            List<Book> loaded = new ArrayList<>(size);
+            try (BookReader reader = new BookReader(Files.newInputStream(file))) {
+                for (Book book = reader.read(); book != null; book = reader.read()) {
+                    loaded.add(book);
+                }
+            }
+            return loaded;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            return (List<Book>) ois.readObject();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.library;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Saves a library in the background once it has unsaved changes.
+ * <p>
+ * A single daemon thread polls the number of journal records since the last snapshot.
+ * A dirty library is saved when its oldest unsaved change is about an interval old, when
+ * the changes reach a count, or when {@link #requestSave()} asks for it, so a burst of
+ * edits becomes one save. With a zero interval it does not poll and saves only when asked,
+ * which is how journal compaction runs when autosave is off. Saves run on this thread
+ * only, never in the thread that made the change; the thread is started on first use.
+ */
+final class AutoSaver {
+    private static final Logger logger = Logger.getLogger(AutoSaver.class.getName());
+    private static final long MAX_POLL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final IntSupplier unsaved;
+    private final Runnable save;
+    private final long intervalNanos;
+    private final int changes;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    // When the poller first saw unsaved changes, -1 while clean; touched only by the poller
+    private long dirtySince = -1;
+
+    AutoSaver(Duration interval, int changes, IntSupplier unsaved, Runnable save) {
+        this.unsaved = unsaved;
+        this.save = save;
+        this.intervalNanos = interval.toNanos();
+        this.changes = changes;
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "library-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (intervalNanos > 0) {
+            long poll = Math.min(intervalNanos, MAX_POLL_NANOS);
+            executor.scheduleWithFixedDelay(this::check, poll, poll, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Saves as soon as the background thread is free; calls made before then share one save.
+     */
+    void requestSave() {
+        if (requested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::check);
+            } catch (RejectedExecutionException e) {
+                // Closed: the journal keeps the changes until the next save
+            }
+        }
+    }
+
+    /**
+     * Stops polling and waits for a save in progress. Does not save what is still unsaved.
+     */
+    void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warning("Autosave still running after close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void check() {
+        try {
+            boolean forced = requested.getAndSet(false);
+            if (unsaved.getAsInt() == 0) {
+                dirtySince = -1;
+                return;
+            }
+            long now = System.nanoTime();
+            if (dirtySince < 0) {
+                dirtySince = now;
+            }
+            if (forced || unsaved.getAsInt() >= changes || now - dirtySince >= intervalNanos) {
+                save.run();
+                dirtySince = unsaved.getAsInt() == 0 ? -1 : now;
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule and end autosave for good
+            logger.severe("Autosave failed: " + e.getMessage());
+        }
+    }
+}
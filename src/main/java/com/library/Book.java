@@ -1,7 +1,6 @@
 package com.library;
 
 import java.io.Serializable;
-import java.time.Year;
 import java.util.Objects;
 
 public class Book implements Serializable {
@@ -24,6 +23,29 @@ public class Book implements Serializable {
         this.available = true;
     }
 
+    private Book(String id, String title, String author, int year, double price, String genre, boolean available) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.year = year;
+        this.price = price;
+        this.genre = genre;
+        this.available = available;
+    }
+
+    /**
+     * Creates a book from values that already passed validation, e.g. a record written
+     * by the storage layer from an existing {@code Book}. Skips all checks except for
+     * missing values, so it must not be used for user input.
+     */
+    public static Book trusted(String id, String title, String author, int year, double price,
+                               String genre, boolean available) {
+        if (id == null || title == null || author == null || genre == null) {
+            throw new IllegalArgumentException("Trusted book record has missing fields: " + id);
+        }
+        return new Book(id, title, author, year, price, genre, available);
+    }
+
     // Getters and setters with validation
     public String getId() { return id; }
     public String getTitle() { return title; }
@@ -34,61 +56,30 @@ public class Book implements Serializable {
     public boolean isAvailable() { return available; }
 
     public void setId(String id) {
-        if (id == null || id.trim().isEmpty()) {
-            throw new IllegalArgumentException("Book ID cannot be empty");
-        }
-        if (!id.matches("^[A-Za-z0-9-]{3,20}$")) {
-            throw new IllegalArgumentException("ID must be 3-20 characters (letters, digits, hyphens)");
-        }
-        this.id = id;
+        this.id = BookValidation.requireId(id);
     }
 
     public void setTitle(String title) {
-        if (title == null || title.trim().isEmpty()) {
-            throw new IllegalArgumentException("Title cannot be empty");
-        }
-        if (title.length() > 100) {
-            throw new IllegalArgumentException("Title too long (max 100 characters)");
-        }
-        this.title = title.trim();
+        this.title = BookValidation.requireText(title, "Title cannot be empty",
+                100, "Title too long (max 100 characters)");
     }
 
     public void setAuthor(String author) {
-        if (author == null || author.trim().isEmpty()) {
-            throw new IllegalArgumentException("Author cannot be empty");
-        }
-        if (author.length() > 50) {
-            throw new IllegalArgumentException("Author name too long (max 50 characters)");
-        }
-        this.author = author.trim();
+        this.author = BookValidation.requireText(author, "Author cannot be empty",
+                50, "Author name too long (max 50 characters)");
     }
 
     public void setYear(int year) {
-        int currentYear = Year.now().getValue();
-        if (year < 1450 || year > currentYear + 1) {
-            throw new IllegalArgumentException("Year must be between 1450 and " + (currentYear + 1));
-        }
-        this.year = year;
+        this.year = BookValidation.requireYear(year);
     }
 
     public void setPrice(double price) {
-        if (price < 0) {
-            throw new IllegalArgumentException("Price cannot be negative");
-        }
-        if (price > 1_000_000) {
-            throw new IllegalArgumentException("Price too high (max 1,000,000)");
-        }
-        this.price = Math.round(price * 100) / 100.0;
+        this.price = BookValidation.requirePrice(price);
     }
 
     public void setGenre(String genre) {
-        if (genre == null || genre.trim().isEmpty()) {
-            throw new IllegalArgumentException("Genre cannot be empty");
-        }
-        if (genre.length() > 30) {
-            throw new IllegalArgumentException("Genre too long (max 30 characters)");
-        }
-        this.genre = genre.trim();
+        this.genre = BookValidation.requireText(genre, "Genre cannot be empty",
+                30, "Genre too long (max 30 characters)");
     }
 
     public void setAvailable(boolean available) {
@@ -0,0 +1,81 @@
+package com.library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Changes for {@link Library#applyBatch} to make all at once, in the order given: adds,
+ * updates, deletes and availability changes, any number of them for the same book.
+ * Methods return {@code this} for chaining. Nothing is checked against the library
+ * until the batch is applied.
+ */
+public class BookBatch {
+    enum Kind {
+        ADD, UPDATE, SET_AVAILABLE, DELETE
+    }
+
+    /**
+     * One change: the book to add, the new data of an update, or neither.
+     */
+    record Change(Kind kind, String id, Book book, boolean available) {
+    }
+
+    private final List<Change> changes;
+
+    public BookBatch() {
+        this.changes = new ArrayList<>();
+    }
+
+    public BookBatch(int expectedSize) {
+        this.changes = new ArrayList<>(expectedSize);
+    }
+
+    /**
+     * Adds a book, as {@link Library#addBook}.
+     */
+    public BookBatch add(Book book) {
+        Objects.requireNonNull(book, "Book cannot be null");
+        changes.add(new Change(Kind.ADD, book.getId(), book, false));
+        return this;
+    }
+
+    /**
+     * Updates a book with the fields of {@code newData}, as {@link Library#updateBook}.
+     */
+    public BookBatch update(String id, Book newData) {
+        Objects.requireNonNull(newData, "Book cannot be null");
+        changes.add(new Change(Kind.UPDATE, id, newData, false));
+        return this;
+    }
+
+    /**
+     * Checks a book in or out, keeping its other fields.
+     */
+    public BookBatch setAvailable(String id, boolean available) {
+        changes.add(new Change(Kind.SET_AVAILABLE, id, null, available));
+        return this;
+    }
+
+    /**
+     * Deletes a book, as {@link Library#deleteBook}, except that a book that does not
+     * exist fails the batch.
+     */
+    public BookBatch delete(String id) {
+        changes.add(new Change(Kind.DELETE, id, null, false));
+        return this;
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    List<Change> changes() {
+        return Collections.unmodifiableList(changes);
+    }
+}
@@ -0,0 +1,157 @@
+package com.library;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Conditions on book fields for {@link BookQuery#setFilter}, combined with {@link #and}.
+ * <p>
+ * Every condition can be answered by a {@link Library} index: year and price ranges by
+ * sorted indexes, genre, author and availability by equality indexes. The library reads
+ * only the most selective condition's index and checks the rest on its candidates.
+ */
+public abstract class BookFilter implements Predicate<Book> {
+    enum Field {
+        YEAR, PRICE, GENRE, AUTHOR, AVAILABLE
+    }
+
+    BookFilter() {
+    }
+
+    /**
+     * Books published from {@code from} to {@code to}, both inclusive.
+     */
+    public static BookFilter yearBetween(int from, int to) {
+        return new Range(Field.YEAR, from, to);
+    }
+
+    /**
+     * Books priced from {@code min} to {@code max}, both inclusive.
+     */
+    public static BookFilter priceBetween(double min, double max) {
+        return new Range(Field.PRICE, min, max);
+    }
+
+    /**
+     * Books priced strictly below {@code max}.
+     */
+    public static BookFilter priceBelow(double max) {
+        return new Range(Field.PRICE, Double.NEGATIVE_INFINITY, Math.nextDown(max));
+    }
+
+    public static BookFilter genre(String genre) {
+        return new Equals(Field.GENRE, Objects.requireNonNull(genre, "Genre cannot be null"));
+    }
+
+    public static BookFilter author(String author) {
+        return new Equals(Field.AUTHOR, Objects.requireNonNull(author, "Author cannot be null"));
+    }
+
+    public static BookFilter available(boolean available) {
+        return new Equals(Field.AVAILABLE, available);
+    }
+
+    /**
+     * Books matching both this filter and {@code other}.
+     */
+    public BookFilter and(BookFilter other) {
+        List<BookFilter> all = new ArrayList<>(conjuncts());
+        all.addAll(Objects.requireNonNull(other, "Filter cannot be null").conjuncts());
+        return new And(all);
+    }
+
+    /**
+     * The simple conditions that must all hold.
+     */
+    abstract List<BookFilter> conjuncts();
+
+    static final class Range extends BookFilter {
+        final Field field;
+        final double min;
+        final double max;
+
+        Range(Field field, double min, double max) {
+            if (min > max) {
+                throw new IllegalArgumentException("Empty range: " + min + " > " + max);
+            }
+            this.field = field;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public boolean test(Book book) {
+            double value = field == Field.YEAR ? book.getYear() : book.getPrice();
+            return value >= min && value <= max;
+        }
+
+        @Override
+        List<BookFilter> conjuncts() {
+            return List.of(this);
+        }
+
+        @Override
+        public String toString() {
+            return field.name().toLowerCase() + " in [" + min + ", " + max + "]";
+        }
+    }
+
+    static final class Equals extends BookFilter {
+        final Field field;
+        final Object value;
+
+        Equals(Field field, Object value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(Book book) {
+            return value.equals(switch (field) {
+                case GENRE -> book.getGenre();
+                case AUTHOR -> book.getAuthor();
+                default -> book.isAvailable();
+            });
+        }
+
+        @Override
+        List<BookFilter> conjuncts() {
+            return List.of(this);
+        }
+
+        @Override
+        public String toString() {
+            return field.name().toLowerCase() + " = " + value;
+        }
+    }
+
+    static final class And extends BookFilter {
+        private final List<BookFilter> conjuncts;
+
+        And(List<BookFilter> conjuncts) {
+            this.conjuncts = List.copyOf(conjuncts);
+        }
+
+        @Override
+        public boolean test(Book book) {
+            for (BookFilter filter : conjuncts) {
+                if (!filter.test(book)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        List<BookFilter> conjuncts() {
+            return conjuncts;
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(" and ");
+            conjuncts.forEach(filter -> joiner.add(filter.toString()));
+            return joiner.toString();
+        }
+    }
+}
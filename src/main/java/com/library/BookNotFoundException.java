@@ -0,0 +1,23 @@
+package com.library;
+
+/**
+ * Thrown when a change names a book the library does not have. An
+ * {@link IllegalArgumentException}, so callers that only check their input need not tell
+ * it apart.
+ */
+public class BookNotFoundException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final String bookId;
+
+    public BookNotFoundException(String bookId) {
+        this(bookId, "Book with ID " + bookId + " not found");
+    }
+
+    public BookNotFoundException(String bookId, String message) {
+        super(message);
+        this.bookId = bookId;
+    }
+
+    public String getBookId() { return bookId; }
+}
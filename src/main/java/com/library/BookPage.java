@@ -0,0 +1,39 @@
+package com.library;
+
+import java.util.List;
+
+/**
+ * One page of {@link Library#query} results.
+ */
+public class BookPage {
+    private final List<Book> books;
+    private final int total;
+    private final int offset;
+    private final String nextCursor;
+
+    BookPage(List<Book> books, int total, int offset, String nextCursor) {
+        this.books = List.copyOf(books);
+        this.total = total;
+        this.offset = offset;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Book> getBooks() { return books; }
+
+    /**
+     * Number of books matching the query across all pages.
+     */
+    public int getTotal() { return total; }
+
+    /**
+     * Position of the first book of this page within all matches.
+     */
+    public int getOffset() { return offset; }
+
+    /**
+     * Cursor for the page after this one, or {@code null} if this is the last page.
+     */
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+}
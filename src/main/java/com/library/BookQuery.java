@@ -0,0 +1,92 @@
+package com.library;
+
+import com.library.index.SortKey;
+import java.util.Objects;
+
+/**
+ * One page request against {@link Library#query}: optional search text, order, and where
+ * the page starts. Setters return {@code this} for chaining.
+ * <p>
+ * A page starts either at {@link #setOffset offset} or, to continue from an earlier page,
+ * right after its {@link BookPage#getNextCursor() cursor}; a cursor takes precedence.
+ */
+public class BookQuery {
+    public static final int DEFAULT_LIMIT = 50;
+
+    private String text;
+    private BookFilter filter;
+    private SortKey sortKey = SortKey.ADDED;
+    private boolean descending;
+    private int offset;
+    private int limit = DEFAULT_LIMIT;
+    private String cursor;
+
+    public BookQuery() {
+    }
+
+    BookQuery(BookQuery source) {
+        this.text = source.text;
+        this.filter = source.filter;
+        this.sortKey = source.sortKey;
+        this.descending = source.descending;
+        this.offset = source.offset;
+        this.limit = source.limit;
+        this.cursor = source.cursor;
+    }
+
+    public String getText() { return text; }
+    public BookFilter getFilter() { return filter; }
+    public SortKey getSortKey() { return sortKey; }
+    public boolean isDescending() { return descending; }
+    public int getOffset() { return offset; }
+    public int getLimit() { return limit; }
+    public String getCursor() { return cursor; }
+
+    /**
+     * Restricts results to books whose title, author, genre or ID contains the text
+     * (case-insensitive); {@code null} or blank matches every book.
+     */
+    public BookQuery setText(String text) {
+        this.text = text == null || text.isBlank() ? null : text;
+        return this;
+    }
+
+    /**
+     * Restricts results to books matching the filter; {@code null} matches every book.
+     * In {@link SortKey#ADDED} order, filtered results come back ordered by ID.
+     */
+    public BookQuery setFilter(BookFilter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public BookQuery setSort(SortKey sortKey, boolean descending) {
+        this.sortKey = Objects.requireNonNull(sortKey, "Sort key cannot be null");
+        this.descending = descending;
+        return this;
+    }
+
+    public BookQuery setOffset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    public BookQuery setLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @param cursor a {@link BookPage#getNextCursor()} of the same query, or {@code null}
+     */
+    public BookQuery setCursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+}
@@ -0,0 +1,92 @@
+package com.library;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Field checks behind the {@link Book} setters, written so that valid input costs
+ * no allocation: hand-rolled character loops instead of {@code String.matches}
+ * (which compiles a {@code Pattern} on every call) and a cached upper year bound
+ * instead of {@code Year.now()} (which reads the clock and time zone).
+ */
+final class BookValidation {
+    static final int MIN_YEAR = 1450;
+    static final double MAX_PRICE = 1_000_000;
+
+    // Latest accepted year (current year + 1). It only ever grows, so a stale value
+    // can only reject a year too early; rejections refresh it before failing.
+    private static volatile int maxYear = computeMaxYear();
+
+    private BookValidation() {
+    }
+
+    static String requireId(String id) {
+        if (id == null || !hasContent(id)) {
+            throw new IllegalArgumentException("Book ID cannot be empty");
+        }
+        int length = id.length();
+        if (length < 3 || length > 20) {
+            throw new IllegalArgumentException("ID must be 3-20 characters (letters, digits, hyphens)");
+        }
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-')) {
+                throw new IllegalArgumentException("ID must be 3-20 characters (letters, digits, hyphens)");
+            }
+        }
+        return id;
+    }
+
+    /**
+     * @return the trimmed value; {@code trim()} returns the same instance when there is nothing to trim
+     */
+    static String requireText(String value, String emptyMessage, int maxLength, String tooLongMessage) {
+        if (value == null || !hasContent(value)) {
+            throw new IllegalArgumentException(emptyMessage);
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(tooLongMessage);
+        }
+        return value.trim();
+    }
+
+    static int requireYear(int year) {
+        if (year < MIN_YEAR || (year > maxYear && year > refreshMaxYear())) {
+            throw new IllegalArgumentException("Year must be between " + MIN_YEAR + " and " + maxYear);
+        }
+        return year;
+    }
+
+    static double requirePrice(double price) {
+        if (price < 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        if (price > MAX_PRICE) {
+            throw new IllegalArgumentException("Price too high (max 1,000,000)");
+        }
+        return Math.round(price * 100) / 100.0;
+    }
+
+    static int maxYear() {
+        return maxYear;
+    }
+
+    // Same test as !value.trim().isEmpty() without creating the trimmed copy
+    private static boolean hasContent(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int refreshMaxYear() {
+        maxYear = computeMaxYear();
+        return maxYear;
+    }
+
+    private static int computeMaxYear() {
+        return LocalDate.now(ZoneId.systemDefault()).getYear() + 1;
+    }
+}
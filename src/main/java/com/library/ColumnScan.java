@@ -0,0 +1,100 @@
+package com.library;
+
+import com.library.index.SearchIndex;
+import com.library.storage.ColumnarBookStore;
+import java.util.*;
+
+/**
+ * Answers queries in columnar mode straight from the columns, in place of the indexes,
+ * which would hold a {@link Book} per row and undo the store's savings.
+ * <p>
+ * Filter conditions are checked on the year, price, availability, author and genre
+ * columns; a {@link Book} is built only for a row that passes them, to check search text
+ * against its title and to be returned. A sorted page keeps only the books that could
+ * still be on it, in a heap bounded by the page's end. Nothing outlives the call. Runs
+ * under the library's read lock.
+ */
+final class ColumnScan {
+    private final ColumnarBookStore columns;
+
+    ColumnScan(ColumnarBookStore columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * One page of a sorted scan, and the position of its first book among all books.
+     */
+    record Window(List<Book> books, int start) {
+    }
+
+    /**
+     * Books matching the text, if any, and every condition of the filter, if any, in
+     * insertion order.
+     */
+    List<Book> matches(String text, BookFilter filter) {
+        List<BookFilter> conditions = filter == null ? List.of() : filter.conjuncts();
+        List<Book> matches = new ArrayList<>();
+        for (int row = 0, rows = columns.rowCount(); row < rows; row++) {
+            if (!columns.isLive(row) || !matches(row, conditions)) {
+                continue;
+            }
+            Book book = columns.book(row);
+            if (text == null || SearchIndex.matches(book, text)) {
+                matches.add(book);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * The {@code limit} books that come first in {@code order} after {@code anchor}, or
+     * after the first {@code offset} books when there is no anchor.
+     */
+    Window sorted(Comparator<Book> order, Book anchor, int offset, int limit) {
+        int keep = anchor != null ? limit : (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        // Worst kept book at the head, to be dropped for a better one
+        PriorityQueue<Book> kept = new PriorityQueue<>(Math.min(keep, 1024) + 1, order.reversed());
+        int before = 0;
+        for (int row = 0, rows = columns.rowCount(); row < rows; row++) {
+            if (!columns.isLive(row)) {
+                continue;
+            }
+            Book book = columns.book(row);
+            if (anchor != null && order.compare(book, anchor) <= 0) {
+                before++;
+            } else if (kept.size() < keep) {
+                kept.add(book);
+            } else if (order.compare(book, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(book);
+            }
+        }
+        Book[] sorted = kept.toArray(new Book[0]);
+        Arrays.sort(sorted, order);
+        int start = anchor != null ? before : offset;
+        int from = anchor != null ? 0 : Math.min(offset, sorted.length);
+        return new Window(Arrays.asList(sorted).subList(from, sorted.length), start);
+    }
+
+    private boolean matches(int row, List<BookFilter> conditions) {
+        for (BookFilter condition : conditions) {
+            if (condition instanceof BookFilter.Range range) {
+                double value = range.field == BookFilter.Field.YEAR ? columns.year(row) : columns.price(row);
+                if (value < range.min || value > range.max) {
+                    return false;
+                }
+            } else {
+                BookFilter.Equals equals = (BookFilter.Equals) condition;
+                Object value = switch (equals.field) {
+                    case GENRE -> columns.genre(row);
+                    case AUTHOR -> columns.author(row);
+                    default -> columns.isAvailable(row);
+                };
+                if (!equals.value.equals(value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
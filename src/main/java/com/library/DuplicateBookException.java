@@ -0,0 +1,23 @@
+package com.library;
+
+/**
+ * Thrown when a book is added under an ID the library already has. An
+ * {@link IllegalArgumentException}, so callers that only check their input need not tell
+ * it apart.
+ */
+public class DuplicateBookException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final String bookId;
+
+    public DuplicateBookException(String bookId) {
+        this(bookId, "Book with ID " + bookId + " already exists");
+    }
+
+    public DuplicateBookException(String bookId, String message) {
+        super(message);
+        this.bookId = bookId;
+    }
+
+    public String getBookId() { return bookId; }
+}
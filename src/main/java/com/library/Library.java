@@ -1,106 +1,1066 @@
 package com.library;
 
+import com.library.audit.AuditLog;
+import com.library.index.BookIndex;
+import com.library.index.EqualityIndex;
+import com.library.index.FuzzyIndex;
+import com.library.index.ParallelScan;
+import com.library.index.QueryCache;
+import com.library.index.SearchIndex;
+import com.library.index.SortKey;
+import com.library.index.SortedIndex;
+import com.library.inventory.CopyInventory;
+import com.library.inventory.Holdings;
+import com.library.metrics.LibraryMetrics;
+import com.library.stats.LibraryStatistics;
+import com.library.stats.StatisticsAggregator;
+import com.library.storage.*;
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.logging.Logger;
 
-public class Library {
+/**
+ * Thread-safe book catalog.
+ * <p>
+ * {@link #getBookById} and {@link #isIdUnique} read the concurrent ID map without
+ * locking. Mutations are serialized by a write lock so that the journal, the store and
+ * the indexes always change together, and {@link #getAllBooks}/{@link #searchBooks}
+ * run under the read lock, so they see a consistent snapshot. Stored books are
+ * replaced, never modified, by {@link #updateBook}: treat returned books as read-only.
+ * <p>
+ * A book is a title. Its physical copies, one unless more are added, live in a compact
+ * {@link CopyInventory} per title, so searches and statistics never see them.
+ * {@link Book#isAvailable()}, which filters, the UIs and the statistics read, is the
+ * catalog's flag for whether a title may be lent at all. A loan through a
+ * {@link com.library.loan.LoanEngine} takes a copy off the inventory's shelf and leaves the
+ * flag alone, so a title with every copy out is still "available" here; copies on the
+ * shelf are {@link CopyInventory#available()}.
+ */
+public class Library implements Closeable {
     private static final Logger logger = Logger.getLogger(Library.class.getName());
-    private static final String DATA_FILE = "library_data.ser";
-    private final List<Book> books;
+    // Primary key index, iterated in insertion order
+    private final BookStore books;
+    private final SearchIndex searchIndex;
+    private final FuzzyIndex fuzzyIndex;
+    // Columnar mode only: answers queries from the columns, so the Book-holding indexes are
+    // never built
+    private final ColumnScan columnScan;
+    private final StatisticsAggregator statistics = new StatisticsAggregator();
+    private final Map<SortKey, SortedIndex> sortedIndexes = new EnumMap<>(SortKey.class);
+    private final EqualityIndex<String> genreIndex = new EqualityIndex<>(Book::getGenre);
+    private final EqualityIndex<String> authorIndex = new EqualityIndex<>(Book::getAuthor);
+    private final EqualityIndex<Boolean> availabilityIndex = new EqualityIndex<>(Book::isAvailable);
+    private final QueryPlanner planner;
+    // Fork-join over segments for scans past the configured threshold: short or broad text
+    // searches, filters with many candidates and building aggregates
+    private final ParallelScan scan;
+    private final LibraryConfig config;
+    private final LibraryMetrics metrics;
+    // Added/updated/deleted lines, formatted and written off the mutating thread
+    private final AuditLog audit;
+    private final Journal journal;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    // One snapshot at a time; taken before the read/write lock, never while holding it
+    private final ReentrantLock saveLock = new ReentrantLock();
+    // Saves in the background: periodically with autosave, and always for journal compaction
+    private final AutoSaver autoSaver;
+    // Indexes kept in step with the store. Sorted indexes and the fuzzy index, and outside
+    // heap mode the search index too, are built on first use instead of at startup.
+    private final Set<BookIndex> liveIndexes = ConcurrentHashMap.newKeySet();
+    // One String per distinct author and genre, shared by every stored book and the store.
+    // Only touched under the write lock (or while loading).
+    private final StringDictionary strings = new StringDictionary();
+    // Copies per title, created on first use; changed under the write lock and journaled
+    // with the books, lent without it
+    private final Holdings holdings = new Holdings();
 
     public Library() {
-        this.books = new ArrayList<>();
+        this(new LibraryConfig());
+    }
+
+    public Library(String dataFile) {
+        this(new LibraryConfig().setDataFile(dataFile));
+    }
+
+    public Library(LibraryConfig config) {
+        this.config = Objects.requireNonNull(config, "Config cannot be null");
+        this.metrics = new LibraryMetrics(config.isMetricsEnabled());
+        this.audit = new AuditLog(logger, Library.class.getName(), config.getAuditQueueCapacity(),
+                config.getAuditOverflowPolicy());
+        this.scan = config.getParallelism() > 1
+                ? new ParallelScan(config.getParallelism(), config.getParallelThreshold())
+                : ParallelScan.SEQUENTIAL;
+        this.searchIndex = new SearchIndex(scan,
+                new QueryCache(config.getSearchCacheSize(), config.getSearchCachePolicy()));
+        this.books = switch (config.getStorageMode()) {
+            case HEAP -> new HeapBookStore(strings);
+            case MAPPED -> new MappedBookStore();
+            case COLUMNAR -> new ColumnarBookStore(strings);
+        };
+        this.columnScan = books instanceof ColumnarBookStore columns ? new ColumnScan(columns) : null;
+        // Keyed by ID in columnar mode, looking the few books of a result up in the store
+        this.fuzzyIndex = columnScan != null ? new FuzzyIndex(books::get) : new FuzzyIndex();
+        switch (config.getStorageMode()) {
+            case HEAP -> {
+                liveIndexes.add(searchIndex);
+                liveIndexes.add(statistics);
+            }
+            // Statistics hold no books; the other indexes would pin a Book per row
+            case COLUMNAR -> liveIndexes.add(statistics);
+            default -> {
+            }
+        }
+        for (SortKey key : SortKey.values()) {
+            if (key.order() != null) {
+                sortedIndexes.put(key, new SortedIndex(key));
+            }
+        }
+        this.planner = new QueryPlanner(searchIndex, sortedIndexes.get(SortKey.YEAR), sortedIndexes.get(SortKey.PRICE),
+                genreIndex, authorIndex, availabilityIndex);
+        this.journal = new Journal(Paths.get(config.getJournalFile()), config.isJournalSync());
         loadData();
+        this.autoSaver = new AutoSaver(config.getAutosaveInterval(), config.getAutosaveChanges(), journal::size,
+                this::saveData);
+        if (config.isJmxEnabled()) {
+            metrics.register(Paths.get(config.getDataFile()).toAbsolutePath().toString());
+        }
     }
 
-    @SuppressWarnings("unchecked")
     private void loadData() {
-        File file = new File(DATA_FILE);
-        if (!file.exists()) {
+        Path file = Paths.get(config.getDataFile());
+        if (!Files.exists(file)) {
             logger.info("Data file not found. New file will be created.");
-            return;
+        } else {
+            try {
+                SerMigrator.migrate(file);
+                long started = metrics.start();
+                books.load(file);
+                metrics.recordIo(LibraryMetrics.Io.SNAPSHOT_LOAD, started, Files.size(file));
+                if (!liveIndexes.isEmpty()) {
+                    List<Book> loaded = snapshot();
+                    for (BookIndex index : liveIndexes) {
+                        index.addAll(loaded, scan);
+                    }
+                }
+                logger.info("Data loaded successfully. Loaded books: " + books.size());
+            } catch (IOException e) {
+                logger.severe("Error loading data: " + e.getMessage());
+            }
+        }
+        Path holdingsFile = Paths.get(config.getHoldingsFile());
+        if (Files.exists(holdingsFile)) {
+            try {
+                List<Holding> loaded = new ArrayList<>();
+                HoldingsFile.read(holdingsFile, loaded::add);
+                loaded.forEach(holdings::restore);
+            } catch (IOException e) {
+                logger.severe("Error loading copies: " + e.getMessage());
+            }
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
-            Object obj = ois.readObject();
-            if (obj instanceof List) {
-                List<Book> loadedBooks = (List<Book>) obj;
-                books.addAll(loadedBooks);
-                logger.info("Data loaded successfully. Loaded books: " + loadedBooks.size());
+        try {
+            Path journalFile = Paths.get(config.getJournalFile());
+            long started = metrics.start();
+            int replayed = journal.replay(book -> applyPut(pooledCopy(book)), this::applyDelete,
+                    holdings::restore);
+            metrics.recordIo(LibraryMetrics.Io.JOURNAL_REPLAY, started, Files.size(journalFile));
+            if (replayed > 0) {
+                logger.info("Journal replayed. Applied changes: " + replayed);
             }
-        } catch (InvalidClassException e) {
-            logger.warning("Incompatible data version: " + e.getMessage());
-        } catch (IOException | ClassNotFoundException e) {
-            logger.severe("Error loading data: " + e.getMessage());
+        } catch (IOException e) {
+            logger.severe("Error replaying journal: " + e.getMessage());
         }
     }
 
+    /**
+     * Writes a full snapshot and drops the journal records it covers. The catalog is
+     * copied under the read lock and written without any lock, so reads and mutations go
+     * on during the save; changes made meanwhile stay in the journal. The snapshot goes to
+     * a temporary file first and replaces the data file atomically.
+     */
     public void saveData() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(books);
-            logger.info("Data saved successfully. Saved books: " + books.size());
+        long started = metrics.start(LibraryMetrics.Operation.SAVE_DATA);
+        saveLock.lock();
+        try {
+            save();
+        } finally {
+            saveLock.unlock();
+            metrics.record(LibraryMetrics.Operation.SAVE_DATA, started);
+        }
+    }
+
+    // Call holding saveLock
+    private void save() {
+        Path target = Paths.get(config.getDataFile());
+        Path temp = AtomicFile.tempFor(target);
+        Path holdingsTarget = Paths.get(config.getHoldingsFile());
+        Path holdingsTemp = AtomicFile.tempFor(holdingsTarget);
+        // With a synced journal the snapshot must be as durable as the records it replaces
+        boolean sync = config.isJournalSync();
+        List<Book> snapshot;
+        List<Holding> copies;
+        Journal.Mark mark;
+        try {
+            readLock.lock();
+            try {
+                snapshot = snapshot();
+                copies = holdings.snapshot();
+                mark = journal.mark();
+            } finally {
+                readLock.unlock();
+            }
+            long written = metrics.start();
+            try (BookWriter writer = new BookWriter(AtomicFile.create(temp, sync))) {
+                for (Book book : snapshot) {
+                    writer.write(book);
+                }
+            }
+            // Copies are replayed from the journal as whole titles, so the two files need
+            // not be replaced together
+            boolean saveCopies = !copies.isEmpty() || Files.exists(holdingsTarget);
+            if (saveCopies) {
+                HoldingsFile.write(holdingsTemp, copies, sync);
+            }
+            writeLock.lock();
+            try {
+                if (saveCopies) {
+                    AtomicFile.replace(holdingsTemp, holdingsTarget, sync);
+                }
+                AtomicFile.replace(temp, target, sync);
+                metrics.recordIo(LibraryMetrics.Io.SNAPSHOT_SAVE, written, Files.size(target));
+                Set<String> changedSince = new HashSet<>();
+                Set<String> deletedSince = new HashSet<>();
+                journal.truncateBefore(mark, book -> changedSince.add(book.getId()), id -> {
+                    changedSince.add(id);
+                    deletedSince.add(id);
+                });
+                books.snapshotSaved(target, changedSince, deletedSince);
+            } finally {
+                writeLock.unlock();
+            }
+            logger.info("Data saved successfully. Saved books: " + snapshot.size());
         } catch (IOException e) {
             logger.severe("Error saving data: " + e.getMessage());
         }
     }
 
+    @Override
+    public void close() {
+        autoSaver.close();
+        writeLock.lock();
+        try {
+            audit.close();
+            journal.close();
+            books.close();
+            scan.shutdown();
+            metrics.unregister();
+        } catch (IOException e) {
+            logger.severe("Error closing library: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     public void addBook(Book book) {
-        Objects.requireNonNull(book, "Book cannot be null");
-        if (getBookById(book.getId()) != null) {
-            throw new IllegalArgumentException("Book with ID " + book.getId() + " already exists");
+        long started = metrics.start(LibraryMetrics.Operation.ADD_BOOK);
+        try {
+            Objects.requireNonNull(book, "Book cannot be null");
+            Book stored;
+            writeLock.lock();
+            try {
+                stored = pooledCopy(book);
+                if (books.contains(stored.getId())) {
+                    throw new DuplicateBookException(stored.getId());
+                }
+                writeJournal(Journal.Op.ADD, stored);
+                applyPut(stored);
+                compactIfNeeded();
+            } finally {
+                writeLock.unlock();
+            }
+            audit.info("addBook", "Added new book: {0}", stored.getId());
+        } finally {
+            metrics.record(LibraryMetrics.Operation.ADD_BOOK, started);
+        }
+    }
+
+    /**
+     * Adds many books under one lock acquisition, with one journal write and one log line.
+     * Books whose ID already exists, in the library or earlier in the same batch, are
+     * skipped rather than failing the batch.
+     *
+     * @return the skipped books, as passed in
+     */
+    public List<Book> addBooks(Collection<? extends Book> newBooks) {
+        long started = metrics.start(LibraryMetrics.Operation.ADD_BOOKS);
+        try {
+            Objects.requireNonNull(newBooks, "Books cannot be null");
+            List<Book> accepted = new ArrayList<>(newBooks.size());
+            List<Book> rejected = new ArrayList<>();
+            writeLock.lock();
+            try {
+                Set<String> batchIds = new HashSet<>();
+                for (Book book : newBooks) {
+                    Objects.requireNonNull(book, "Book cannot be null");
+                    if (books.contains(book.getId()) || !batchIds.add(book.getId())) {
+                        rejected.add(book);
+                    } else {
+                        accepted.add(pooledCopy(book));
+                    }
+                }
+                if (!accepted.isEmpty()) {
+                    try {
+                        long written = metrics.start();
+                        int bytes = journal.appendAll(Journal.Op.ADD, accepted);
+                        metrics.recordIo(LibraryMetrics.Io.JOURNAL_APPEND, written, bytes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Error writing journal", e);
+                    }
+                    accepted.forEach(this::applyPut);
+                    compactIfNeeded();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            audit.info("addBooks", "Added new books: {0,number,#}, skipped: {1,number,#}",
+                    accepted.size(), rejected.size());
+            return rejected;
+        } finally {
+            metrics.record(LibraryMetrics.Operation.ADD_BOOKS, started);
+        }
+    }
+
+    /**
+     * Visits every book in insertion order without copying the catalog.
+     * Runs under the read lock, so mutations wait until it returns.
+     */
+    public void forEachBook(Consumer<? super Book> action) {
+        long started = metrics.start(LibraryMetrics.Operation.FOR_EACH_BOOK);
+        try {
+            readLock.lock();
+            try {
+                books.forEach(action);
+            } finally {
+                readLock.unlock();
+            }
+        } finally {
+            metrics.record(LibraryMetrics.Operation.FOR_EACH_BOOK, started);
         }
-        books.add(book);
-        logger.info("Added new book: " + book.getId());
     }
 
     public List<Book> getAllBooks() {
-        return Collections.unmodifiableList(books);
+        long started = metrics.start(LibraryMetrics.Operation.GET_ALL_BOOKS);
+        try {
+            readLock.lock();
+            try {
+                return Collections.unmodifiableList(snapshot());
+            } finally {
+                readLock.unlock();
+            }
+        } finally {
+            metrics.record(LibraryMetrics.Operation.GET_ALL_BOOKS, started);
+        }
+    }
+
+    public int getBookCount() {
+        return books.size();
+    }
+
+    /**
+     * Returns one page of the catalog in the given order; shorthand for {@link #query}.
+     */
+    public List<Book> getBooks(SortKey sortKey, boolean descending, int offset, int limit) {
+        if (limit == 0) {
+            return List.of();
+        }
+        return query(new BookQuery().setSort(sortKey, descending).setOffset(offset).setLimit(limit)).getBooks();
+    }
+
+    /**
+     * Returns one page of matching books without materializing the rest of the catalog.
+     * <p>
+     * Sorted orders read a {@link SortedIndex} (built on first use, then maintained), so a
+     * page costs O(log n + limit) at any depth and a cursor seeks straight to its key.
+     * {@link SortKey#ADDED} walks the store up to the page. With search text or a filter,
+     * the {@link QueryPlanner} reads only the most selective index, so the cost follows
+     * that index's candidates instead of the catalog. In columnar mode there are no such
+     * indexes: every query scans the columns once (see {@link ColumnScan}).
+     *
+     * @throws IllegalArgumentException if the cursor is invalid or belongs to another query
+     */
+    public BookPage query(BookQuery query) {
+        long started = metrics.start(LibraryMetrics.Operation.QUERY);
+        try {
+            Objects.requireNonNull(query, "Query cannot be null");
+            QueryCursor cursor = query.getCursor() == null ? null : QueryCursor.decode(query.getCursor(), query);
+            SortedIndex index = sortedIndexes.get(query.getSortKey());
+            boolean planned = query.getText() != null || query.getFilter() != null;
+            if (columnScan != null) {
+                readLock.lock();
+                try {
+                    return columnarPage(query, cursor, planned);
+                } finally {
+                    readLock.unlock();
+                }
+            }
+            if (planned) {
+                planner.indexesFor(query.getText(), query.getFilter()).forEach(this::ensureLive);
+            } else if (index != null) {
+                ensureLive(index);
+            }
+            readLock.lock();
+            try {
+                if (planned) {
+                    return pageOfMatches(query, cursor, planner.plan(query.getText(), query.getFilter()).execute(scan));
+                }
+                int total = books.size();
+                int start = cursor == null ? query.getOffset() : cursor.anchor == null ? cursor.position
+                        : query.isDescending() ? total - index.rank(cursor.anchor, false) : index.rank(cursor.anchor, true);
+                List<Book> page = index != null ? index.page(start, query.getLimit(), query.isDescending())
+                        : pageInInsertionOrder(start, query.getLimit(), query.isDescending());
+                return toPage(query, page, total, start);
+            } finally {
+                readLock.unlock();
+            }
+        } finally {
+            metrics.record(LibraryMetrics.Operation.QUERY, started);
+        }
+    }
+
+    /**
+     * Streams every book matching the query, starting where the query's page would start.
+     * Books are fetched lazily, {@link BookQuery#getLimit()} at a time, each batch under a
+     * short read lock, so a stream that is abandoned early costs only the batches it read.
+     */
+    public Stream<Book> stream(BookQuery query) {
+        BookQuery next = new BookQuery(query);
+        Iterator<Book> iterator = new Iterator<>() {
+            private Iterator<Book> batch = Collections.emptyIterator();
+            private boolean more = true;
+
+            @Override
+            public boolean hasNext() {
+                while (!batch.hasNext() && more) {
+                    BookPage page = query(next);
+                    batch = page.getBooks().iterator();
+                    more = page.hasMore();
+                    next.setCursor(page.getNextCursor());
+                }
+                return batch.hasNext();
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
     public Book getBookById(String id) {
-        return books.stream()
-                .filter(b -> b.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        long started = metrics.start(LibraryMetrics.Operation.GET_BOOK_BY_ID);
+        try {
+            return books.get(id);
+        } finally {
+            metrics.record(LibraryMetrics.Operation.GET_BOOK_BY_ID, started);
+        }
     }
 
     public List<Book> searchBooks(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            return Collections.emptyList();
+        long started = metrics.start(LibraryMetrics.Operation.SEARCH_BOOKS);
+        try {
+            if (columnScan != null) {
+                if (query == null || query.trim().isEmpty()) {
+                    return Collections.emptyList();
+                }
+                readLock.lock();
+                try {
+                    return Collections.unmodifiableList(columnScan.matches(query, null));
+                } finally {
+                    readLock.unlock();
+                }
+            }
+            ensureLive(searchIndex);
+            readLock.lock();
+            try {
+                return searchIndex.search(query);
+            } finally {
+                readLock.unlock();
+            }
+        } finally {
+            metrics.record(LibraryMetrics.Operation.SEARCH_BOOKS, started);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} books whose title and author words best match the query's,
+     * misspellings included: "tolkein" finds Tolkien. Ranked by how many of the query's
+     * words match, how rare they are and how closely; see {@link FuzzyIndex}. The index is
+     * built on the first call and kept up to date from then on.
+     *
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public List<Book> fuzzySearch(String query, int limit) {
+        long started = metrics.start(LibraryMetrics.Operation.FUZZY_SEARCH);
+        try {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Limit must be positive");
+            }
+            ensureLive(fuzzyIndex);
+            readLock.lock();
+            try {
+                return fuzzyIndex.search(query, limit);
+            } finally {
+                readLock.unlock();
+            }
+        } finally {
+            metrics.record(LibraryMetrics.Operation.FUZZY_SEARCH, started);
+        }
+    }
+
+    /**
+     * Counts and latencies of this library's operations and I/O, cumulative since it was opened.
+     */
+    public LibraryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Hits, misses, evictions and invalidations of the cache behind {@link #searchBooks}
+     * and text queries.
+     */
+    public QueryCache.Stats getSearchCacheStats() {
+        return searchIndex.cacheStats();
+    }
+
+    /**
+     * Returns counts, price figures and per-genre/author/decade breakdowns from
+     * aggregates maintained on every mutation; costs O(groups), not O(books).
+     */
+    public LibraryStatistics getStatistics() {
+        long started = metrics.start(LibraryMetrics.Operation.GET_STATISTICS);
+        try {
+            ensureLive(statistics);
+            readLock.lock();
+            try {
+                return statistics.snapshot();
+            } finally {
+                readLock.unlock();
+            }
+        } finally {
+            metrics.record(LibraryMetrics.Operation.GET_STATISTICS, started);
         }
-        String lowerQuery = query.toLowerCase();
-        return books.stream()
-                .filter(b -> b.getTitle().toLowerCase().contains(lowerQuery) ||
-                        b.getAuthor().toLowerCase().contains(lowerQuery) ||
-                        b.getGenre().toLowerCase().contains(lowerQuery) ||
-                        b.getId().toLowerCase().contains(lowerQuery))
-                .toList();
     }
 
     public void updateBook(String id, Book newData) {
-        Book book = getBookById(id);
-        if (book == null) {
-            throw new IllegalArgumentException("Book with ID " + id + " not found");
+        long started = metrics.start(LibraryMetrics.Operation.UPDATE_BOOK);
+        try {
+            writeLock.lock();
+            try {
+                Book current = books.get(id);
+                if (current == null) {
+                    throw new BookNotFoundException(id);
+                }
+                Book book = merged(current, newData);
+                writeJournal(Journal.Op.UPDATE, book);
+                applyPut(book);
+                compactIfNeeded();
+            } finally {
+                writeLock.unlock();
+            }
+            audit.info("updateBook", "Updated book: {0}", id);
+        } finally {
+            metrics.record(LibraryMetrics.Operation.UPDATE_BOOK, started);
         }
-        if (newData.getTitle() != null) book.setTitle(newData.getTitle());
-        if (newData.getAuthor() != null) book.setAuthor(newData.getAuthor());
-        if (newData.getYear() > 0) book.setYear(newData.getYear());
-        if (newData.getPrice() >= 0) book.setPrice(newData.getPrice());
-        if (newData.getGenre() != null) book.setGenre(newData.getGenre());
-        book.setAvailable(newData.isAvailable());
-        logger.info("Updated book: " + id);
     }
 
     public boolean deleteBook(String id) {
-        boolean removed = books.removeIf(b -> b.getId().equals(id));
-        if (removed) {
-            logger.info("Deleted book: " + id);
+        long started = metrics.start(LibraryMetrics.Operation.DELETE_BOOK);
+        try {
+            writeLock.lock();
+            try {
+                if (id == null || !books.contains(id)) {
+                    return false;
+                }
+                try {
+                    long written = metrics.start();
+                    int bytes = journal.appendDelete(id);
+                    metrics.recordIo(LibraryMetrics.Io.JOURNAL_APPEND, written, bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error writing journal", e);
+                }
+                applyDelete(id);
+                compactIfNeeded();
+            } finally {
+                writeLock.unlock();
+            }
+            audit.info("deleteBook", "Deleted book: {0}", id);
+            return true;
+        } finally {
+            metrics.record(LibraryMetrics.Operation.DELETE_BOOK, started);
+        }
+    }
+
+    /**
+     * Makes every change in the batch or none of them. The whole batch is checked against
+     * the catalog as it would be after each earlier change before anything is written, so
+     * the first invalid change fails it with nothing applied. The changes to each book are
+     * then merged into its final version, written to the journal as one record, and
+     * applied with one pass over the store and one over each index, under one lock
+     * acquisition and with one log line.
+     *
+     * @throws IllegalArgumentException if a change adds an existing ID, or updates, checks
+     *                                  in or out, or deletes a book that does not exist
+     */
+    public void applyBatch(BookBatch batch) {
+        long started = metrics.start(LibraryMetrics.Operation.APPLY_BATCH);
+        try {
+            Objects.requireNonNull(batch, "Batch cannot be null");
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<String> removals = new ArrayList<>();
+            List<Book> puts = new ArrayList<>();
+            int added = 0;
+            writeLock.lock();
+            try {
+                // Final version of each book the batch touches, null once deleted, in the
+                // order the books would be appended in one by one
+                Map<String, Book> staged = new LinkedHashMap<>();
+                // Stored books deleted and then added again, which moves them to the end
+                Set<String> readded = new HashSet<>();
+                List<BookBatch.Change> changes = batch.changes();
+                for (int i = 0; i < changes.size(); i++) {
+                    BookBatch.Change change = changes.get(i);
+                    String id = change.id();
+                    Book current = staged.containsKey(id) ? staged.get(id) : id == null ? null : books.get(id);
+                    if (change.kind() == BookBatch.Kind.ADD) {
+                        if (current != null) {
+                            throw new DuplicateBookException(id, "Batch change " + i + ": Book with ID " + id
+                                    + " already exists");
+                        }
+                        staged.remove(id);
+                        if (books.contains(id)) {
+                            readded.add(id);
+                        }
+                        staged.put(id, pooledCopy(change.book()));
+                        continue;
+                    }
+                    if (current == null) {
+                        throw new BookNotFoundException(id, "Batch change " + i + ": Book with ID " + id + " not found");
+                    }
+                    staged.put(id, switch (change.kind()) {
+                        case UPDATE -> merged(current, change.book());
+                        case SET_AVAILABLE -> current.isAvailable() == change.available() ? current
+                                : Book.trusted(id, current.getTitle(), current.getAuthor(), current.getYear(),
+                                        current.getPrice(), current.getGenre(), change.available());
+                        default -> null;
+                    });
+                }
+                for (Map.Entry<String, Book> entry : staged.entrySet()) {
+                    Book stored = books.get(entry.getKey());
+                    Book book = entry.getValue();
+                    if (stored != null && (book == null || readded.contains(entry.getKey()))) {
+                        removals.add(entry.getKey());
+                        stored = null;
+                    }
+                    if (book != null && book != stored) {
+                        puts.add(book);
+                        if (stored == null) {
+                            added++;
+                        }
+                    }
+                }
+                if (removals.isEmpty() && puts.isEmpty()) {
+                    return;
+                }
+                try {
+                    long written = metrics.start();
+                    int bytes = journal.appendBatch(removals, puts);
+                    metrics.recordIo(LibraryMetrics.Io.JOURNAL_APPEND, written, bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error writing journal", e);
+                }
+                applyAll(removals, puts);
+                compactIfNeeded();
+            } finally {
+                writeLock.unlock();
+            }
+            audit.info("applyBatch", "Applied batch: {0,number,#} added, {1,number,#} updated, {2,number,#} deleted",
+                    added, puts.size() - added, removals.size());
+        } finally {
+            metrics.record(LibraryMetrics.Operation.APPLY_BATCH, started);
+        }
+    }
+
+    /**
+     * Returns the copies of a book, creating its inventory on first use; a book never given
+     * copies has one, with no location. Taking copies off the shelf and putting them back
+     * goes straight to the inventory, without the library's lock.
+     *
+     * @return the inventory, or {@code null} if there is no such book
+     */
+    public CopyInventory getCopies(String id) {
+        CopyInventory inventory = holdings.get(id);
+        if (inventory != null) {
+            return inventory;
+        }
+        // Keeps a concurrent delete from leaving an inventory behind
+        readLock.lock();
+        try {
+            return id != null && books.contains(id) ? holdings.getOrCreate(id) : null;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Copies held across all books, withdrawn ones not counted; O(1).
+     */
+    public long getCopyCount() {
+        readLock.lock();
+        try {
+            return holdings.copyCount(books.size());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Adds copies of a book at a location, numbered after its existing copies.
+     *
+     * @return the number of the first new copy
+     */
+    public int addCopies(String id, int count, String location) {
+        long started = metrics.start(LibraryMetrics.Operation.CHANGE_COPIES);
+        try {
+            if (count < 1) {
+                throw new IllegalArgumentException("Copy count must be positive");
+            }
+            Holdings.requireLocation(location);
+            int first;
+            writeLock.lock();
+            try {
+                requireBook(id);
+                List<String> locations = new ArrayList<>(holdings.holding(id).locations());
+                locations.addAll(Collections.nCopies(count, location));
+                writeJournal(new Holding(id, locations));
+                first = holdings.addCopies(id, count, location);
+                compactIfNeeded();
+            } finally {
+                writeLock.unlock();
+            }
+            audit.info("addCopies", "Added copies {0,number,#}-{1,number,#} of {2} at {3}",
+                    first, first + count - 1, id, location);
+            return first;
+        } finally {
+            metrics.record(LibraryMetrics.Operation.CHANGE_COPIES, started);
+        }
+    }
+
+    /**
+     * Changes where a copy belongs, whether or not it is on loan.
+     */
+    public void moveCopy(String id, int copy, String location) {
+        long started = metrics.start(LibraryMetrics.Operation.CHANGE_COPIES);
+        try {
+            Holdings.requireLocation(location);
+            writeLock.lock();
+            try {
+                requireCopy(id, copy);
+                List<String> locations = new ArrayList<>(holdings.holding(id).locations());
+                locations.set(copy, location);
+                writeJournal(new Holding(id, locations));
+                holdings.moveCopy(id, copy, location);
+                compactIfNeeded();
+            } finally {
+                writeLock.unlock();
+            }
+            audit.info("moveCopy", "Moved copy {0,number,#} of {1} to {2}", copy, id, location);
+        } finally {
+            metrics.record(LibraryMetrics.Operation.CHANGE_COPIES, started);
+        }
+    }
+
+    /**
+     * Removes a copy for good. Its number is not reused.
+     *
+     * @throws IllegalStateException if the copy is not on the shelf
+     */
+    public void withdrawCopy(String id, int copy) {
+        long started = metrics.start(LibraryMetrics.Operation.CHANGE_COPIES);
+        try {
+            writeLock.lock();
+            try {
+                CopyInventory inventory = requireCopy(id, copy);
+                // Taking it first keeps it from being lent between the journal and the change
+                if (!inventory.take(copy)) {
+                    throw new IllegalStateException("Copy " + copy + " of book " + id + " is checked out");
+                }
+                List<String> locations = new ArrayList<>(holdings.holding(id).locations());
+                locations.set(copy, null);
+                try {
+                    writeJournal(new Holding(id, locations));
+                } catch (UncheckedIOException e) {
+                    inventory.putBack(copy);
+                    throw e;
+                }
+                holdings.withdrawCopy(id, copy);
+                compactIfNeeded();
+            } finally {
+                writeLock.unlock();
+            }
+            audit.info("withdrawCopy", "Withdrew copy {0,number,#} of {1}", copy, id);
+        } finally {
+            metrics.record(LibraryMetrics.Operation.CHANGE_COPIES, started);
         }
-        return removed;
     }
 
     public boolean isIdUnique(String id) {
-        return books.stream().noneMatch(b -> b.getId().equals(id));
+        long started = metrics.start(LibraryMetrics.Operation.IS_ID_UNIQUE);
+        try {
+            return !books.contains(id);
+        } finally {
+            metrics.record(LibraryMetrics.Operation.IS_ID_UNIQUE, started);
+        }
+    }
+
+    // Upsert used both by live mutations and by snapshot/journal replay
+    // Private copy, so the caller's instance cannot change the stored one behind the indexes,
+    // holding the shared author and genre strings. Call under the write lock.
+    private Book pooledCopy(Book book) {
+        return Book.trusted(book.getId(), book.getTitle(), strings.intern(book.getAuthor()), book.getYear(),
+                book.getPrice(), strings.intern(book.getGenre()), book.isAvailable());
+    }
+
+    // Copy-on-write: readers and indexes keep the old version until the new one is swapped
+    // in. newData is itself a Book, so its fields are already validated. Call under the
+    // write lock.
+    private Book merged(Book current, Book newData) {
+        return Book.trusted(current.getId(),
+                newData.getTitle() != null ? newData.getTitle() : current.getTitle(),
+                strings.intern(newData.getAuthor() != null ? newData.getAuthor() : current.getAuthor()),
+                newData.getYear() > 0 ? newData.getYear() : current.getYear(),
+                newData.getPrice() >= 0 ? newData.getPrice() : current.getPrice(),
+                strings.intern(newData.getGenre() != null ? newData.getGenre() : current.getGenre()),
+                newData.isAvailable());
+    }
+
+    private void applyPut(Book book) {
+        Book previous = books.put(book);
+        for (BookIndex index : liveIndexes) {
+            if (previous == null) {
+                index.add(book);
+            } else {
+                index.update(previous, book);
+            }
+        }
+    }
+
+    // A batch's deletes and then its puts: the store first, then each index in turn
+    private void applyAll(List<String> removals, List<Book> puts) {
+        List<Book> removed = new ArrayList<>(removals.size());
+        for (String id : removals) {
+            removed.add(books.remove(id));
+            holdings.remove(id);
+        }
+        List<Book> previous = new ArrayList<>(puts.size());
+        for (Book book : puts) {
+            previous.add(books.put(book));
+        }
+        for (BookIndex index : liveIndexes) {
+            removed.forEach(index::remove);
+            for (int i = 0; i < puts.size(); i++) {
+                if (previous.get(i) == null) {
+                    index.add(puts.get(i));
+                } else {
+                    index.update(previous.get(i), puts.get(i));
+                }
+            }
+        }
+    }
+
+    private void applyDelete(String id) {
+        Book removed = books.remove(id);
+        if (removed == null) {
+            return;
+        }
+        holdings.remove(id);
+        for (BookIndex index : liveIndexes) {
+            index.remove(removed);
+        }
+    }
+
+    // Call under the write lock
+    private void requireBook(String id) {
+        if (id == null || !books.contains(id)) {
+            throw new BookNotFoundException(id);
+        }
+    }
+
+    // Call under the write lock
+    private CopyInventory requireCopy(String id, int copy) {
+        requireBook(id);
+        CopyInventory inventory = holdings.getOrCreate(id);
+        if (!inventory.exists(copy)) {
+            throw new IllegalArgumentException("Copy " + copy + " of book " + id + " not found");
+        }
+        return inventory;
+    }
+
+    private List<Book> pageInInsertionOrder(int offset, int limit, boolean descending) {
+        int size = books.size();
+        int count = Math.max(0, Math.min(limit, size - offset));
+        if (count == 0) {
+            return new ArrayList<>();
+        }
+        // Descending insertion order is the mirrored ascending range, reversed
+        int skip = descending ? size - offset - count : offset;
+        List<Book> page = new ArrayList<>(count);
+        Iterator<Book> it = books.iterator();
+        for (int i = 0; i < skip; i++) {
+            it.next();
+        }
+        while (page.size() < count) {
+            page.add(it.next());
+        }
+        if (descending) {
+            Collections.reverse(page);
+        }
+        return page;
+    }
+
+    /**
+     * Describes how {@link #query} would find the query's matches; for tests and diagnostics.
+     */
+    String explain(BookQuery query) {
+        if (columnScan != null) {
+            return "column scan";
+        }
+        planner.indexesFor(query.getText(), query.getFilter()).forEach(this::ensureLive);
+        readLock.lock();
+        try {
+            return planner.plan(query.getText(), query.getFilter()).toString();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Call under the read lock
+    private BookPage columnarPage(BookQuery query, QueryCursor cursor, boolean planned) {
+        if (planned) {
+            return pageOfMatches(query, cursor, columnScan.matches(query.getText(), query.getFilter()));
+        }
+        Comparator<Book> order = query.getSortKey().order();
+        int total = books.size();
+        if (order == null) {
+            int start = cursor == null ? query.getOffset() : cursor.position;
+            return toPage(query, pageInInsertionOrder(start, query.getLimit(), query.isDescending()), total, start);
+        }
+        ColumnScan.Window window = columnScan.sorted(query.isDescending() ? order.reversed() : order,
+                cursor == null ? null : cursor.anchor,
+                cursor == null ? query.getOffset() : cursor.position, query.getLimit());
+        return toPage(query, window.books(), total, window.start());
+    }
+
+    private BookPage pageOfMatches(BookQuery query, QueryCursor cursor, List<Book> matches) {
+        Comparator<Book> order = query.getSortKey().order();
+        if (order == null && query.getFilter() != null) {
+            // Filtered candidates come in the driving index's order, which may change between pages
+            order = SortKey.ID.order();
+        }
+        List<Book> sorted = matches;
+        if (order != null) {
+            Book[] array = matches.toArray(new Book[0]);
+            scan.sort(array, query.isDescending() ? order.reversed() : order);
+            sorted = Arrays.asList(array);
+        } else if (query.isDescending()) {
+            sorted = new ArrayList<>(matches);
+            Collections.reverse(sorted);
+        }
+        int start = query.getOffset();
+        if (cursor != null && cursor.anchor == null) {
+            start = cursor.position;
+        } else if (cursor != null) {
+            int found = Collections.binarySearch(sorted, cursor.anchor, query.isDescending() ? order.reversed() : order);
+            start = found >= 0 ? found + 1 : -found - 1;
+        }
+        int from = Math.min(start, sorted.size());
+        int to = Math.min(sorted.size(), from + query.getLimit());
+        return toPage(query, sorted.subList(from, to), sorted.size(), start);
+    }
+
+    private static BookPage toPage(BookQuery query, List<Book> page, int total, int start) {
+        String next = null;
+        if (!page.isEmpty() && start + page.size() < total) {
+            next = (query.getSortKey().order() == null
+                    ? QueryCursor.at(query, start + page.size())
+                    : QueryCursor.after(query, page.get(page.size() - 1))).encode();
+        }
+        return new BookPage(page, total, start, next);
+    }
+
+    private void ensureLive(BookIndex index) {
+        if (liveIndexes.contains(index)) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (!liveIndexes.contains(index)) {
+                index.addAll(snapshot(), scan);
+                liveIndexes.add(index);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private List<Book> snapshot() {
+        List<Book> all = new ArrayList<>(books.size());
+        books.forEach(all::add);
+        return all;
+    }
+
+    private void writeJournal(Journal.Op op, Book book) {
+        try {
+            long started = metrics.start();
+            int bytes = journal.append(op, book);
+            metrics.recordIo(LibraryMetrics.Io.JOURNAL_APPEND, started, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing journal", e);
+        }
+    }
+
+    private void writeJournal(Holding holding) {
+        try {
+            long started = metrics.start();
+            int bytes = journal.appendHolding(holding);
+            metrics.recordIo(LibraryMetrics.Io.JOURNAL_APPEND, started, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing journal", e);
+        }
+    }
+
+    // Call under the write lock. Only schedules the save: the snapshot is written on the
+    // autosave thread, so the lock is not held while it is serialized and forced.
+    private void compactIfNeeded() {
+        if (journal.size() < Math.max(config.getCompactionThreshold(), books.size())) {
+            return;
+        }
+        autoSaver.requestSave();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,199 @@
+package com.library;
+
+import com.library.audit.AuditLog;
+import com.library.index.QueryCache;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Tuning knobs for a {@link Library}. Setters return {@code this} for chaining.
+ */
+public class LibraryConfig {
+    public static final String DEFAULT_DATA_FILE = "library_data.ser";
+
+    public enum StorageMode {
+        /** Whole catalog decoded into the heap at startup. */
+        HEAP,
+        /** Data file memory-mapped, books decoded on access. */
+        MAPPED,
+        /** Whole catalog in the heap as primitive and dictionary-encoded columns, books built on access. */
+        COLUMNAR
+    }
+
+    private String dataFile = DEFAULT_DATA_FILE;
+    private StorageMode storageMode = StorageMode.HEAP;
+    private boolean journalSync = false;
+    private int compactionThreshold = 10_000;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int parallelThreshold = 50_000;
+    private int searchCacheSize = 256;
+    private QueryCache.Policy searchCachePolicy = QueryCache.Policy.LRU;
+    private boolean metricsEnabled = true;
+    private boolean jmxEnabled = false;
+    private int auditQueueCapacity = 8192;
+    private AuditLog.OverflowPolicy auditOverflowPolicy = AuditLog.OverflowPolicy.DROP_NEWEST;
+    private Duration autosaveInterval = Duration.ZERO;
+    private int autosaveChanges = 1_000;
+
+    public String getDataFile() { return dataFile; }
+    public StorageMode getStorageMode() { return storageMode; }
+    public boolean isJournalSync() { return journalSync; }
+    public int getCompactionThreshold() { return compactionThreshold; }
+    public int getParallelism() { return parallelism; }
+    public int getParallelThreshold() { return parallelThreshold; }
+    public int getSearchCacheSize() { return searchCacheSize; }
+    public QueryCache.Policy getSearchCachePolicy() { return searchCachePolicy; }
+    public boolean isMetricsEnabled() { return metricsEnabled; }
+    public boolean isJmxEnabled() { return jmxEnabled; }
+    public int getAuditQueueCapacity() { return auditQueueCapacity; }
+    public AuditLog.OverflowPolicy getAuditOverflowPolicy() { return auditOverflowPolicy; }
+    public Duration getAutosaveInterval() { return autosaveInterval; }
+    public int getAutosaveChanges() { return autosaveChanges; }
+
+    public String getJournalFile() {
+        return dataFile + ".journal";
+    }
+
+    /**
+     * Snapshot of the copies per title, saved along with the data file.
+     */
+    public String getHoldingsFile() {
+        return dataFile + ".copies";
+    }
+
+    public LibraryConfig setDataFile(String dataFile) {
+        this.dataFile = Objects.requireNonNull(dataFile, "Data file cannot be null");
+        return this;
+    }
+
+    public LibraryConfig setStorageMode(StorageMode storageMode) {
+        this.storageMode = Objects.requireNonNull(storageMode, "Storage mode cannot be null");
+        return this;
+    }
+
+    /**
+     * When enabled every journal append is forced to the storage device,
+     * surviving power loss and not just a process crash.
+     */
+    public LibraryConfig setJournalSync(boolean journalSync) {
+        this.journalSync = journalSync;
+        return this;
+    }
+
+    /**
+     * Minimum number of journal records before the journal is compacted into a snapshot.
+     * Compaction also waits until the journal is at least as long as the catalog,
+     * which keeps its amortized cost per mutation constant.
+     */
+    public LibraryConfig setCompactionThreshold(int compactionThreshold) {
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("Compaction threshold must be positive");
+        }
+        this.compactionThreshold = compactionThreshold;
+        return this;
+    }
+
+    /**
+     * Worker threads for full scans; defaults to the number of processors, and 1 keeps
+     * every scan in the calling thread.
+     */
+    public LibraryConfig setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Smallest number of books or candidates a scan must cover before it is split across
+     * the worker threads. Below it, forking costs more than it saves;
+     * {@code ParallelScanBenchmark} measures the crossover on a given host.
+     */
+    public LibraryConfig setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    /**
+     * Number of distinct search texts whose results are cached; 0 disables the cache.
+     */
+    public LibraryConfig setSearchCacheSize(int searchCacheSize) {
+        if (searchCacheSize < 0) {
+            throw new IllegalArgumentException("Search cache size must not be negative");
+        }
+        this.searchCacheSize = searchCacheSize;
+        return this;
+    }
+
+    public LibraryConfig setSearchCachePolicy(QueryCache.Policy searchCachePolicy) {
+        this.searchCachePolicy = Objects.requireNonNull(searchCachePolicy, "Cache policy cannot be null");
+        return this;
+    }
+
+    /**
+     * Operation counts and latency histograms; cheap enough to leave on.
+     */
+    public LibraryConfig setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
+
+    /**
+     * Registers the metrics as MXBeans on the platform MBean server, named after the data
+     * file, until the library is closed.
+     */
+    public LibraryConfig setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+        return this;
+    }
+
+    /**
+     * Log lines for added, updated and deleted books that may wait for the background
+     * writer; 0 logs them in the mutating thread.
+     */
+    public LibraryConfig setAuditQueueCapacity(int auditQueueCapacity) {
+        if (auditQueueCapacity < 0) {
+            throw new IllegalArgumentException("Audit queue capacity must not be negative");
+        }
+        this.auditQueueCapacity = auditQueueCapacity;
+        return this;
+    }
+
+    /**
+     * What a mutation does when the audit queue is full. The default drops the line: the
+     * journal, not the log, is the record of every change.
+     */
+    public LibraryConfig setAuditOverflowPolicy(AuditLog.OverflowPolicy auditOverflowPolicy) {
+        this.auditOverflowPolicy = Objects.requireNonNull(auditOverflowPolicy, "Overflow policy cannot be null");
+        return this;
+    }
+
+    /**
+     * Saves a snapshot in the background about this long after the first unsaved change,
+     * folding every change made meanwhile into one save. Zero, the default, disables
+     * autosave; journal compaction runs in the background either way.
+     */
+    public LibraryConfig setAutosaveInterval(Duration autosaveInterval) {
+        Objects.requireNonNull(autosaveInterval, "Autosave interval cannot be null");
+        if (autosaveInterval.isNegative()) {
+            throw new IllegalArgumentException("Autosave interval must not be negative");
+        }
+        this.autosaveInterval = autosaveInterval;
+        return this;
+    }
+
+    /**
+     * Unsaved changes after which autosave does not wait for the interval.
+     */
+    public LibraryConfig setAutosaveChanges(int autosaveChanges) {
+        if (autosaveChanges < 1) {
+            throw new IllegalArgumentException("Autosave changes must be positive");
+        }
+        this.autosaveChanges = autosaveChanges;
+        return this;
+    }
+}
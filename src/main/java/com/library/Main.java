@@ -4,12 +4,16 @@ import com.library.ui.BaseLibraryUI;
 import com.library.ui.UIFactory;
 import com.library.ui.UIFactory.UIType;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
 
 public class Main {
     public static void main(String[] args) {
-        try {
-            Library library = new Library();
-            BaseLibraryUI ui = UIFactory.createUI(UIType.LANTERNA, library);
+        try (Library library = new Library(new LibraryConfig()
+                .setJmxEnabled(true)
+                .setAutosaveInterval(Duration.ofSeconds(30)))) {
+            UIType type = args.length > 0 ? UIType.valueOf(args[0].toUpperCase(Locale.ROOT)) : UIType.LANTERNA;
+            BaseLibraryUI ui = UIFactory.createUI(type, library);
             ui.start();
         } catch (Exception e) {
             System.err.println("Critical error: " + e.getMessage());
@@ -0,0 +1,111 @@
+package com.library;
+
+import com.library.index.SortKey;
+import java.io.*;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque continuation token of a {@link BookQuery}.
+ * <p>
+ * Sorted orders are paged by key: the cursor carries the sort value and ID of the last
+ * book returned, and the next page starts after that position even if books were added,
+ * changed or deleted in between, so nothing is skipped or repeated. Insertion order has no
+ * key to seek to, so its cursor is a position and shifts when earlier books are deleted.
+ */
+final class QueryCursor {
+    private static final int VERSION = 1;
+
+    final SortKey sortKey;
+    final boolean descending;
+    // Book holding the sort value and ID of the last returned book, or null for a positional cursor
+    final Book anchor;
+    final int position;
+    // Hash of the query's text and filter, to reject cursors of other queries
+    private final int queryHash;
+
+    private QueryCursor(SortKey sortKey, boolean descending, int queryHash, Book anchor, int position) {
+        this.sortKey = sortKey;
+        this.descending = descending;
+        this.queryHash = queryHash;
+        this.anchor = anchor;
+        this.position = position;
+    }
+
+    static QueryCursor after(BookQuery query, Book last) {
+        return new QueryCursor(query.getSortKey(), query.isDescending(), fingerprint(query), last, -1);
+    }
+
+    static QueryCursor at(BookQuery query, int position) {
+        return new QueryCursor(query.getSortKey(), query.isDescending(), fingerprint(query), null,
+                position);
+    }
+
+    private static int fingerprint(BookQuery query) {
+        return Objects.hash(query.getText(), Objects.toString(query.getFilter(), null));
+    }
+
+    String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(sortKey.ordinal());
+            out.writeBoolean(descending);
+            out.writeInt(queryHash);
+            out.writeBoolean(anchor != null);
+            if (anchor == null) {
+                out.writeInt(position);
+            } else {
+                out.writeUTF(anchor.getId());
+                switch (sortKey) {
+                    case TITLE -> out.writeUTF(anchor.getTitle());
+                    case AUTHOR -> out.writeUTF(anchor.getAuthor());
+                    case YEAR -> out.writeInt(anchor.getYear());
+                    case PRICE -> out.writeDouble(anchor.getPrice());
+                    default -> {
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for a different query
+     */
+    static QueryCursor decode(String cursor, BookQuery query) {
+        QueryCursor decoded;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readUnsignedByte() != VERSION) {
+                throw new IllegalArgumentException("Unsupported cursor version");
+            }
+            SortKey sortKey = SortKey.values()[in.readUnsignedByte()];
+            boolean descending = in.readBoolean();
+            int queryHash = in.readInt();
+            if (!in.readBoolean()) {
+                int position = in.readInt();
+                if (position < 0) {
+                    throw new IllegalArgumentException("Negative cursor position: " + position);
+                }
+                decoded = new QueryCursor(sortKey, descending, queryHash, null, position);
+            } else {
+                String id = in.readUTF();
+                String title = sortKey == SortKey.TITLE ? in.readUTF() : "";
+                String author = sortKey == SortKey.AUTHOR ? in.readUTF() : "";
+                int year = sortKey == SortKey.YEAR ? in.readInt() : 0;
+                double price = sortKey == SortKey.PRICE ? in.readDouble() : 0;
+                decoded = new QueryCursor(sortKey, descending, queryHash,
+                        Book.trusted(id, title, author, year, price, "", true), -1);
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (decoded.sortKey != query.getSortKey() || decoded.descending != query.isDescending()
+                || decoded.queryHash != fingerprint(query)) {
+            throw new IllegalArgumentException("Cursor does not belong to this query");
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,186 @@
+package com.library;
+
+import com.library.index.BookIndex;
+import com.library.index.EqualityIndex;
+import com.library.index.ParallelScan;
+import com.library.index.SearchIndex;
+import com.library.index.SortedIndex;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Chooses how to find the books matching search text and a {@link BookFilter}.
+ * <p>
+ * Each condition is estimated from its index without touching any book: a range by the
+ * distance between two ranks in a sorted index, an equality by its group size, text by
+ * its rarest trigram. The cheapest one drives: only its candidates are read, and the
+ * remaining conditions are checked on each of them, in parallel segments when there are
+ * many candidates. Runs under the library's read lock.
+ */
+final class QueryPlanner {
+    private final SearchIndex searchIndex;
+    private final SortedIndex years;
+    private final SortedIndex prices;
+    private final EqualityIndex<String> genres;
+    private final EqualityIndex<String> authors;
+    private final EqualityIndex<Boolean> availability;
+
+    QueryPlanner(SearchIndex searchIndex, SortedIndex years, SortedIndex prices, EqualityIndex<String> genres,
+                 EqualityIndex<String> authors, EqualityIndex<Boolean> availability) {
+        this.searchIndex = searchIndex;
+        this.years = years;
+        this.prices = prices;
+        this.genres = genres;
+        this.authors = authors;
+        this.availability = availability;
+    }
+
+    /**
+     * Candidate source of the cheapest condition, plus the check for all the others.
+     */
+    static final class Plan {
+        final String driver;
+        final int estimate;
+        final Supplier<Collection<Book>> candidates;
+        final Predicate<Book> residual;
+
+        Plan(String driver, int estimate, Supplier<Collection<Book>> candidates, Predicate<Book> residual) {
+            this.driver = driver;
+            this.estimate = estimate;
+            this.candidates = candidates;
+            this.residual = residual;
+        }
+
+        List<Book> execute(ParallelScan scan) {
+            Collection<Book> source = candidates.get();
+            if (!scan.isParallel(source.size())) {
+                List<Book> matches = new ArrayList<>();
+                for (Book book : source) {
+                    if (residual.test(book)) {
+                        matches.add(book);
+                    }
+                }
+                return matches;
+            }
+            List<Book> list = source instanceof RandomAccess ? (List<Book>) source : new ArrayList<>(source);
+            return scan.collect(0, list.size(), i -> {
+                Book book = list.get(i);
+                return residual.test(book) ? book : null;
+            });
+        }
+
+        @Override
+        public String toString() {
+            return driver + " (~" + estimate + " candidates)";
+        }
+    }
+
+    /**
+     * The indexes a query needs; the library makes them live before planning.
+     */
+    List<BookIndex> indexesFor(String text, BookFilter filter) {
+        List<BookIndex> needed = new ArrayList<>();
+        if (text != null) {
+            needed.add(searchIndex);
+        }
+        if (filter != null) {
+            for (BookFilter condition : filter.conjuncts()) {
+                needed.add(indexOf(condition));
+            }
+        }
+        return needed;
+    }
+
+    Plan plan(String text, BookFilter filter) {
+        List<BookFilter> conditions = filter == null ? List.of() : filter.conjuncts();
+        Plan best = null;
+        if (text != null) {
+            best = new Plan("text '" + text + "'", searchIndex.estimate(text), () -> searchIndex.search(text),
+                    residual(null, conditions));
+        }
+        for (BookFilter condition : conditions) {
+            Plan plan = planFor(condition, text, conditions);
+            if (best == null || plan.estimate < best.estimate) {
+                best = plan;
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException("Query has neither text nor filter");
+        }
+        return best;
+    }
+
+    private Plan planFor(BookFilter condition, String text, List<BookFilter> conditions) {
+        Predicate<Book> residual = residual(condition, conditions);
+        if (text != null) {
+            residual = residual.and(book -> SearchIndex.matches(book, text));
+        }
+        if (condition instanceof BookFilter.Range range) {
+            SortedIndex index = range.field == BookFilter.Field.YEAR ? years : prices;
+            int start = lowerRank(range, index);
+            int end = Math.max(start, upperRank(range, index));
+            return new Plan(range.toString(), end - start, () -> index.page(start, end - start, false), residual);
+        }
+        BookFilter.Equals equals = (BookFilter.Equals) condition;
+        return switch (equals.field) {
+            case GENRE -> equalityPlan(genres, (String) equals.value, equals, residual);
+            case AUTHOR -> equalityPlan(authors, (String) equals.value, equals, residual);
+            default -> equalityPlan(availability, (Boolean) equals.value, equals, residual);
+        };
+    }
+
+    private static <K> Plan equalityPlan(EqualityIndex<K> index, K value, BookFilter condition,
+                                         Predicate<Book> residual) {
+        return new Plan(condition.toString(), index.count(value), () -> index.get(value), residual);
+    }
+
+    // Every condition except the driver, as one predicate
+    private static Predicate<Book> residual(BookFilter driver, List<BookFilter> conditions) {
+        List<BookFilter> rest = new ArrayList<>(conditions);
+        rest.remove(driver);
+        return book -> {
+            for (BookFilter condition : rest) {
+                if (!condition.test(book)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private BookIndex indexOf(BookFilter condition) {
+        if (condition instanceof BookFilter.Range range) {
+            return range.field == BookFilter.Field.YEAR ? years : prices;
+        }
+        return switch (((BookFilter.Equals) condition).field) {
+            case GENRE -> genres;
+            case AUTHOR -> authors;
+            default -> availability;
+        };
+    }
+
+    // Sorted indexes order by value, then ID; no ID sorts before "", so a probe with an empty
+    // ID ranks before every book of its value
+    private static int lowerRank(BookFilter.Range range, SortedIndex index) {
+        boolean year = range.field == BookFilter.Field.YEAR;
+        if (range.min == Double.NEGATIVE_INFINITY || (year && range.min <= Integer.MIN_VALUE)) {
+            return 0;
+        }
+        return index.rank(probe(range.field, year ? Math.ceil(range.min) : range.min), false);
+    }
+
+    private static int upperRank(BookFilter.Range range, SortedIndex index) {
+        boolean year = range.field == BookFilter.Field.YEAR;
+        if (range.max == Double.POSITIVE_INFINITY || (year && range.max >= Integer.MAX_VALUE)) {
+            return index.size();
+        }
+        return index.rank(probe(range.field, year ? Math.floor(range.max) + 1 : Math.nextUp(range.max)), false);
+    }
+
+    private static Book probe(BookFilter.Field field, double value) {
+        return field == BookFilter.Field.YEAR
+                ? Book.trusted("", "", "", (int) value, 0, "", true)
+                : Book.trusted("", "", "", 0, value, "", true);
+    }
+}
@@ -0,0 +1,235 @@
+package com.library.audit;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Hands log events to a background thread, so callers pay for an enqueue instead of
+ * formatting and handler I/O.
+ * <p>
+ * An event is a {@link java.text.MessageFormat} pattern and its parameters; the message
+ * is only formatted by the handler, on the writer thread, and not at all when the target
+ * logger would discard it. The writer takes events off the queue in batches of up to
+ * {@value #BATCH_SIZE} and publishes them to the target logger with the caller's time
+ * and source, so log lines read as before. The queue is bounded; when it is full the
+ * {@link OverflowPolicy} decides whether the caller waits or an event is dropped.
+ * Dropped events are counted and reported by the writer in one warning line.
+ * <p>
+ * A capacity of 0 logs synchronously in the calling thread, as plain logger calls would.
+ * Thread-safe.
+ */
+public final class AuditLog implements Closeable {
+    public enum OverflowPolicy {
+        /** The caller waits for room: nothing is lost, but a stalled handler stalls mutations. */
+        BLOCK,
+        /** The new event is discarded. */
+        DROP_NEWEST,
+        /** The oldest queued event is discarded to make room. */
+        DROP_OLDEST
+    }
+
+    static final int BATCH_SIZE = 256;
+    private static final long LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Event STOP = new Event(0, null, null, null, null);
+
+    private final Logger target;
+    private final String sourceClass;
+    private final OverflowPolicy policy;
+    private final BlockingQueue<Event> queue;
+    private final Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * @param target      logger the events are published to
+     * @param sourceClass class name reported as the source of every event
+     * @param capacity    events that may wait for the writer; 0 logs synchronously
+     */
+    public AuditLog(Logger target, String sourceClass, int capacity, OverflowPolicy policy) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Audit queue capacity must not be negative");
+        }
+        this.target = target;
+        this.sourceClass = sourceClass;
+        this.policy = policy;
+        if (capacity == 0) {
+            this.queue = null;
+            this.writer = null;
+        } else {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.writer = new Thread(this::drain, "library-audit");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Queues an INFO event.
+     *
+     * @param sourceMethod method reported as the source of the event
+     * @param pattern      {@link java.text.MessageFormat} pattern, e.g. {@code "Deleted book: {0}"}
+     */
+    public void info(String sourceMethod, String pattern, Object... params) {
+        if (!target.isLoggable(Level.INFO)) {
+            return;
+        }
+        Event event = new Event(System.currentTimeMillis(), sourceMethod, pattern, params, null);
+        if (queue == null || closed) {
+            publish(event);
+        } else {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Waits until every event queued before this call has been published.
+     */
+    public void flush() {
+        if (queue == null || closed) {
+            return;
+        }
+        CountDownLatch published = new CountDownLatch(1);
+        try {
+            queue.put(new Event(0, null, null, null, published));
+            published.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Events discarded by the overflow policy since the log was created.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getQueued() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Publishes what is queued and stops the writer. Later events are logged synchronously.
+     */
+    @Override
+    public void close() {
+        if (queue == null || closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(STOP);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Events from callers that saw the log open while it was closing
+        for (Event event; (event = queue.poll()) != null; ) {
+            if (event.published != null) {
+                event.published.countDown();
+            } else if (event != STOP) {
+                publish(event);
+            }
+        }
+    }
+
+    private void enqueue(Event event) {
+        switch (policy) {
+            case BLOCK -> {
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+            case DROP_NEWEST -> {
+                if (!queue.offer(event)) {
+                    dropped.increment();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(event)) {
+                    Event oldest = queue.poll();
+                    if (oldest != null && oldest.published != null) {
+                        oldest.published.countDown();
+                    } else if (oldest != null) {
+                        dropped.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        List<Event> batch = new ArrayList<>(BATCH_SIZE);
+        long reported = 0;
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            boolean full = batch.size() == BATCH_SIZE;
+            boolean stop = false;
+            for (Event event : batch) {
+                if (event == STOP) {
+                    stop = true;
+                } else if (event.published == null) {
+                    publish(event);
+                }
+            }
+            long lost = dropped.sum();
+            if (lost > reported) {
+                target.warning("Audit log queue full, dropped " + (lost - reported) + " events");
+                reported = lost;
+            }
+            // Flushes return only once the drops before them are reported too
+            for (Event event : batch) {
+                if (event != STOP && event.published != null) {
+                    event.published.countDown();
+                }
+            }
+            batch.clear();
+            if (stop) {
+                return;
+            }
+            if (!full) {
+                // Let events pile up instead of waking for each one; callers never wait on this
+                LockSupport.parkNanos(LINGER_NANOS);
+            }
+        }
+    }
+
+    private void publish(Event event) {
+        try {
+            LogRecord record = new LogRecord(Level.INFO, event.pattern);
+            record.setParameters(event.params);
+            record.setInstant(Instant.ofEpochMilli(event.millis));
+            record.setSourceClassName(sourceClass);
+            record.setSourceMethodName(event.sourceMethod);
+            record.setLoggerName(target.getName());
+            target.log(record);
+        } catch (RuntimeException e) {
+            // A failing handler must not kill the writer and back up the queue
+            System.err.println("Audit log handler failed: " + e);
+        }
+    }
+
+    // published is set only on flush markers
+    private record Event(long millis, String sourceMethod, String pattern, Object[] params,
+                         CountDownLatch published) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.library.index;
+
+import com.library.Book;
+import java.util.List;
+
+/**
+ * A structure derived from the catalog that {@link com.library.Library} keeps in step
+ * with every add, update and delete. Implementations are not thread-safe: the library
+ * calls them under its write lock and reads them under its read lock.
+ */
+public interface BookIndex {
+    void add(Book book);
+
+    /**
+     * Adds books that are not indexed yet, as when the index is first built. Implementations
+     * whose partial results merge cheaply may build them in parallel segments.
+     */
+    default void addAll(List<Book> books, ParallelScan scan) {
+        books.forEach(this::add);
+    }
+
+    /**
+     * Replaces {@code oldBook}, which is currently indexed, with {@code newBook} of the same ID.
+     */
+    void update(Book oldBook, Book newBook);
+
+    void remove(Book book);
+}
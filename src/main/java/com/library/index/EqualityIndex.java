@@ -0,0 +1,60 @@
+package com.library.index;
+
+import com.library.Book;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Books grouped by the exact value of one field, for equality lookups in O(1) and
+ * selectivity estimates from the group size.
+ */
+public class EqualityIndex<K> implements BookIndex {
+    private final Function<Book, K> key;
+    // Books compare by ID, so an updated version replaces the old one in its group
+    private final Map<K, Set<Book>> groups = new HashMap<>();
+
+    public EqualityIndex(Function<Book, K> key) {
+        this.key = key;
+    }
+
+    @Override
+    public void add(Book book) {
+        groups.computeIfAbsent(key.apply(book), k -> new HashSet<>()).add(book);
+    }
+
+    @Override
+    public void update(Book oldBook, Book newBook) {
+        K oldKey = key.apply(oldBook);
+        K newKey = key.apply(newBook);
+        if (Objects.equals(oldKey, newKey)) {
+            Set<Book> group = groups.get(newKey);
+            group.remove(oldBook);
+            group.add(newBook);
+        } else {
+            remove(oldBook);
+            add(newBook);
+        }
+    }
+
+    @Override
+    public void remove(Book book) {
+        K k = key.apply(book);
+        Set<Book> group = groups.get(k);
+        if (group != null && group.remove(book) && group.isEmpty()) {
+            groups.remove(k);
+        }
+    }
+
+    public int count(K value) {
+        Set<Book> group = groups.get(value);
+        return group == null ? 0 : group.size();
+    }
+
+    /**
+     * @return the books with this value; a live view, read it under the library's read lock
+     */
+    public Collection<Book> get(K value) {
+        Set<Book> group = groups.get(value);
+        return group == null ? Collections.emptySet() : Collections.unmodifiableSet(group);
+    }
+}
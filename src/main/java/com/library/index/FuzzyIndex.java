@@ -0,0 +1,527 @@
+package com.library.index;
+
+import com.library.Book;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Typo-tolerant, ranked search over the words of titles and authors.
+ * <p>
+ * Every distinct word is a term with a sorted posting list of the documents containing
+ * it, and each trigram of a term (padded, so that its first and last letters count too)
+ * points to the terms containing it. A query word of 5 to 8 letters matches terms
+ * within one edit, 9 or more within two, where an edit is an insertion, deletion,
+ * substitution or swap of adjacent letters; shorter words match exactly. Since one edit
+ * changes at most four trigrams, a term within {@code d} edits shares all but
+ * {@code 4d} of the word's trigrams, so candidates come from the trigram lists of the
+ * vocabulary, never from the catalog, and only they are checked with a bounded edit
+ * distance.
+ * <p>
+ * A document scores the sum, over the query words, of the best match among its terms:
+ * the term's inverse document frequency, divided by one plus its edits. The top
+ * {@code k} are found by walking the matched terms' posting lists in document order
+ * and skipping the lists that, together, can no longer lift a document into the top
+ * {@code k} (MaxScore), so a query of common words stops once {@code k} good enough
+ * documents are found rather than scoring every one that contains them. Documents of
+ * equal score come in insertion order.
+ * <p>
+ * Given a lookup, the index keeps only the IDs of its books and fetches the few books of a
+ * result from it, so it pins no {@link Book} for a store that builds them on access.
+ */
+public class FuzzyIndex implements BookIndex {
+    private static final int GRAM = 3;
+    private static final char PAD = '\u0000';
+    private static final int MIN_COMPACT_DEAD = 1024;
+    private static final int MAX_QUERY_WORDS = 8;
+
+    private final Map<String, Integer> docIds = new HashMap<>();
+    // Books by ID, or null when the index keeps the books themselves in docs
+    private final Function<String, Book> lookup;
+    private String[] keys = new String[16];
+    private Book[] docs;
+    // Distinct terms of each document, sorted
+    private int[][] docTerms = new int[16][];
+    private int nextDoc;
+    private int deadDocs;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private String[] terms = new String[16];
+    private Postings[] termDocs = new Postings[16];
+    private int nextTerm;
+    private int deadTerms;
+    // Terms by trigram of the padded term
+    private final Map<Long, Postings> gramTerms = new HashMap<>();
+
+    public FuzzyIndex() {
+        this.lookup = null;
+        this.docs = new Book[16];
+    }
+
+    /**
+     * An index that keeps book IDs only, resolving the books of a result with {@code lookup}.
+     */
+    public FuzzyIndex(Function<String, Book> lookup) {
+        this.lookup = Objects.requireNonNull(lookup, "Lookup cannot be null");
+    }
+
+    @Override
+    public void add(Book book) {
+        if (docIds.containsKey(book.getId())) {
+            throw new IllegalStateException("Book already indexed: " + book.getId());
+        }
+        index(book);
+    }
+
+    private void index(Book book) {
+        int doc = nextDoc++;
+        ensureDocCapacity(nextDoc);
+        int[] bookTerms = termsOf(book);
+        keys[doc] = book.getId();
+        if (docs != null) {
+            docs[doc] = book;
+        }
+        docTerms[doc] = bookTerms;
+        docIds.put(book.getId(), doc);
+        for (int term : bookTerms) {
+            termDocs[term].append(doc);
+        }
+    }
+
+    /**
+     * Replaces the indexed version of a book, keeping its position among equal scores.
+     */
+    @Override
+    public void update(Book oldBook, Book newBook) {
+        Integer doc = docIds.get(oldBook.getId());
+        if (doc == null || !oldBook.getId().equals(newBook.getId())) {
+            remove(oldBook);
+            add(newBook);
+            return;
+        }
+        int[] oldTerms = docTerms[doc];
+        int[] newTerms = termsOf(newBook);
+        if (!Arrays.equals(oldTerms, newTerms)) {
+            for (int term : newTerms) {
+                if (Arrays.binarySearch(oldTerms, term) < 0) {
+                    termDocs[term].insert(doc);
+                }
+            }
+            for (int term : oldTerms) {
+                if (Arrays.binarySearch(newTerms, term) < 0) {
+                    unlink(term, doc);
+                }
+            }
+            docTerms[doc] = newTerms;
+        }
+        if (docs != null) {
+            docs[doc] = newBook;
+        }
+        compactIfSparse();
+    }
+
+    @Override
+    public void remove(Book book) {
+        Integer doc = docIds.remove(book.getId());
+        if (doc == null) {
+            return;
+        }
+        for (int term : docTerms[doc]) {
+            unlink(term, doc);
+        }
+        keys[doc] = null;
+        if (docs != null) {
+            docs[doc] = null;
+        }
+        docTerms[doc] = null;
+        deadDocs++;
+        compactIfSparse();
+    }
+
+    /**
+     * Returns up to {@code limit} books ranked by how well their title and author words
+     * match the query's, best first; books matching none of the words are left out.
+     */
+    public List<Book> search(String query, int limit) {
+        if (query == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<List<Match>> clauses = new ArrayList<>();
+        for (String word : words(query)) {
+            List<Match> matches = matches(word);
+            if (!matches.isEmpty()) {
+                clauses.add(matches);
+            }
+            if (clauses.size() == MAX_QUERY_WORDS) {
+                break;
+            }
+        }
+        if (clauses.isEmpty()) {
+            return Collections.emptyList();
+        }
+        PriorityQueue<Hit> top = topDocs(clauses, limit);
+        Hit[] hits = top.toArray(new Hit[0]);
+        Arrays.sort(hits, Hit.BEST_FIRST);
+        List<Book> result = new ArrayList<>(hits.length);
+        for (Hit hit : hits) {
+            result.add(docs != null ? docs[hit.doc()] : lookup.apply(keys[hit.doc()]));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public int size() {
+        return docIds.size();
+    }
+
+    /**
+     * Distinct words across the indexed titles and authors.
+     */
+    public int termCount() {
+        return termIds.size();
+    }
+
+    // Term numbers handed out so far, dropped ones included
+    int termSlots() {
+        return nextTerm;
+    }
+
+    /**
+     * Edit distance with adjacent swaps counted as one edit (optimal string alignment),
+     * or {@code max + 1} as soon as it is known to exceed {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] before = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        int previousMin = 0;
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int value = Math.min(Math.min(previous[j], current[j - 1]) + 1, previous[j - 1] + (ca == cb ? 0 : 1));
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            // A swap reaches back two rows, so both must be past the bound
+            if (rowMin > max && previousMin > max) {
+                return max + 1;
+            }
+            previousMin = rowMin;
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    // A term matching a query word, and its weight as a match for it
+    private record Match(int term, double weight) {
+    }
+
+    private record Hit(int doc, double score) {
+        // Lowest score first, and of equal scores the latest document, so the heap's head
+        // is the hit to give up
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Comparator.comparingInt(Hit::doc).reversed());
+        static final Comparator<Hit> BEST_FIRST = WORST_FIRST.reversed();
+    }
+
+    // Posting list position of one matched term during the top-k walk
+    private static final class Cursor {
+        final int[] ids;
+        final int size;
+        final double weight;
+        int position;
+
+        Cursor(Postings postings, double weight) {
+            this.ids = postings.ids;
+            this.size = postings.size;
+            this.weight = weight;
+        }
+
+        int doc() {
+            return position < size ? ids[position] : Integer.MAX_VALUE;
+        }
+
+        // Moves to the first document at or after doc
+        void seek(int doc) {
+            if (doc() < doc) {
+                int found = Arrays.binarySearch(ids, position, size, doc);
+                position = found >= 0 ? found : -found - 1;
+            }
+        }
+    }
+
+    private List<Match> matches(String word) {
+        int maxEdits = word.length() < 5 ? 0 : word.length() < 9 ? 1 : 2;
+        if (maxEdits == 0) {
+            Integer term = termIds.get(word);
+            return term == null ? List.of() : List.of(new Match(term, idf(term)));
+        }
+        Set<Long> grams = grams(word);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (long gram : grams) {
+            Postings candidates = gramTerms.get(gram);
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size; i++) {
+                    shared.merge(candidates.ids[i], 1, Integer::sum);
+                }
+            }
+        }
+        int required = Math.max(1, grams.size() - 4 * maxEdits);
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> candidate : shared.entrySet()) {
+            if (candidate.getValue() < required) {
+                continue;
+            }
+            int term = candidate.getKey();
+            int edits = distance(word, terms[term], maxEdits);
+            if (edits <= maxEdits) {
+                matches.add(new Match(term, idf(term) / (1 + edits)));
+            }
+        }
+        return matches;
+    }
+
+    private PriorityQueue<Hit> topDocs(List<List<Match>> clauses, int limit) {
+        int count = clauses.size();
+        Cursor[][] cursors = new Cursor[count][];
+        double[] bounds = new double[count];
+        for (int c = 0; c < count; c++) {
+            List<Match> matches = clauses.get(c);
+            cursors[c] = new Cursor[matches.size()];
+            for (int i = 0; i < matches.size(); i++) {
+                Match match = matches.get(i);
+                cursors[c][i] = new Cursor(termDocs[match.term()], match.weight());
+                bounds[c] = Math.max(bounds[c], match.weight());
+            }
+        }
+        // Clauses by upper bound, lowest first: a prefix whose bounds add up to no more than
+        // the k-th best score cannot place a document by itself, so only documents of the
+        // remaining, essential clauses are visited
+        Integer[] order = new Integer[count];
+        for (int c = 0; c < count; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(c -> bounds[c]));
+        boolean[] essential = new boolean[count];
+        Arrays.fill(essential, true);
+        int nonEssential = 0;
+        double prefixBound = 0;
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit, Hit.WORST_FIRST);
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (int c = 0; c < count; c++) {
+                if (essential[c]) {
+                    for (Cursor cursor : cursors[c]) {
+                        doc = Math.min(doc, cursor.doc());
+                    }
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                return top;
+            }
+            double score = 0;
+            for (int c = 0; c < count; c++) {
+                double best = 0;
+                for (Cursor cursor : cursors[c]) {
+                    cursor.seek(doc);
+                    if (cursor.doc() == doc) {
+                        best = Math.max(best, cursor.weight);
+                        if (essential[c]) {
+                            cursor.position++;
+                        }
+                    }
+                }
+                score += best;
+            }
+            if (top.size() < limit) {
+                top.add(new Hit(doc, score));
+            } else if (score > top.peek().score()) {
+                top.poll();
+                top.add(new Hit(doc, score));
+            } else {
+                continue;
+            }
+            if (top.size() == limit) {
+                double threshold = top.peek().score();
+                while (nonEssential < count && prefixBound + bounds[order[nonEssential]] <= threshold) {
+                    prefixBound += bounds[order[nonEssential]];
+                    essential[order[nonEssential]] = false;
+                    nonEssential++;
+                }
+                if (nonEssential == count) {
+                    return top;
+                }
+            }
+        }
+    }
+
+    private double idf(int term) {
+        return Math.log(1 + (double) docIds.size() / termDocs[term].size);
+    }
+
+    // Distinct term numbers of the book's title and author words, sorted; creates new terms
+    private int[] termsOf(Book book) {
+        List<String> words = words(book.getTitle() + ' ' + book.getAuthor());
+        int[] result = new int[words.size()];
+        for (int i = 0; i < result.length; i++) {
+            String word = words.get(i);
+            Integer term = termIds.get(word);
+            result[i] = term != null ? term : newTerm(word);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private int newTerm(String word) {
+        int term = nextTerm++;
+        if (term == terms.length) {
+            terms = Arrays.copyOf(terms, term * 2);
+            termDocs = Arrays.copyOf(termDocs, term * 2);
+        }
+        terms[term] = word;
+        termDocs[term] = new Postings();
+        termIds.put(word, term);
+        for (long gram : grams(word)) {
+            gramTerms.computeIfAbsent(gram, g -> new Postings()).append(term);
+        }
+        return term;
+    }
+
+    // Drops the document from the term, and the term once no document has it
+    private void unlink(int term, int doc) {
+        Postings postings = termDocs[term];
+        postings.remove(doc);
+        if (postings.size > 0) {
+            return;
+        }
+        for (long gram : grams(terms[term])) {
+            Postings list = gramTerms.get(gram);
+            list.remove(term);
+            if (list.size == 0) {
+                gramTerms.remove(gram);
+            }
+        }
+        termIds.remove(terms[term]);
+        terms[term] = null;
+        termDocs[term] = null;
+        deadTerms++;
+    }
+
+    // Renumbers documents and terms once most of either are dropped ones, as updates that
+    // rename books retire terms without removing any document
+    private void compactIfSparse() {
+        if ((deadDocs >= MIN_COMPACT_DEAD && deadDocs > docIds.size())
+                || (deadTerms >= MIN_COMPACT_DEAD && deadTerms > termIds.size())) {
+            compact();
+        }
+    }
+
+    // Renumbers the live documents and terms in order, from the terms already recorded per
+    // document, so no book is read again. Order is kept, so posting lists stay sorted.
+    private void compact() {
+        int[] renumbered = new int[nextTerm];
+        String[] liveTerms = new String[Math.max(16, termIds.size())];
+        Postings[] liveTermDocs = new Postings[liveTerms.length];
+        int termCount = 0;
+        termIds.clear();
+        gramTerms.clear();
+        for (int term = 0; term < nextTerm; term++) {
+            if (terms[term] == null) {
+                continue;
+            }
+            int live = termCount++;
+            renumbered[term] = live;
+            liveTerms[live] = terms[term];
+            liveTermDocs[live] = new Postings();
+            termIds.put(terms[term], live);
+            for (long gram : grams(terms[term])) {
+                gramTerms.computeIfAbsent(gram, g -> new Postings()).append(live);
+            }
+        }
+
+        int capacity = Math.max(16, docIds.size());
+        String[] liveKeys = new String[capacity];
+        Book[] liveDocs = docs == null ? null : new Book[capacity];
+        int[][] liveDocTerms = new int[capacity][];
+        int docCount = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (keys[doc] == null) {
+                continue;
+            }
+            int live = docCount++;
+            int[] docTermIds = docTerms[doc];
+            for (int i = 0; i < docTermIds.length; i++) {
+                docTermIds[i] = renumbered[docTermIds[i]];
+                liveTermDocs[docTermIds[i]].append(live);
+            }
+            liveKeys[live] = keys[doc];
+            if (liveDocs != null) {
+                liveDocs[live] = docs[doc];
+            }
+            liveDocTerms[live] = docTermIds;
+            docIds.put(keys[doc], live);
+        }
+        keys = liveKeys;
+        docs = liveDocs;
+        docTerms = liveDocTerms;
+        terms = liveTerms;
+        termDocs = liveTermDocs;
+        nextDoc = docCount;
+        nextTerm = termCount;
+        deadDocs = 0;
+        deadTerms = 0;
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newLength = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newLength);
+            if (docs != null) {
+                docs = Arrays.copyOf(docs, newLength);
+            }
+            docTerms = Arrays.copyOf(docTerms, newLength);
+        }
+    }
+
+    // Distinct lowercase runs of letters and digits, in order
+    static List<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letter = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static Set<Long> grams(String word) {
+        String padded = PAD + word + PAD;
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+        return grams;
+    }
+}
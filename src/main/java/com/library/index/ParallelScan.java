@@ -0,0 +1,191 @@
+package com.library.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs scans over a range of positions (documents, candidates, rows) either in the
+ * calling thread or, from {@code threshold} positions up, as fork-join tasks over
+ * contiguous segments. Results keep position order either way, so callers see the same
+ * output whichever path ran.
+ * <p>
+ * Segments only read: the caller must keep the scanned data unchanged until the scan
+ * returns, as the library's read lock does. Submitting the tasks publishes everything
+ * the caller wrote before to the worker threads.
+ */
+public final class ParallelScan {
+    /** Never forks; what a single-core host or a library without a pool uses. */
+    public static final ParallelScan SEQUENTIAL = new ParallelScan(1, Integer.MAX_VALUE);
+
+    // Enough segments per worker to even out skewed match rates, but none so small
+    // that task overhead dominates
+    private static final int SEGMENTS_PER_THREAD = 4;
+    private static final int MIN_SEGMENT = 2048;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final int threshold;
+
+    /**
+     * @param parallelism worker threads; 1 never forks
+     * @param threshold   smallest range scanned in parallel
+     */
+    public ParallelScan(int parallelism, int threshold) {
+        if (parallelism < 1 || threshold < 1) {
+            throw new IllegalArgumentException("Parallelism and threshold must be positive");
+        }
+        this.parallelism = parallelism;
+        this.threshold = threshold;
+        this.pool = parallelism > 1 && threshold < Integer.MAX_VALUE ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public boolean isParallel(int size) {
+        return pool != null && size >= threshold;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Collects the non-null results of {@code match} for every position in [from, to), in order.
+     */
+    public <T> List<T> collect(int from, int to, IntFunction<? extends T> match) {
+        if (!isParallel(to - from)) {
+            List<T> result = new ArrayList<>();
+            collectSegment(from, to, match, result);
+            return result;
+        }
+        List<List<T>> parts = forEachSegment(from, to, (start, end) -> {
+            List<T> part = new ArrayList<>();
+            collectSegment(start, end, match, part);
+            return part;
+        });
+        int total = 0;
+        for (List<T> part : parts) {
+            total += part.size();
+        }
+        List<T> result = new ArrayList<>(total);
+        parts.forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * Folds every position in [from, to) into an accumulator. In parallel each segment gets
+     * its own accumulator from {@code create}, and {@code combine} merges them in order.
+     */
+    public <A> A aggregate(int from, int to, Supplier<A> create, ObjIntConsumer<A> accumulate,
+                           BinaryOperator<A> combine) {
+        if (!isParallel(to - from)) {
+            A result = create.get();
+            for (int i = from; i < to; i++) {
+                accumulate.accept(result, i);
+            }
+            return result;
+        }
+        List<A> parts = forEachSegment(from, to, (start, end) -> {
+            A part = create.get();
+            for (int i = start; i < end; i++) {
+                accumulate.accept(part, i);
+            }
+            return part;
+        });
+        A result = parts.get(0);
+        for (int i = 1; i < parts.size(); i++) {
+            result = combine.apply(result, parts.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the array, as a parallel merge sort on the worker threads from the threshold up.
+     */
+    public <T> void sort(T[] array, Comparator<? super T> order) {
+        if (!isParallel(array.length) || pool.isShutdown()) {
+            Arrays.sort(array, order);
+        } else {
+            // Tasks forked from a worker stay in its pool, so the sort does not use the common pool
+            pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(array, order)));
+        }
+    }
+
+    /**
+     * Stops the worker threads; later scans run sequentially.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static <T> void collectSegment(int from, int to, IntFunction<? extends T> match, List<T> target) {
+        for (int i = from; i < to; i++) {
+            T result = match.apply(i);
+            if (result != null) {
+                target.add(result);
+            }
+        }
+    }
+
+    private <R> List<R> forEachSegment(int from, int to, Segment<R> segment) {
+        int segments = Math.max(1, Math.min(parallelism * SEGMENTS_PER_THREAD, (to - from) / MIN_SEGMENT));
+        long length = to - from;
+        List<SegmentTask<R>> tasks = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            tasks.add(new SegmentTask<>(segment, from + (int) (length * i / segments),
+                    from + (int) (length * (i + 1) / segments)));
+        }
+        if (pool.isShutdown()) {
+            tasks.forEach(SegmentTask::compute);
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+        List<R> results = new ArrayList<>(segments);
+        for (SegmentTask<R> task : tasks) {
+            results.add(task.result);
+        }
+        return results;
+    }
+
+    private interface Segment<R> {
+        R scan(int from, int to);
+    }
+
+    private static final class SegmentTask<R> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Segment<R> segment;
+        private final int from;
+        private final int to;
+        private R result;
+
+        SegmentTask(Segment<R> segment, int from, int to) {
+            this.segment = segment;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            result = segment.scan(from, to);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.library.index;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, growable list of document (or term) numbers.
+ */
+final class Postings {
+    int[] ids = new int[4];
+    int size;
+
+    void append(int doc) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = doc;
+    }
+
+    void insert(int doc) {
+        int pos = Arrays.binarySearch(ids, 0, size, doc);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        ids[pos] = doc;
+        size++;
+    }
+
+    void remove(int doc) {
+        int pos = Arrays.binarySearch(ids, 0, size, doc);
+        if (pos >= 0) {
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.library.index;
+
+import com.library.Book;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded cache of search results, keyed by the lowercased query.
+ * <p>
+ * A query matches a book exactly when the book's search text contains the key, so a
+ * change to one book only drops the entries whose key occurs in its old or new text;
+ * every other cached result is still exact. Eviction is least recently used, or least
+ * frequently used with ties going to the least recently used entry. LFU picks its victim
+ * by scanning the entries, which stays cheap at the sizes a query cache needs.
+ * <p>
+ * Thread-safe; results are immutable lists shared by every caller.
+ */
+public final class QueryCache {
+    public enum Policy {
+        LRU, LFU
+    }
+
+    /**
+     * Counters since the cache was created; {@code invalidations} counts entries dropped by changes.
+     */
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /** Caches nothing; every lookup misses without being counted. */
+    public static final QueryCache DISABLED = new QueryCache(0, Policy.LRU);
+
+    private final int capacity;
+    private final Policy policy;
+    // Access order: the first entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public QueryCache(int capacity, Policy policy) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * @return the cached result, or {@code null} on a miss
+     */
+    public synchronized List<Book> get(String key) {
+        if (capacity == 0) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.frequency++;
+        return entry.result;
+    }
+
+    public synchronized void put(String key, List<Book> result) {
+        if (capacity == 0) {
+            return;
+        }
+        if (!entries.containsKey(key) && entries.size() == capacity) {
+            entries.remove(victim());
+            evictions++;
+        }
+        entries.put(key, new Entry(result));
+    }
+
+    /**
+     * Drops the entries whose result could include a book with this search text.
+     */
+    public synchronized void invalidate(String searchText) {
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext(); ) {
+            if (searchText.contains(it.next())) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    private String victim() {
+        String victim = null;
+        long lowest = Long.MAX_VALUE;
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (policy == Policy.LRU) {
+                return entry.getKey();
+            }
+            if (entry.getValue().frequency < lowest) {
+                lowest = entry.getValue().frequency;
+                victim = entry.getKey();
+            }
+        }
+        return victim;
+    }
+
+    private static final class Entry {
+        final List<Book> result;
+        long frequency;
+
+        Entry(List<Book> result) {
+            this.result = result;
+        }
+    }
+}
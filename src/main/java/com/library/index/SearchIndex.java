@@ -0,0 +1,247 @@
+package com.library.index;
+
+import com.library.Book;
+import java.util.*;
+
+/**
+ * Inverted trigram index over title, author, genre and ID.
+ * <p>
+ * Every book gets a document number in insertion order and its four fields are
+ * stored once, lowercased, as a single search text. Each trigram of that text
+ * points to a sorted posting list of document numbers. A query of three or more
+ * characters only verifies the documents of its rarest trigram, so the cost follows
+ * the result set rather than the catalog. Shorter queries fall back to a scan of
+ * the precomputed texts, which still avoids per-query lowercasing. Both the scan and
+ * the verification of a long posting list fork across segments once they reach the
+ * {@link ParallelScan} threshold.
+ * <p>
+ * Results are kept in a {@link QueryCache}; each add, update and remove drops only the
+ * cached queries that occur in the old or new search text of that book.
+ */
+public class SearchIndex implements BookIndex {
+    private static final int GRAM = 3;
+    private static final char SEPARATOR = '\u0000';
+    private static final int MIN_COMPACT_DEAD = 1024;
+
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private Book[] docs = new Book[16];
+    private String[] texts = new String[16];
+    private int nextDoc;
+    private int deadDocs;
+    private final ParallelScan scan;
+    private final QueryCache cache;
+
+    public SearchIndex() {
+        this(ParallelScan.SEQUENTIAL, QueryCache.DISABLED);
+    }
+
+    public SearchIndex(ParallelScan scan, QueryCache cache) {
+        this.scan = scan;
+        this.cache = cache;
+    }
+
+    @Override
+    public void add(Book book) {
+        if (docIds.containsKey(book.getId())) {
+            throw new IllegalStateException("Book already indexed: " + book.getId());
+        }
+        cache.invalidate(index(book));
+    }
+
+    // Returns the book's search text
+    private String index(Book book) {
+        int doc = nextDoc++;
+        ensureCapacity(nextDoc);
+        String text = searchText(book);
+        docs[doc] = book;
+        texts[doc] = text;
+        docIds.put(book.getId(), doc);
+        for (long gram : grams(text)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).append(doc);
+        }
+        return text;
+    }
+
+    /**
+     * Replaces the indexed version of a book, keeping its position in the result order.
+     */
+    @Override
+    public void update(Book oldBook, Book newBook) {
+        Integer doc = docIds.get(oldBook.getId());
+        if (doc == null || !oldBook.getId().equals(newBook.getId())) {
+            remove(oldBook);
+            add(newBook);
+            return;
+        }
+        String newText = searchText(newBook);
+        // Cached results hold the old instance even when the text is unchanged
+        cache.invalidate(texts[doc]);
+        if (!newText.equals(texts[doc])) {
+            cache.invalidate(newText);
+            Set<Long> oldGrams = grams(texts[doc]);
+            Set<Long> newGrams = grams(newText);
+            for (long gram : oldGrams) {
+                if (!newGrams.contains(gram)) {
+                    Postings list = postings.get(gram);
+                    list.remove(doc);
+                    if (list.size == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            for (long gram : newGrams) {
+                if (!oldGrams.contains(gram)) {
+                    postings.computeIfAbsent(gram, g -> new Postings()).insert(doc);
+                }
+            }
+            texts[doc] = newText;
+        }
+        docs[doc] = newBook;
+    }
+
+    /**
+     * Tombstones the document; posting lists are cleaned up by the next compaction.
+     */
+    @Override
+    public void remove(Book book) {
+        Integer doc = docIds.remove(book.getId());
+        if (doc == null) {
+            return;
+        }
+        cache.invalidate(texts[doc]);
+        docs[doc] = null;
+        texts[doc] = null;
+        deadDocs++;
+        if (deadDocs >= MIN_COMPACT_DEAD && deadDocs > docIds.size()) {
+            compact();
+        }
+    }
+
+    public void clear() {
+        reset();
+        cache.clear();
+    }
+
+    private void reset() {
+        docIds.clear();
+        postings.clear();
+        docs = new Book[16];
+        texts = new String[16];
+        nextDoc = 0;
+        deadDocs = 0;
+    }
+
+    public List<Book> search(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        String lowerQuery = query.toLowerCase();
+        List<Book> cached = cache.get(lowerQuery);
+        if (cached != null) {
+            return cached;
+        }
+        List<Book> result = find(lowerQuery);
+        cache.put(lowerQuery, result);
+        return result;
+    }
+
+    private List<Book> find(String lowerQuery) {
+        Book[] docs = this.docs;
+        String[] texts = this.texts;
+        if (lowerQuery.length() < GRAM) {
+            return Collections.unmodifiableList(scan.collect(0, nextDoc,
+                    doc -> texts[doc] != null && texts[doc].contains(lowerQuery) ? docs[doc] : null));
+        }
+
+        Postings rarest = null;
+        for (long gram : grams(lowerQuery)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            if (rarest == null || list.size < rarest.size) {
+                rarest = list;
+            }
+        }
+        int[] ids = rarest.ids;
+        return Collections.unmodifiableList(scan.collect(0, rarest.size, i -> {
+            int doc = ids[i];
+            return texts[doc] != null && texts[doc].contains(lowerQuery) ? docs[doc] : null;
+        }));
+    }
+
+    /**
+     * Upper bound on the number of matches of {@code query}, without verifying any document:
+     * the length of its rarest trigram's posting list, or every document for short queries.
+     */
+    public int estimate(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return 0;
+        }
+        String lowerQuery = query.toLowerCase();
+        if (lowerQuery.length() < GRAM) {
+            return docIds.size();
+        }
+        int rarest = Integer.MAX_VALUE;
+        for (long gram : grams(lowerQuery)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return 0;
+            }
+            rarest = Math.min(rarest, list.size);
+        }
+        return rarest;
+    }
+
+    /**
+     * Whether {@link #search} would return the book for this query, checked on the book itself.
+     */
+    public static boolean matches(Book book, String query) {
+        return query != null && !query.trim().isEmpty() && searchText(book).contains(query.toLowerCase());
+    }
+
+    public int size() {
+        return docIds.size();
+    }
+
+    public QueryCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    private void compact() {
+        Book[] live = new Book[docIds.size()];
+        int n = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (docs[doc] != null) {
+                live[n++] = docs[doc];
+            }
+        }
+        // Same books in the same order, so cached results stay valid
+        reset();
+        for (Book book : live) {
+            index(book);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > docs.length) {
+            int newLength = Math.max(capacity, docs.length * 2);
+            docs = Arrays.copyOf(docs, newLength);
+            texts = Arrays.copyOf(texts, newLength);
+        }
+    }
+
+    private static String searchText(Book book) {
+        return (book.getTitle() + SEPARATOR + book.getAuthor() + SEPARATOR
+                + book.getGenre() + SEPARATOR + book.getId()).toLowerCase();
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.index;
+
+import com.library.Book;
+import java.util.Comparator;
+
+/**
+ * Orders in which books can be listed. Every order except {@link #ADDED} is backed by a
+ * {@link SortedIndex} and breaks ties by ID, so it is total and stable across calls.
+ */
+public enum SortKey {
+    /**
+     * Insertion order of the store; needs no index.
+     */
+    ADDED("Added", null),
+    ID("ID", Comparator.comparing(Book::getId)),
+    TITLE("Title", Comparator.comparing(Book::getTitle, String.CASE_INSENSITIVE_ORDER)),
+    AUTHOR("Author", Comparator.comparing(Book::getAuthor, String.CASE_INSENSITIVE_ORDER)),
+    YEAR("Year", Comparator.comparingInt(Book::getYear)),
+    PRICE("Price", Comparator.comparingDouble(Book::getPrice));
+
+    private final String label;
+    private final Comparator<Book> order;
+
+    SortKey(String label, Comparator<Book> key) {
+        this.label = label;
+        this.order = key == null ? null : key.thenComparing(Book::getId);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the total order of this key, or {@code null} for {@link #ADDED}
+     */
+    public Comparator<Book> order() {
+        return order;
+    }
+}
@@ -0,0 +1,232 @@
+package com.library.index;
+
+import com.library.Book;
+import java.util.*;
+
+/**
+ * Books kept sorted by one {@link SortKey}, with access by position.
+ * <p>
+ * The books live in a list of small sorted chunks. An insert or delete shifts at most
+ * one chunk, and reading position {@code i} binary-searches the running chunk sizes,
+ * so a page costs O(log n + page size) however deep it is. The running sizes are
+ * recomputed lazily, once per burst of mutations, when the next page is read.
+ */
+public class SortedIndex implements BookIndex {
+    private static final int MAX_CHUNK = 512;
+
+    private final SortKey key;
+    private final Comparator<Book> order;
+    private final List<Chunk> chunks = new ArrayList<>();
+    // starts[i] = number of books before chunks[i]; stale after a mutation
+    private int[] starts = new int[0];
+    private boolean startsValid = true;
+    private int size;
+
+    public SortedIndex(SortKey key) {
+        if (key.order() == null) {
+            throw new IllegalArgumentException("Sort key has no order: " + key);
+        }
+        this.key = key;
+        this.order = key.order();
+    }
+
+    public SortKey getKey() {
+        return key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(Book book) {
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk());
+        }
+        int c = chunkFor(book);
+        Chunk chunk = chunks.get(c);
+        int pos = chunk.search(book, order);
+        if (pos >= 0) {
+            throw new IllegalStateException("Book already indexed: " + book.getId());
+        }
+        chunk.insert(-pos - 1, book);
+        if (chunk.size > MAX_CHUNK) {
+            chunks.add(c + 1, chunk.split());
+        }
+        size++;
+        startsValid = false;
+    }
+
+    @Override
+    public void update(Book oldBook, Book newBook) {
+        if (order.compare(oldBook, newBook) == 0) {
+            // Same position: swap the instance in place
+            Chunk chunk = chunks.get(chunkFor(oldBook));
+            int pos = chunk.search(oldBook, order);
+            if (pos >= 0) {
+                chunk.items[pos] = newBook;
+                return;
+            }
+        }
+        remove(oldBook);
+        add(newBook);
+    }
+
+    @Override
+    public void remove(Book book) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        int c = chunkFor(book);
+        Chunk chunk = chunks.get(c);
+        int pos = chunk.search(book, order);
+        if (pos < 0) {
+            return;
+        }
+        chunk.delete(pos);
+        if (chunk.size == 0 && chunks.size() > 1) {
+            chunks.remove(c);
+        }
+        size--;
+        startsValid = false;
+    }
+
+    /**
+     * @return up to {@code limit} books starting at position {@code offset} of the order,
+     * or of the reversed order when {@code descending}
+     */
+    public List<Book> page(int offset, int limit, boolean descending) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        int count = Math.max(0, Math.min(limit, size - offset));
+        List<Book> result = new ArrayList<>(count);
+        if (count == 0) {
+            return result;
+        }
+        ensureStarts();
+        if (descending) {
+            int position = size - 1 - offset;
+            int c = chunkAt(position);
+            int i = position - starts[c];
+            while (result.size() < count) {
+                Chunk chunk = chunks.get(c);
+                for (; i >= 0 && result.size() < count; i--) {
+                    result.add(chunk.items[i]);
+                }
+                if (--c >= 0) {
+                    i = chunks.get(c).size - 1;
+                }
+            }
+        } else {
+            int c = chunkAt(offset);
+            int i = offset - starts[c];
+            while (result.size() < count) {
+                Chunk chunk = chunks.get(c);
+                for (; i < chunk.size && result.size() < count; i++) {
+                    result.add(chunk.items[i]);
+                }
+                c++;
+                i = 0;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of books ordered before {@code probe}, plus one if {@code inclusive} and an equal
+     * book is indexed. The probe need not be indexed; only its sort value and ID are compared.
+     */
+    public int rank(Book probe, boolean inclusive) {
+        if (size == 0) {
+            return 0;
+        }
+        ensureStarts();
+        int c = chunkFor(probe);
+        int pos = chunks.get(c).search(probe, order);
+        return starts[c] + (pos >= 0 ? pos + (inclusive ? 1 : 0) : -pos - 1);
+    }
+
+    // Index of the chunk whose range should hold the book: the first one whose last item is not smaller
+    private int chunkFor(Book book) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Chunk chunk = chunks.get(mid);
+            if (chunk.size > 0 && order.compare(chunk.items[chunk.size - 1], book) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int chunkAt(int position) {
+        // Only a lone chunk can be empty, so the starts are strictly increasing
+        int c = Arrays.binarySearch(starts, 0, chunks.size(), position);
+        return c >= 0 ? c : -c - 2;
+    }
+
+    private void ensureStarts() {
+        if (startsValid) {
+            return;
+        }
+        if (starts.length < chunks.size()) {
+            starts = new int[chunks.size() + chunks.size() / 2];
+        }
+        int start = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            starts[c] = start;
+            start += chunks.get(c).size;
+        }
+        startsValid = true;
+    }
+
+    private static final class Chunk {
+        Book[] items = new Book[16];
+        int size;
+
+        int search(Book book, Comparator<Book> order) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = order.compare(items[mid], book);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insert(int pos, Book book) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            System.arraycopy(items, pos, items, pos + 1, size - pos);
+            items[pos] = book;
+            size++;
+        }
+
+        void delete(int pos) {
+            System.arraycopy(items, pos + 1, items, pos, size - pos - 1);
+            items[--size] = null;
+        }
+
+        Chunk split() {
+            Chunk upper = new Chunk();
+            int half = size / 2;
+            upper.items = Arrays.copyOfRange(items, half, Math.max(size - half, 16) + half);
+            upper.size = size - half;
+            Arrays.fill(items, half, size, null);
+            size = half;
+            return upper;
+        }
+    }
+}
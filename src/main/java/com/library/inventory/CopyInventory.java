@@ -0,0 +1,257 @@
+package com.library.inventory;
+
+import com.library.storage.Holding;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The physical copies of one title, numbered from 0, with where each belongs and whether
+ * it is on the shelf.
+ * <p>
+ * Copies are kept in chunks of 64: one bit per copy says it exists, one says it is on
+ * the shelf, and a location is a {@code short} code into the {@link Holdings}' location
+ * table, the array allocated only once some copy of the chunk has a location. A title's
+ * usual 5-50 copies take one chunk, about 200 bytes, where a {@code Book} per copy
+ * would repeat the title, the author and the rest for each of them.
+ * <p>
+ * Taking a copy off the shelf and putting it back are a compare-and-set on the chunk's
+ * shelf bits, so they need no lock and copies of the same title change independently
+ * apart from sharing a word. Adding, moving and withdrawing copies are made by one
+ * writer at a time, the owning library's write lock. {@link #available()} and
+ * {@link #total()} are counters kept with the bits, so both are O(1).
+ */
+public final class CopyInventory {
+    static final int CHUNK_SIZE = 64;
+    private static final VarHandle SHELVED;
+    private static final VarHandle AVAILABLE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SHELVED = lookup.findVarHandle(Chunk.class, "shelved", long.class);
+            AVAILABLE = lookup.findVarHandle(CopyInventory.class, "available", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Holdings holdings;
+    // Only ever grows, and chunks are shared by the old and new array
+    private volatile Chunk[] chunks = new Chunk[0];
+    // Copy numbers handed out so far, withdrawn ones included
+    private volatile int size;
+    private volatile int total;
+    private volatile int available;
+
+    CopyInventory(Holdings holdings) {
+        this.holdings = holdings;
+    }
+
+    /**
+     * Copies held, not counting withdrawn ones.
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Copies on the shelf.
+     */
+    public int available() {
+        return available;
+    }
+
+    /**
+     * One more than the highest copy number; withdrawn copies keep their numbers.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean exists(int copy) {
+        Chunk chunk = chunk(copy);
+        return chunk != null && (chunk.present & bit(copy)) != 0;
+    }
+
+    public boolean isOnShelf(int copy) {
+        Chunk chunk = chunk(copy);
+        return chunk != null && (chunk.shelved & bit(copy)) != 0;
+    }
+
+    /**
+     * @return where the copy belongs, {@code ""} if that was never set, or {@code null}
+     * if there is no such copy
+     */
+    public String location(int copy) {
+        if (!exists(copy)) {
+            return null;
+        }
+        short[] locations = chunk(copy).locations;
+        return holdings.locationName(locations == null ? 0 : locations[copy % CHUNK_SIZE]);
+    }
+
+    /**
+     * Takes the lowest-numbered copy on the shelf.
+     *
+     * @return its number, or -1 if every copy is out
+     */
+    public int take() {
+        Chunk[] current = chunks;
+        for (int i = 0; i < current.length; i++) {
+            Chunk chunk = current[i];
+            long shelved;
+            while ((shelved = chunk.shelved) != 0) {
+                long bit = Long.lowestOneBit(shelved);
+                if (SHELVED.compareAndSet(chunk, shelved, shelved & ~bit)) {
+                    AVAILABLE.getAndAdd(this, -1);
+                    return i * CHUNK_SIZE + Long.numberOfTrailingZeros(bit);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Takes the given copy off the shelf.
+     *
+     * @return {@code false} if it is not on the shelf
+     */
+    public boolean take(int copy) {
+        Chunk chunk = chunk(copy);
+        if (chunk == null || !clear(chunk, bit(copy))) {
+            return false;
+        }
+        AVAILABLE.getAndAdd(this, -1);
+        return true;
+    }
+
+    /**
+     * Puts a copy that was {@link #take taken} back on the shelf.
+     *
+     * @throws IllegalArgumentException if there is no such copy
+     * @throws IllegalStateException    if it is already on the shelf
+     */
+    public void putBack(int copy) {
+        Chunk chunk = chunk(copy);
+        long bit = bit(copy);
+        if (chunk == null || (chunk.present & bit) == 0) {
+            throw new IllegalArgumentException("Copy " + copy + " not found");
+        }
+        long shelved;
+        do {
+            shelved = chunk.shelved;
+            if ((shelved & bit) != 0) {
+                throw new IllegalStateException("Copy " + copy + " is already on the shelf");
+            }
+        } while (!SHELVED.compareAndSet(chunk, shelved, shelved | bit));
+        AVAILABLE.getAndAdd(this, 1);
+    }
+
+    // Structural changes, one writer at a time
+
+    int add(int count, short location) {
+        int first = size;
+        int end = first + count;
+        Chunk[] current = chunks;
+        int needed = (end + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (needed > current.length) {
+            Chunk[] grown = Arrays.copyOf(current, needed);
+            for (int i = current.length; i < needed; i++) {
+                grown[i] = new Chunk();
+            }
+            current = grown;
+            chunks = grown;
+        }
+        for (int copy = first; copy < end; copy++) {
+            Chunk chunk = current[copy / CHUNK_SIZE];
+            setLocation(chunk, copy, location);
+            chunk.present |= bit(copy);
+            long shelved;
+            do {
+                shelved = chunk.shelved;
+            } while (!SHELVED.compareAndSet(chunk, shelved, shelved | bit(copy)));
+        }
+        size = end;
+        total += count;
+        AVAILABLE.getAndAdd(this, count);
+        return first;
+    }
+
+    void move(int copy, short location) {
+        setLocation(existing(copy), copy, location);
+    }
+
+    // The copy must have been taken off the shelf by the caller, so no loan can race this
+    void withdraw(int copy) {
+        Chunk chunk = existing(copy);
+        if ((chunk.shelved & bit(copy)) != 0) {
+            throw new IllegalStateException("Copy " + copy + " is on the shelf");
+        }
+        chunk.present &= ~bit(copy);
+        total--;
+    }
+
+    Holding toHolding(String bookId) {
+        List<String> locations = new ArrayList<>(size);
+        for (int copy = 0; copy < size; copy++) {
+            locations.add(location(copy));
+        }
+        return new Holding(bookId, locations);
+    }
+
+    /**
+     * Whether this is just the one copy every title has without any holdings recorded.
+     */
+    boolean isImplicit() {
+        return size == 1 && total == 1 && chunks[0].locations == null;
+    }
+
+    private Chunk chunk(int copy) {
+        Chunk[] current = chunks;
+        return copy < 0 || copy / CHUNK_SIZE >= current.length ? null : current[copy / CHUNK_SIZE];
+    }
+
+    private Chunk existing(int copy) {
+        Chunk chunk = chunk(copy);
+        if (chunk == null || (chunk.present & bit(copy)) == 0) {
+            throw new IllegalArgumentException("Copy " + copy + " not found");
+        }
+        return chunk;
+    }
+
+    private static void setLocation(Chunk chunk, int copy, short location) {
+        if (chunk.locations == null) {
+            if (location == 0) {
+                return;
+            }
+            chunk.locations = new short[CHUNK_SIZE];
+        }
+        chunk.locations[copy % CHUNK_SIZE] = location;
+    }
+
+    // Clears the shelf bit if it is set; false if it was not
+    private static boolean clear(Chunk chunk, long bit) {
+        long shelved;
+        do {
+            shelved = chunk.shelved;
+            if ((shelved & bit) == 0) {
+                return false;
+            }
+        } while (!SHELVED.compareAndSet(chunk, shelved, shelved & ~bit));
+        return true;
+    }
+
+    private static long bit(int copy) {
+        return 1L << (copy % CHUNK_SIZE);
+    }
+
+    private static final class Chunk {
+        volatile long shelved;
+        volatile long present;
+        // Location code per copy; null while none is set
+        short[] locations;
+    }
+}
@@ -0,0 +1,170 @@
+package com.library.inventory;
+
+import com.library.storage.Holding;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link CopyInventory} of every title that has one, and the location names they
+ * refer to by code.
+ * <p>
+ * A title is a {@code Book}; a title that was never given copies has exactly one, the
+ * physical item the book always stood for. Its inventory is only created once something
+ * asks for it, so a catalog that does not track copies pays nothing per title.
+ * <p>
+ * Lookups and the lending operations on an inventory need no lock. Everything else is
+ * called by the owning library under its write lock, which also keeps the holdings in
+ * step with its books and its journal.
+ */
+public class Holdings {
+    static final String NO_LOCATION = "";
+    private static final int MAX_LOCATIONS = 1 << 16;
+
+    private final ConcurrentHashMap<String, CopyInventory> titles = new ConcurrentHashMap<>();
+    // Location names by code, code 0 meaning none; replaced on every new name so that
+    // readers need no lock. Codes are never reused.
+    private volatile String[] locationNames = {NO_LOCATION};
+    private final Map<String, Short> locationCodes = new HashMap<>(Map.of(NO_LOCATION, (short) 0));
+    // Copies held beyond one per title, so that the library-wide count stays O(1)
+    private volatile long extraCopies;
+
+    /**
+     * @return the title's inventory, or {@code null} if it has only its implicit copy so far
+     */
+    public CopyInventory get(String bookId) {
+        return bookId == null ? null : titles.get(bookId);
+    }
+
+    /**
+     * Returns the title's inventory, creating the one of a title with just its implicit
+     * copy. The caller must know the title exists and keep it from being removed meanwhile.
+     */
+    public CopyInventory getOrCreate(String bookId) {
+        return titles.computeIfAbsent(bookId, id -> {
+            CopyInventory inventory = new CopyInventory(this);
+            inventory.add(1, (short) 0);
+            return inventory;
+        });
+    }
+
+    /**
+     * Adds copies to the title, numbered after its existing ones.
+     *
+     * @return the number of the first new copy
+     */
+    public int addCopies(String bookId, int count, String location) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Copy count must be positive");
+        }
+        short code = locationCode(location);
+        int first = getOrCreate(bookId).add(count, code);
+        extraCopies += count;
+        return first;
+    }
+
+    public void moveCopy(String bookId, int copy, String location) {
+        short code = locationCode(location);
+        getOrCreate(bookId).move(copy, code);
+    }
+
+    /**
+     * Removes a copy for good; its number is not reused. The caller first
+     * {@link CopyInventory#take takes} it off the shelf, so that it cannot be on loan.
+     */
+    public void withdrawCopy(String bookId, int copy) {
+        getOrCreate(bookId).withdraw(copy);
+        extraCopies--;
+    }
+
+    /**
+     * @return the title's copies as persisted, the implicit copy included
+     */
+    public Holding holding(String bookId) {
+        return getOrCreate(bookId).toHolding(bookId);
+    }
+
+    /**
+     * Replaces the title's copies with the persisted ones, all on the shelf.
+     */
+    public void restore(Holding holding) {
+        remove(holding.bookId());
+        CopyInventory inventory = new CopyInventory(this);
+        List<String> locations = holding.locations();
+        for (int copy = 0; copy < locations.size(); copy++) {
+            String location = locations.get(copy);
+            inventory.add(1, location == null || location.equals(NO_LOCATION) ? 0 : locationCode(location));
+        }
+        for (int copy = 0; copy < locations.size(); copy++) {
+            if (locations.get(copy) == null) {
+                inventory.take(copy);
+                inventory.withdraw(copy);
+            }
+        }
+        titles.put(holding.bookId(), inventory);
+        extraCopies += inventory.total() - 1;
+    }
+
+    /**
+     * Drops the title's copies, when the title is deleted.
+     */
+    public void remove(String bookId) {
+        CopyInventory removed = titles.remove(bookId);
+        if (removed != null) {
+            extraCopies -= removed.total() - 1;
+        }
+    }
+
+    /**
+     * The titles holding more than their implicit copy, as persisted.
+     */
+    public List<Holding> snapshot() {
+        List<Holding> result = new ArrayList<>();
+        titles.forEach((bookId, inventory) -> {
+            if (!inventory.isImplicit()) {
+                result.add(inventory.toHolding(bookId));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Copies held across {@code titles} titles, in O(1).
+     */
+    public long copyCount(int titles) {
+        return titles + extraCopies;
+    }
+
+    String locationName(short code) {
+        return locationNames[code & 0xFFFF];
+    }
+
+    /**
+     * @throws IllegalArgumentException if the location is null or blank
+     */
+    public static void requireLocation(String location) {
+        if (location == null || location.isBlank()) {
+            throw new IllegalArgumentException("Location cannot be empty");
+        }
+    }
+
+    private short locationCode(String location) {
+        requireLocation(location);
+        Short code = locationCodes.get(location);
+        if (code != null) {
+            return code;
+        }
+        String[] names = locationNames;
+        if (names.length == MAX_LOCATIONS) {
+            throw new IllegalStateException("Too many locations: " + MAX_LOCATIONS);
+        }
+        String[] grown = Arrays.copyOf(names, names.length + 1);
+        grown[names.length] = location;
+        locationCodes.put(location, (short) names.length);
+        locationNames = grown;
+        return (short) names.length;
+    }
+}
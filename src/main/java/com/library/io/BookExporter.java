@@ -0,0 +1,63 @@
+package com.library.io;
+
+import com.library.Library;
+import com.library.storage.AtomicFile;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Streams the catalog of a {@link Library} to CSV or JSON lines, one book at a time.
+ * Export runs under the library's read lock, so the file is a consistent snapshot.
+ */
+public class BookExporter {
+    private final Library library;
+
+    public BookExporter(Library library) {
+        this.library = Objects.requireNonNull(library, "Library cannot be null");
+    }
+
+    /**
+     * Writes to a temporary file first, so a failed export never leaves a truncated file behind.
+     */
+    public TransferReport exportFile(Path file) throws IOException {
+        BookFileFormat format = BookFileFormat.fromPath(file);
+        Path temp = AtomicFile.tempFor(file);
+        TransferReport report;
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            report = exportTo(writer, format);
+        }
+        AtomicFile.replace(temp, file);
+        return report;
+    }
+
+    public TransferReport exportTo(Writer writer, BookFileFormat format) throws IOException {
+        TransferReport report = new TransferReport();
+        long start = System.nanoTime();
+        if (format == BookFileFormat.CSV) {
+            BookRecords.writeHeader(writer);
+        }
+        try {
+            library.forEachBook(book -> {
+                try {
+                    if (format == BookFileFormat.CSV) {
+                        BookRecords.writeCsv(writer, book);
+                    } else {
+                        BookRecords.writeJson(writer, book);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                report.addProcessed(1);
+                report.addAccepted(1);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+}
@@ -0,0 +1,28 @@
+package com.library.io;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Interchange formats for bulk import and export.
+ */
+public enum BookFileFormat {
+    /** Comma-separated values with a header row, RFC 4180 quoting. */
+    CSV,
+    /** One JSON object per line. */
+    JSON_LINES;
+
+    /**
+     * Picks the format from the file extension: {@code .csv}, or {@code .jsonl}/{@code .ndjson}/{@code .json}.
+     */
+    public static BookFileFormat fromPath(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+            return JSON_LINES;
+        }
+        throw new IllegalArgumentException("Unknown file type (use .csv or .jsonl): " + file.getFileName());
+    }
+}
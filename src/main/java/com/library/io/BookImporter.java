@@ -0,0 +1,147 @@
+package com.library.io;
+
+import com.library.Book;
+import com.library.Library;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Streams CSV or JSON-lines files into a {@link Library}.
+ * <p>
+ * One thread splits the input into records and hands batches to a worker pool that
+ * parses and validates them in parallel. Parsed batches are applied in input order,
+ * each with a single {@link Library#addBooks} call. At most two batches per worker
+ * are in flight, so memory stays constant however large the file is. Invalid rows
+ * and duplicate IDs are reported in the {@link TransferReport} and never abort the import.
+ */
+public class BookImporter {
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    private final Library library;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public BookImporter(Library library) {
+        this.library = Objects.requireNonNull(library, "Library cannot be null");
+    }
+
+    public BookImporter setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public BookImporter setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public TransferReport importFile(Path file) throws IOException {
+        BookFileFormat format = BookFileFormat.fromPath(file);
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, format);
+        }
+    }
+
+    public TransferReport importFrom(Reader input, BookFileFormat format) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input);
+        BookRecords records = new BookRecords(format, reader);
+        TransferReport report = new TransferReport();
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "book-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Deque<Future<ParsedBatch>> pending = new ArrayDeque<>();
+            List<BookRecords.Raw> chunk = new ArrayList<>(batchSize);
+            for (BookRecords.Raw raw = records.nextRecord(); raw != null; raw = records.nextRecord()) {
+                chunk.add(raw);
+                if (chunk.size() == batchSize) {
+                    pending.add(workers.submit(parseTask(records, chunk)));
+                    chunk = new ArrayList<>(batchSize);
+                    if (pending.size() >= parallelism * 2) {
+                        apply(await(pending.poll()), report);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pending.add(workers.submit(parseTask(records, chunk)));
+            }
+            while (!pending.isEmpty()) {
+                apply(await(pending.poll()), report);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private static Callable<ParsedBatch> parseTask(BookRecords records, List<BookRecords.Raw> chunk) {
+        return () -> {
+            ParsedBatch batch = new ParsedBatch(chunk.size());
+            for (BookRecords.Raw raw : chunk) {
+                try {
+                    batch.add(records.parse(raw.text()), raw.line());
+                } catch (IllegalArgumentException e) {
+                    batch.errors.add(new TransferReport.RowError(raw.line(), e.getMessage()));
+                }
+            }
+            return batch;
+        };
+    }
+
+    private void apply(ParsedBatch batch, TransferReport report) {
+        report.addProcessed(batch.books.size() + batch.errors.size());
+        batch.errors.forEach(error -> report.addError(error.line(), error.message()));
+        if (batch.books.isEmpty()) {
+            return;
+        }
+        List<Book> rejected = library.addBooks(batch.books);
+        report.addAccepted(batch.books.size() - rejected.size());
+        for (Book book : rejected) {
+            report.addError(batch.lines.get(book), "Duplicate book ID: " + book.getId());
+        }
+    }
+
+    private static ParsedBatch await(Future<ParsedBatch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Import failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private static final class ParsedBatch {
+        final List<Book> books;
+        // Source line per parsed book, to report books the library rejects
+        final Map<Book, Long> lines = new IdentityHashMap<>();
+        final List<TransferReport.RowError> errors = new ArrayList<>();
+
+        ParsedBatch(int capacity) {
+            books = new ArrayList<>(capacity);
+        }
+
+        void add(Book book, long line) {
+            books.add(book);
+            lines.put(book, line);
+        }
+    }
+}
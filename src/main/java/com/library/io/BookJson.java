@@ -0,0 +1,64 @@
+package com.library.io;
+
+import com.library.Book;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * A {@link Book} as a JSON object, the same one JSON lines files hold:
+ * {@code {"id":..,"title":..,"author":..,"year":..,"price":..,"genre":..,"available":..}}.
+ */
+public final class BookJson {
+    private BookJson() {
+    }
+
+    public static StringBuilder write(StringBuilder out, Book book) {
+        out.append("{\"id\":");
+        Json.quote(out, book.getId()).append(",\"title\":");
+        Json.quote(out, book.getTitle()).append(",\"author\":");
+        Json.quote(out, book.getAuthor()).append(",\"year\":").append(book.getYear())
+                .append(",\"price\":").append(BookRecords.formatPrice(book.getPrice())).append(",\"genre\":");
+        return Json.quote(out, book.getGenre()).append(",\"available\":").append(book.isAvailable()).append('}');
+    }
+
+    /**
+     * Reads a book from a parsed JSON object; {@code available} is optional and
+     * defaults to {@code true}.
+     *
+     * @throws IllegalArgumentException naming the field if one is missing or invalid
+     */
+    public static Book read(Map<String, Object> object) {
+        Book book = new Book(
+                string(object, "id"),
+                string(object, "title"),
+                string(object, "author"),
+                BookRecords.parseYear(number(object, "year")),
+                BookRecords.parsePrice(number(object, "price")),
+                string(object, "genre"));
+        Object available = object.get("available");
+        if (available != null) {
+            book.setAvailable(BookRecords.parseAvailable(available.toString()));
+        }
+        return book;
+    }
+
+    private static String string(Map<String, Object> object, String field) {
+        Object value = object.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field: " + field);
+        }
+        return value.toString();
+    }
+
+    // Numbers may be given as JSON numbers or strings; normalize to text for one parser
+    private static String number(Map<String, Object> object, String field) {
+        Object value = object.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field: " + field);
+        }
+        if (value instanceof Double number) {
+            return BigDecimal.valueOf(number).stripTrailingZeros().toPlainString();
+        }
+        return value.toString();
+    }
+}
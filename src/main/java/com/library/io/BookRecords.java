@@ -0,0 +1,225 @@
+package com.library.io;
+
+import com.library.Book;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Text encodings of a {@link Book} for CSV and JSON lines.
+ * Reading is split in two so parsing can run in parallel: {@link #nextRecord} only finds
+ * record boundaries (cheap, sequential), {@link #parse} turns one record into a validated book.
+ */
+final class BookRecords {
+    static final String[] COLUMNS = {"id", "title", "author", "year", "price", "genre", "available"};
+    private static final int ID = 0, TITLE = 1, AUTHOR = 2, YEAR = 3, PRICE = 4, GENRE = 5, AVAILABLE = 6;
+
+    /**
+     * One raw record and the line it starts on.
+     */
+    record Raw(long line, String text) {
+    }
+
+    private final BookFileFormat format;
+    private final BufferedReader reader;
+    private long line;
+    // CSV column positions of id, title, ... available; -1 when a column is absent
+    private int[] columns = {0, 1, 2, 3, 4, 5, 6};
+    private boolean headerChecked;
+
+    BookRecords(BookFileFormat format, BufferedReader reader) {
+        this.format = format;
+        this.reader = reader;
+    }
+
+    /**
+     * @return the next non-blank record, or {@code null} at the end of input
+     */
+    Raw nextRecord() throws IOException {
+        while (true) {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            long start = ++line;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == BookFileFormat.CSV) {
+                // A quoted field may span lines: keep reading while a quote is open
+                StringBuilder record = null;
+                while (countQuotes(record == null ? text : record) % 2 != 0) {
+                    String next = reader.readLine();
+                    if (next == null) {
+                        break;
+                    }
+                    line++;
+                    if (record == null) {
+                        record = new StringBuilder(text);
+                    }
+                    record.append('\n').append(next);
+                }
+                if (record != null) {
+                    text = record.toString();
+                }
+                if (!headerChecked) {
+                    headerChecked = true;
+                    if (readHeader(text)) {
+                        continue;
+                    }
+                }
+            }
+            return new Raw(start, text);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException with a row-level message if the record is invalid
+     */
+    Book parse(String text) {
+        return format == BookFileFormat.CSV ? parseCsv(text) : parseJson(text);
+    }
+
+    static void writeHeader(Appendable out) throws IOException {
+        out.append(String.join(",", COLUMNS)).append('\n');
+    }
+
+    static void writeCsv(Appendable out, Book book) throws IOException {
+        out.append(csvField(book.getId())).append(',')
+                .append(csvField(book.getTitle())).append(',')
+                .append(csvField(book.getAuthor())).append(',')
+                .append(Integer.toString(book.getYear())).append(',')
+                .append(formatPrice(book.getPrice())).append(',')
+                .append(csvField(book.getGenre())).append(',')
+                .append(Boolean.toString(book.isAvailable())).append('\n');
+    }
+
+    static void writeJson(Appendable out, Book book) throws IOException {
+        out.append(BookJson.write(new StringBuilder(160), book).append('\n'));
+    }
+
+    private boolean readHeader(String text) {
+        List<String> names = splitCsv(text);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            positions.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!positions.containsKey("id") || !positions.containsKey("title")) {
+            return false;
+        }
+        columns = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i] = positions.getOrDefault(COLUMNS[i], -1);
+        }
+        return true;
+    }
+
+    private Book parseCsv(String text) {
+        List<String> fields = splitCsv(text);
+        Book book = new Book(
+                csvValue(fields, ID),
+                csvValue(fields, TITLE),
+                csvValue(fields, AUTHOR),
+                parseYear(csvValue(fields, YEAR)),
+                parsePrice(csvValue(fields, PRICE)),
+                csvValue(fields, GENRE));
+        int available = columns[AVAILABLE];
+        if (available >= 0 && available < fields.size()) {
+            book.setAvailable(parseAvailable(fields.get(available)));
+        }
+        return book;
+    }
+
+    private String csvValue(List<String> fields, int column) {
+        int position = columns[column];
+        if (position < 0 || position >= fields.size()) {
+            throw new IllegalArgumentException("Missing field: " + COLUMNS[column]);
+        }
+        return fields.get(position);
+    }
+
+    private static Book parseJson(String text) {
+        return BookJson.read(Json.parseObject(text));
+    }
+
+    static int parseYear(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid year: " + value);
+        }
+    }
+
+    static double parsePrice(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + value);
+        }
+    }
+
+    static boolean parseAvailable(String value) {
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "", "true", "yes", "y", "1":
+                return true;
+            case "false", "no", "n", "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("Invalid available flag: " + value);
+        }
+    }
+
+    static String formatPrice(double price) {
+        return BigDecimal.valueOf(price).toPlainString();
+    }
+
+    static List<String> splitCsv(CharSequence text) {
+        List<String> fields = new ArrayList<>(COLUMNS.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String csvField(String value) {
+        boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return needsQuotes ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    private static int countQuotes(CharSequence text) {
+        int quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+}
@@ -0,0 +1,237 @@
+package com.library.io;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader and string escaper, enough for book records without pulling in a library.
+ * Objects become {@code Map<String, Object>}, arrays {@code List<Object>}, numbers {@code Double},
+ * plus {@code String}, {@code Boolean} and {@code null}.
+ */
+public final class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a single well-formed JSON value
+     */
+    public static Object parse(String text) {
+        Json parser = new Json(text);
+        parser.skipWhitespace();
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error("Unexpected trailing characters");
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Appends {@code value} as a quoted JSON string.
+     */
+    public static StringBuilder quote(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    private Object readValue() {
+        if (position >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                return readLiteral("true", Boolean.TRUE);
+            case 'f':
+                return readLiteral("false", Boolean.FALSE);
+            case 'n':
+                return readLiteral("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Expected a field name");
+            }
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            object.put(name, readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            skipWhitespace();
+            array.add(readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String readString() {
+        position++;
+        StringBuilder value = null;
+        int start = position;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '"') {
+                String result = value == null ? text.substring(start, position)
+                        : value.append(text, start, position).toString();
+                position++;
+                return result;
+            }
+            if (c != '\\') {
+                position++;
+                continue;
+            }
+            if (value == null) {
+                value = new StringBuilder();
+            }
+            value.append(text, start, position);
+            if (position + 1 >= text.length()) {
+                break;
+            }
+            char escape = text.charAt(position + 1);
+            position += 2;
+            switch (escape) {
+                case '"', '\\', '/' -> value.append(escape);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Invalid escape '\\" + escape + "'");
+            }
+            start = position;
+        }
+        throw error("Unterminated string");
+    }
+
+    private Double readNumber() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        try {
+            return Double.valueOf(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number");
+        }
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("Invalid literal");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private char peek() {
+        if (position >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        return text.charAt(position);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+}
@@ -0,0 +1,65 @@
+package com.library.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import or export: row counts, per-row errors and throughput.
+ * Only the first {@value #MAX_REPORTED_ERRORS} errors are kept, so memory stays
+ * bounded for files with millions of bad rows; {@link #getErrorCount()} counts all.
+ */
+public class TransferReport {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * A rejected row; {@code line} is the 1-based line where the record starts.
+     */
+    public record RowError(long line, String message) {
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    private final List<RowError> errors = new ArrayList<>();
+    private long rowsProcessed;
+    private long rowsAccepted;
+    private long errorCount;
+    private long elapsedNanos;
+
+    void addProcessed(long rows) {
+        rowsProcessed += rows;
+    }
+
+    void addAccepted(long rows) {
+        rowsAccepted += rows;
+    }
+
+    void addError(long line, String message) {
+        errorCount++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowsProcessed() { return rowsProcessed; }
+    public long getRowsAccepted() { return rowsAccepted; }
+    public long getErrorCount() { return errorCount; }
+    public List<RowError> getErrors() { return Collections.unmodifiableList(errors); }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsProcessed * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows, %d accepted, %d errors in %.2f s (%.0f rows/sec)",
+                rowsProcessed, rowsAccepted, errorCount, elapsedNanos / 1e9, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.loan;
+
+import java.time.Instant;
+import java.util.Comparator;
+
+/**
+ * One checkout of one copy. Immutable: renewing or returning a loan replaces it.
+ *
+ * @param copy     the copy's number in the title's {@link com.library.inventory.CopyInventory}
+ * @param returned when the copy came back, or {@code null} while the loan is open
+ */
+public record Loan(String bookId, int copy, String patronId, Instant checkedOut, Instant due, Instant returned) {
+    /**
+     * Earliest due date first. A copy has at most one open loan, so among open loans
+     * the book ID and copy number break every tie.
+     */
+    public static final Comparator<Loan> BY_DUE_DATE = Comparator.comparing(Loan::due).thenComparing(Loan::bookId)
+            .thenComparingInt(Loan::copy);
+
+    public boolean isOpen() {
+        return returned == null;
+    }
+
+    public boolean isOverdue(Instant now) {
+        return isOpen() && due.isBefore(now);
+    }
+
+    Loan renewedUntil(Instant newDue) {
+        return new Loan(bookId, copy, patronId, checkedOut, newDue, null);
+    }
+
+    Loan returnedAt(Instant time) {
+        return new Loan(bookId, copy, patronId, checkedOut, due, time);
+    }
+}
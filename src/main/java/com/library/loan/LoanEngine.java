@@ -0,0 +1,401 @@
+package com.library.loan;
+
+import com.library.Book;
+import com.library.Library;
+import com.library.audit.AuditLog;
+import com.library.inventory.CopyInventory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Checkouts, returns and renewals of the copies of the books in a {@link Library}.
+ * <p>
+ * A checkout takes a copy off the shelf of the title's {@link CopyInventory}, a
+ * compare-and-set on its shelf bits, and a return puts it back; the open loan is kept in
+ * a concurrent map keyed by copy and renewed by replacing it there. So transitions on
+ * different copies never wait for each other or for the library's lock. A patron's loan
+ * limit is a counter per patron. Open loans are also kept in a skip list ordered by due
+ * date, which answers {@link #overdue} from its head, and in a set per patron. Those two
+ * are updated right after the transition, so a reader racing it may briefly miss a loan;
+ * entries left behind by such a race are checked against the open loan on read and dropped.
+ * <p>
+ * The catalog's {@link Book#isAvailable()} flag says whether a title may be lent at all;
+ * the engine does not change it, nor the statistics that count it, and {@link #isAvailable}
+ * is what says whether a copy is on the shelf. Patrons and every transition are appended to a loans
+ * file before the transition is visible to others, and undone if that fails; the file is
+ * the loan history, read back with {@link #history}, and on start it is replayed to
+ * restore the open loans, taking their copies off the shelves the library restored.
+ * Appends made at the same time are written, and forced, together by the file's writer, so
+ * a transition waits for the disk but not for the other transitions' writes.
+ * Returned loans are not kept in memory, which would tie up long-lived objects that
+ * change on every return and cost the garbage collector more than the transitions
+ * themselves. Transitions are also logged at INFO through an {@link AuditLog}, which
+ * may drop lines under load; the file does not.
+ */
+public class LoanEngine implements Closeable {
+    public static final Duration DEFAULT_LOAN_PERIOD = Duration.ofDays(14);
+    private static final Logger logger = Logger.getLogger(LoanEngine.class.getName());
+
+    /**
+     * Transitions since the engine was created, and the loans open now, restored ones
+     * included; {@code conflicts} counts checkouts that found every copy of the title out.
+     */
+    public record Stats(long checkouts, long returns, long renewals, long conflicts, long openLoans) {
+    }
+
+    private final Library library;
+    private final Clock clock;
+    private final Duration loanPeriod;
+    private final ConcurrentHashMap<String, Borrower> patrons = new ConcurrentHashMap<>();
+    // The open loan of every copy that is out, and the inventory it is put back into
+    private final ConcurrentHashMap<CopyRef, Out> open = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Loan> byDueDate = new ConcurrentSkipListSet<>(Loan.BY_DUE_DATE);
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder returns = new LongAdder();
+    private final LongAdder renewals = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final AuditLog audit = new AuditLog(logger, LoanEngine.class.getName(), 8192,
+            AuditLog.OverflowPolicy.DROP_NEWEST);
+    private final LoanJournal journal;
+
+    public LoanEngine(Library library, Path loansFile) {
+        this(library, loansFile, false, Clock.systemUTC(), DEFAULT_LOAN_PERIOD);
+    }
+
+    /**
+     * Opens the loans file, creating it if missing, and restores the patrons and open loans
+     * in it.
+     *
+     * @param sync whether every append is forced to the storage device, as with
+     *             {@link com.library.LibraryConfig#setJournalSync}
+     * @throws UncheckedIOException if the loans file cannot be read
+     */
+    public LoanEngine(Library library, Path loansFile, boolean sync, Clock clock, Duration loanPeriod) {
+        this.library = Objects.requireNonNull(library, "Library cannot be null");
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+        if (loanPeriod.isNegative() || loanPeriod.isZero()) {
+            throw new IllegalArgumentException("Loan period must be positive");
+        }
+        this.loanPeriod = loanPeriod;
+        this.journal = new LoanJournal(Objects.requireNonNull(loansFile, "Loans file cannot be null"), sync);
+        try {
+            restore();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading loans file " + loansFile, e);
+        }
+    }
+
+    public void registerPatron(Patron patron) {
+        Objects.requireNonNull(patron, "Patron cannot be null");
+        if (patrons.putIfAbsent(patron.id(), new Borrower(patron)) != null) {
+            throw new IllegalArgumentException("Patron with ID " + patron.id() + " already exists");
+        }
+        try {
+            journal.appendPatron(patron);
+        } catch (IOException e) {
+            patrons.remove(patron.id());
+            throw new UncheckedIOException("Error writing loans file", e);
+        }
+    }
+
+    public Patron getPatron(String patronId) {
+        Borrower borrower = patronId == null ? null : patrons.get(patronId);
+        return borrower == null ? null : borrower.patron;
+    }
+
+    /**
+     * Lends a copy of the book for the default loan period.
+     */
+    public Loan checkOut(String bookId, String patronId) {
+        return checkOut(bookId, patronId, loanPeriod);
+    }
+
+    /**
+     * Lends the lowest-numbered copy of the book on the shelf.
+     *
+     * @throws IllegalArgumentException if the book or patron does not exist
+     * @throws IllegalStateException    if every copy is out, the book may not be lent, or
+     *                                  the patron is at their loan limit
+     */
+    public Loan checkOut(String bookId, String patronId, Duration period) {
+        Borrower borrower = borrower(patronId);
+        Book book = library.getBookById(bookId);
+        CopyInventory copies = book == null ? null : library.getCopies(bookId);
+        if (copies == null) {
+            throw new IllegalArgumentException("Book with ID " + bookId + " not found");
+        }
+        if (!book.isAvailable()) {
+            throw new IllegalStateException("Book " + bookId + " is not available for loan");
+        }
+        if (!borrower.reserve()) {
+            throw new IllegalStateException("Patron " + patronId + " already has "
+                    + borrower.patron.maxLoans() + " books out");
+        }
+        int copy = copies.take();
+        if (copy < 0) {
+            borrower.release();
+            conflicts.increment();
+            throw new IllegalStateException("Every copy of book " + bookId + " is checked out");
+        }
+        Instant now = clock.instant();
+        Loan loan = new Loan(bookId, copy, patronId, now, now.plus(period), null);
+        try {
+            journal.append(LoanJournal.Op.CHECK_OUT, loan);
+        } catch (IOException e) {
+            copies.putBack(copy);
+            borrower.release();
+            throw new UncheckedIOException("Error writing loans file", e);
+        }
+        CopyRef ref = new CopyRef(bookId, copy);
+        open.put(ref, new Out(loan, copies));
+        byDueDate.add(loan);
+        borrower.copies.add(ref);
+        checkouts.increment();
+        audit.info("checkOut", "Checked out {0} copy {1,number,#} to {2}, due {3}", bookId, copy, patronId,
+                loan.due());
+        return loan;
+    }
+
+    /**
+     * @return the closed loan
+     * @throws IllegalStateException if the copy is not checked out
+     */
+    public Loan checkIn(String bookId, int copy) {
+        CopyRef ref = new CopyRef(bookId, copy);
+        Out out = bookId == null ? null : open.remove(ref);
+        if (out == null) {
+            throw new IllegalStateException("Copy " + copy + " of book " + bookId + " is not checked out");
+        }
+        Loan loan = out.loan();
+        Loan returned = loan.returnedAt(clock.instant());
+        try {
+            journal.append(LoanJournal.Op.CHECK_IN, returned);
+        } catch (IOException e) {
+            open.put(ref, out);
+            throw new UncheckedIOException("Error writing loans file", e);
+        }
+        byDueDate.remove(loan);
+        Borrower borrower = patrons.get(loan.patronId());
+        borrower.copies.remove(ref);
+        borrower.release();
+        // Only once the return is on record, so the copy's next checkout follows it there
+        out.copies().putBack(copy);
+        returns.increment();
+        audit.info("checkIn", "Returned {0} copy {1,number,#} from {2}, due {3}", bookId, copy, loan.patronId(),
+                loan.due());
+        return returned;
+    }
+
+    /**
+     * Moves the due date of the open loan to one loan period from now.
+     *
+     * @return the renewed loan
+     * @throws IllegalStateException if the copy is not checked out
+     */
+    public Loan renew(String bookId, int copy) {
+        CopyRef ref = new CopyRef(bookId, copy);
+        Out out;
+        Out replacement;
+        Loan renewed;
+        do {
+            out = bookId == null ? null : open.get(ref);
+            if (out == null) {
+                throw new IllegalStateException("Copy " + copy + " of book " + bookId + " is not checked out");
+            }
+            renewed = out.loan().renewedUntil(clock.instant().plus(loanPeriod));
+            replacement = new Out(renewed, out.copies());
+        } while (!open.replace(ref, out, replacement));
+        try {
+            journal.append(LoanJournal.Op.RENEW, renewed);
+        } catch (IOException e) {
+            open.replace(ref, replacement, out);
+            throw new UncheckedIOException("Error writing loans file", e);
+        }
+        // Remove first: with an unchanged due date the two loans compare equal
+        byDueDate.remove(out.loan());
+        byDueDate.add(renewed);
+        renewals.increment();
+        audit.info("renew", "Renewed {0} copy {1,number,#} for {2}, due {3}", bookId, copy, renewed.patronId(),
+                renewed.due());
+        return renewed;
+    }
+
+    /**
+     * @return the open loan of the copy, or {@code null} if it is on the shelf
+     */
+    public Loan getLoan(String bookId, int copy) {
+        Out out = bookId == null ? null : open.get(new CopyRef(bookId, copy));
+        return out == null ? null : out.loan();
+    }
+
+    /**
+     * Whether the book exists, may be lent and has a copy on the shelf; O(1).
+     */
+    public boolean isAvailable(String bookId) {
+        Book book = library.getBookById(bookId);
+        CopyInventory copies = book == null || !book.isAvailable() ? null : library.getCopies(bookId);
+        return copies != null && copies.available() > 0;
+    }
+
+    /**
+     * Open loans past their due date, most overdue first. Reads only the overdue head of
+     * the due-date index, so the cost follows the result, not the number of open loans.
+     */
+    public List<Loan> overdue(int limit) {
+        Instant now = clock.instant();
+        List<Loan> result = new ArrayList<>();
+        for (Loan loan : byDueDate) {
+            if (result.size() >= limit || !loan.due().isBefore(now)) {
+                break;
+            }
+            Loan current = getLoan(loan.bookId(), loan.copy());
+            if (current != null && Loan.BY_DUE_DATE.compare(current, loan) == 0) {
+                result.add(current);
+            } else {
+                byDueDate.remove(loan);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The patron's open loans, earliest due first.
+     */
+    public List<Loan> loansOf(String patronId) {
+        Borrower borrower = borrower(patronId);
+        List<Loan> result = new ArrayList<>();
+        for (CopyRef ref : borrower.copies) {
+            Loan loan = getLoan(ref.bookId(), ref.copy());
+            if (loan != null && loan.patronId().equals(patronId)) {
+                result.add(loan);
+            } else {
+                borrower.copies.remove(ref);
+            }
+        }
+        result.sort(Loan.BY_DUE_DATE);
+        return result;
+    }
+
+    /**
+     * Passes every transition on record, oldest first, restarts included: a checkout or
+     * renewal as the open loan it left, a return as the closed loan.
+     *
+     * @throws UncheckedIOException if the loans file cannot be read
+     */
+    public void history(Consumer<Loan> action) {
+        try {
+            journal.read(patron -> { }, (op, loan) -> action.accept(loan));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading loans file", e);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(checkouts.sum(), returns.sum(), renewals.sum(), conflicts.sum(), open.size());
+    }
+
+    /**
+     * Writes out the queued audit lines and closes the loans file; transitions fail after.
+     */
+    @Override
+    public void close() {
+        audit.close();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.severe("Error closing loans file: " + e.getMessage());
+        }
+    }
+
+    // Rebuilds the patrons and open loans from the loans file
+    private void restore() throws IOException {
+        Map<CopyRef, Loan> loans = new HashMap<>();
+        journal.replay(patron -> patrons.put(patron.id(), new Borrower(patron)), (op, loan) -> {
+            CopyRef ref = new CopyRef(loan.bookId(), loan.copy());
+            if (op == LoanJournal.Op.CHECK_OUT) {
+                loans.put(ref, loan);
+                return;
+            }
+            // A renewal written after the copy's return, or after its next checkout, is stale
+            Loan current = loans.get(ref);
+            if (current != null && current.patronId().equals(loan.patronId())
+                    && current.checkedOut().equals(loan.checkedOut())) {
+                if (op == LoanJournal.Op.RENEW) {
+                    loans.put(ref, loan);
+                } else {
+                    loans.remove(ref);
+                }
+            }
+        });
+        for (Map.Entry<CopyRef, Loan> entry : loans.entrySet()) {
+            Loan loan = entry.getValue();
+            CopyInventory copies = library.getCopies(loan.bookId());
+            Borrower borrower = patrons.get(loan.patronId());
+            if (copies == null || borrower == null || !copies.take(loan.copy())) {
+                logger.warning("Open loan of copy " + loan.copy() + " of book " + loan.bookId()
+                        + " to " + loan.patronId() + " names a copy or patron that is gone; not restored");
+                continue;
+            }
+            open.put(entry.getKey(), new Out(loan, copies));
+            byDueDate.add(loan);
+            borrower.copies.add(entry.getKey());
+            borrower.out.incrementAndGet();
+        }
+    }
+
+    private Borrower borrower(String patronId) {
+        Borrower borrower = patronId == null ? null : patrons.get(patronId);
+        if (borrower == null) {
+            throw new IllegalArgumentException("Patron with ID " + patronId + " not found");
+        }
+        return borrower;
+    }
+
+    private record CopyRef(String bookId, int copy) {
+    }
+
+    private record Out(Loan loan, CopyInventory copies) {
+    }
+
+    private static final class Borrower {
+        final Patron patron;
+        final AtomicInteger out = new AtomicInteger();
+        final Set<CopyRef> copies = ConcurrentHashMap.newKeySet();
+
+        Borrower(Patron patron) {
+            this.patron = patron;
+        }
+
+        boolean reserve() {
+            int current;
+            do {
+                current = out.get();
+                if (current >= patron.maxLoans()) {
+                    return false;
+                }
+            } while (!out.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release() {
+            out.decrementAndGet();
+        }
+    }
+}
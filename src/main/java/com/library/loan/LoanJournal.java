@@ -0,0 +1,314 @@
+package com.library.loan;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of registered patrons and loan transitions, which is both the loan
+ * history and what the open loans are rebuilt from.
+ * <p>
+ * Records are framed as {@code [length][crc32][payload]}, as in the catalog's
+ * {@link com.library.storage.Journal}, so a record torn by a crash is cut off on replay.
+ * A transition carries the whole loan as it left it, so a renewal or return that lost a
+ * race to a later one is recognised on replay by its checkout time and patron.
+ * <p>
+ * Appends are group-committed: the caller encodes its record and queues it without a
+ * lock, and a single writer thread drains the queue in batches, writing each batch with
+ * one gathering write and, with {@code sync}, one force. An append returns once its
+ * batch is durable, so callers appending at the same time share a disk write instead of
+ * taking turns, and the order of records in the file is the order they were queued in.
+ */
+final class LoanJournal implements Closeable {
+    private static final Logger logger = Logger.getLogger(LoanJournal.class.getName());
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_BATCH_BYTES = 1 << 20;
+
+    enum Op {
+        PATRON, CHECK_OUT, RENEW, CHECK_IN
+    }
+
+    private final Path path;
+    private final boolean sync;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    // Written by the writer thread only, once replay has started it
+    private FileChannel channel;
+    private Thread writer;
+    // Length of the records written so far, which readers stop at
+    private volatile long end;
+    private volatile boolean closed;
+
+    private record Pending(ByteBuffer record, CompletableFuture<Void> durable) {
+    }
+
+    LoanJournal(Path path, boolean sync) {
+        this.path = path;
+        this.sync = sync;
+    }
+
+    /**
+     * Replays all intact records and opens the file for appending, truncating a torn or
+     * corrupt tail, and starts the writer.
+     *
+     * @return number of records replayed
+     */
+    synchronized int replay(Consumer<Patron> patrons, BiConsumer<Op, Loan> loans) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long validEnd = 0;
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte[] payload = readRecord(in, validEnd, channel.size());
+                if (payload == null) {
+                    break;
+                }
+                apply(payload, patrons, loans);
+                validEnd += HEADER_SIZE + payload.length;
+                records++;
+            }
+        } catch (EOFException e) {
+            logger.warning("Torn loan record at offset " + validEnd + ", truncating");
+        }
+        if (channel.size() > validEnd) {
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+        end = validEnd;
+        writer = new Thread(this::drain, "library-loans");
+        writer.setDaemon(true);
+        writer.start();
+        return records;
+    }
+
+    /**
+     * Reads the records appended so far without disturbing appends.
+     */
+    void read(Consumer<Patron> patrons, BiConsumer<Op, Loan> loans) throws IOException {
+        ensureOpen();
+        long end = this.end;
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (offset < end) {
+                byte[] payload = readRecord(in, offset, end);
+                if (payload == null) {
+                    throw new IOException("Corrupt loan record at offset " + offset + ": " + path);
+                }
+                apply(payload, patrons, loans);
+                offset += HEADER_SIZE + payload.length;
+            }
+        }
+    }
+
+    /**
+     * Appends the patron and waits until the record is written, and forced with {@code sync}.
+     */
+    void appendPatron(Patron patron) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(Op.PATRON.ordinal());
+        out.writeUTF(patron.id());
+        out.writeUTF(patron.name());
+        out.writeInt(patron.maxLoans());
+        write(buffer.toByteArray());
+    }
+
+    /**
+     * Appends the transition and waits until the record is written, and forced with {@code sync}.
+     */
+    void append(Op op, Loan loan) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(op.ordinal());
+        out.writeUTF(loan.bookId());
+        out.writeInt(loan.copy());
+        out.writeUTF(loan.patronId());
+        writeInstant(out, loan.checkedOut());
+        writeInstant(out, loan.due());
+        out.writeBoolean(loan.returned() != null);
+        if (loan.returned() != null) {
+            writeInstant(out, loan.returned());
+        }
+        write(buffer.toByteArray());
+    }
+
+    /**
+     * Writes out the queued records and closes the file; appends fail after.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed || channel == null) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        // Records from callers that saw the journal open while it was closing
+        IOException rejected = new IOException("Loan journal is closed: " + path);
+        for (Pending pending; (pending = queue.poll()) != null; ) {
+            pending.durable().completeExceptionally(rejected);
+        }
+        try {
+            channel.close();
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void write(byte[] payload) throws IOException {
+        ensureOpen();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        Pending pending = new Pending(record, new CompletableFuture<>());
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            throw new IOException("Loan journal is closed: " + path);
+        }
+        LockSupport.unpark(writer);
+        try {
+            // Uninterruptible: a record given up on could still be written after the caller undid it
+            pending.durable().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        }
+    }
+
+    // The writer thread: one write, and one force, per batch of queued records
+    private void drain() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            Pending next = queue.poll();
+            if (next == null) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            long bytes = 0;
+            do {
+                batch.add(next);
+                bytes += next.record().remaining();
+            } while (bytes < MAX_BATCH_BYTES && (next = queue.poll()) != null);
+            IOException failure = flush(batch, bytes);
+            for (Pending pending : batch) {
+                if (failure == null) {
+                    pending.durable().complete(null);
+                } else {
+                    pending.durable().completeExceptionally(failure);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private IOException flush(List<Pending> batch, long bytes) {
+        ByteBuffer[] records = new ByteBuffer[batch.size()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = batch.get(i).record();
+        }
+        try {
+            for (long written = 0; written < bytes; ) {
+                written += channel.write(records);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+            end += bytes;
+            return null;
+        } catch (IOException e) {
+            // Cut off what part of the batch got written, so later records follow the last good one
+            try {
+                channel.truncate(end);
+                channel.position(end);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            return e;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null || closed) {
+            throw new IOException("Loan journal is not open: " + path);
+        }
+    }
+
+    // The next intact payload, or null at the end or at a corrupt record
+    private byte[] readRecord(DataInputStream in, long offset, long limit) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        long checksum = in.readInt() & 0xFFFFFFFFL;
+        if (length <= 0 || length > limit - offset - HEADER_SIZE) {
+            logger.warning("Corrupt loan record at offset " + offset);
+            return null;
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CRC32 check = new CRC32();
+        check.update(payload);
+        if (check.getValue() != checksum) {
+            logger.warning("Loan record checksum mismatch at offset " + offset);
+            return null;
+        }
+        return payload;
+    }
+
+    private static void apply(byte[] payload, Consumer<Patron> patrons, BiConsumer<Op, Loan> loans)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int op = in.readUnsignedByte();
+        if (op == Op.PATRON.ordinal()) {
+            patrons.accept(new Patron(in.readUTF(), in.readUTF(), in.readInt()));
+        } else if (op > 0 && op < Op.values().length) {
+            String bookId = in.readUTF();
+            int copy = in.readInt();
+            String patronId = in.readUTF();
+            Instant checkedOut = readInstant(in);
+            Instant due = readInstant(in);
+            Instant returned = in.readBoolean() ? readInstant(in) : null;
+            loans.accept(Op.values()[op], new Loan(bookId, copy, patronId, checkedOut, due, returned));
+        } else {
+            throw new IOException("Unknown loan journal operation: " + op);
+        }
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+}
@@ -0,0 +1,18 @@
+package com.library.loan;
+
+/**
+ * A borrower and the number of books they may have out at once.
+ */
+public record Patron(String id, String name, int maxLoans) {
+    public Patron {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Patron ID cannot be empty");
+        }
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Patron name cannot be empty");
+        }
+        if (maxLoans < 1) {
+            throw new IllegalArgumentException("Loan limit must be positive");
+        }
+    }
+}
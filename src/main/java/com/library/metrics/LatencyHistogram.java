@@ -0,0 +1,105 @@
+package com.library.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative histogram of durations in nanoseconds, cheap enough to record on every call.
+ * <p>
+ * Buckets are log-linear: exact below 16 ns, then eight buckets per power of two, so a
+ * reported percentile is at most 12.5% above the true value. Durations beyond about
+ * 18 minutes share the last bucket, though {@link #getMax()} stays exact. Every bucket
+ * is a {@link LongAdder}, so threads recording at once do not contend on one counter.
+ * Reads are not atomic with respect to writers: a snapshot taken during recording may
+ * be a few samples behind in some buckets.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_TRACKED = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = index(MAX_TRACKED) + 1;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[index(Math.min(value, MAX_TRACKED))].increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotal() / count;
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.99
+     * @return the upper bound of the bucket holding that quantile, never above the maximum;
+     *         0 if nothing was recorded
+     */
+    public long getPercentile(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) * width;
+        return lower + width - 1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.metrics;
+
+/**
+ * JMX view of one {@link LatencyHistogram}, registered per operation and per I/O channel.
+ */
+public interface LatencyMXBean {
+    /**
+     * Every call, including those not timed because the operation is sampled.
+     */
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    /**
+     * Bytes read or written; always 0 for operations.
+     */
+    long getBytes();
+}
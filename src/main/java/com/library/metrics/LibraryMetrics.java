@@ -0,0 +1,250 @@
+package com.library.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Call counts and latency histograms for every {@link com.library.Library} operation,
+ * plus bytes and durations of persistence I/O.
+ * <p>
+ * Every call is counted. Timing costs two {@link System#nanoTime()} calls and a few
+ * uncontended adds, noticeable only next to the lock-free ID lookups, so those are
+ * timed on one call in {@value #SAMPLE_EVERY}, picked at random; everything else is
+ * timed on every call. With that, metrics can stay on in production; when disabled,
+ * nothing is counted or timed. Figures are cumulative since the library was opened. They are
+ * readable as text through {@link #dump()} and, once {@link #register registered},
+ * as MXBeans under {@code com.library:type=Library,name=...}.
+ */
+public final class LibraryMetrics {
+    private static final Logger logger = Logger.getLogger(LibraryMetrics.class.getName());
+
+    public static final int SAMPLE_EVERY = 16;
+    // start() result for a call that is counted but not timed
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    public enum Operation {
+        ADD_BOOK("addBook", false),
+        ADD_BOOKS("addBooks", false),
+        UPDATE_BOOK("updateBook", false),
+        DELETE_BOOK("deleteBook", false),
+        APPLY_BATCH("applyBatch", false),
+        CHANGE_COPIES("changeCopies", false),
+        GET_BOOK_BY_ID("getBookById", true),
+        IS_ID_UNIQUE("isIdUnique", true),
+        GET_ALL_BOOKS("getAllBooks", false),
+        FOR_EACH_BOOK("forEachBook", false),
+        SEARCH_BOOKS("searchBooks", false),
+        FUZZY_SEARCH("fuzzySearch", false),
+        QUERY("query", false),
+        GET_STATISTICS("getStatistics", false),
+        SAVE_DATA("saveData", false);
+
+        private final String label;
+        private final boolean sampled;
+
+        Operation(String label, boolean sampled) {
+            this.label = label;
+            this.sampled = sampled;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean isSampled() {
+            return sampled;
+        }
+    }
+
+    public enum Io {
+        SNAPSHOT_LOAD("snapshot.load"),
+        SNAPSHOT_SAVE("snapshot.save"),
+        JOURNAL_REPLAY("journal.replay"),
+        JOURNAL_APPEND("journal.append");
+
+        private final String label;
+
+        Io(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<Operation, Timer> operations = new EnumMap<>(Operation.class);
+    private final Map<Io, Timer> io = new EnumMap<>(Io.class);
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    public LibraryMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new Timer());
+        }
+        for (Io channel : Io.values()) {
+            io.put(channel, new Timer());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the value to pass to {@link #record} when the operation returns
+     */
+    public long start(Operation operation) {
+        if (!enabled || (operation.sampled && ThreadLocalRandom.current().nextInt(SAMPLE_EVERY) != 0)) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    public void record(Operation operation, long started) {
+        if (enabled) {
+            Timer timer = operations.get(operation);
+            timer.calls.increment();
+            if (started != NOT_TIMED) {
+                timer.histogram.record(System.nanoTime() - started);
+            }
+        }
+    }
+
+    /**
+     * @return the start time to pass to {@link #recordIo}
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void recordIo(Io channel, long start, long bytes) {
+        if (enabled) {
+            Timer timer = io.get(channel);
+            timer.calls.increment();
+            timer.histogram.record(System.nanoTime() - start);
+            timer.bytes.add(bytes);
+        }
+    }
+
+    public LatencyMXBean get(Operation operation) {
+        return operations.get(operation);
+    }
+
+    public LatencyMXBean get(Io channel) {
+        return io.get(channel);
+    }
+
+    /**
+     * One line per operation and I/O channel that has been used, latencies in microseconds.
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-16s %10s %10s %10s %10s %10s %14s%n",
+                "operation", "count", "mean", "p50", "p99", "max", "bytes"));
+        operations.forEach((operation, timer) -> line(out, operation.getLabel(), timer));
+        io.forEach((channel, timer) -> line(out, channel.getLabel(), timer));
+        return out.toString();
+    }
+
+    /**
+     * Registers the MXBeans under {@code com.library:type=Library,name=<name>}, replacing
+     * beans a previous library with the same name left behind. Failures are logged, not thrown:
+     * monitoring must not stop the library.
+     */
+    public void register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String base = "com.library:type=Library,name=" + ObjectName.quote(name);
+        try {
+            register(server, new ObjectName(base), new LibraryMetricsMXBean() {
+                @Override
+                public String dump() {
+                    return LibraryMetrics.this.dump();
+                }
+            });
+            for (Map.Entry<Operation, Timer> entry : operations.entrySet()) {
+                register(server, new ObjectName(base + ",operation=" + entry.getKey().getLabel()), entry.getValue());
+            }
+            for (Map.Entry<Io, Timer> entry : io.entrySet()) {
+                register(server, new ObjectName(base + ",io=" + entry.getKey().getLabel()), entry.getValue());
+            }
+        } catch (JMException e) {
+            logger.warning("Could not register library metrics: " + e.getMessage());
+        }
+    }
+
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // Already replaced or removed by someone else
+            }
+        }
+        registered.clear();
+    }
+
+    private void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(bean, name);
+        registered.add(name);
+    }
+
+    private static void line(StringBuilder out, String label, Timer timer) {
+        if (timer.getCount() == 0) {
+            return;
+        }
+        out.append(String.format("%-16s %10d %10.1f %10.1f %10.1f %10.1f %14d%n", label, timer.getCount(),
+                timer.getMeanMicros(), timer.getP50Micros(), timer.getP99Micros(), timer.getMaxMicros(),
+                timer.getBytes()));
+    }
+
+    private static final class Timer implements LatencyMXBean {
+        final LongAdder calls = new LongAdder();
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder bytes = new LongAdder();
+
+        @Override
+        public long getCount() {
+            return calls.sum();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return histogram.getMean() / 1000.0;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return histogram.getPercentile(0.5) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return histogram.getPercentile(0.99) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return histogram.getMax() / 1000.0;
+        }
+
+        @Override
+        public long getBytes() {
+            return bytes.sum();
+        }
+    }
+}
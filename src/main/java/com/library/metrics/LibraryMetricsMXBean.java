@@ -0,0 +1,11 @@
+package com.library.metrics;
+
+/**
+ * JMX entry point of a library's metrics; the per-operation figures are separate beans.
+ */
+public interface LibraryMetricsMXBean {
+    /**
+     * @return the same text as {@link LibraryMetrics#dump()}
+     */
+    String dump();
+}
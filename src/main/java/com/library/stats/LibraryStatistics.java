@@ -0,0 +1,77 @@
+package com.library.stats;
+
+import java.util.*;
+
+/**
+ * Immutable point-in-time statistics of the catalog, as produced by {@link StatisticsAggregator}.
+ */
+public class LibraryStatistics {
+    /**
+     * Counts and price total of one group of books (all books, a genre, an author or a decade).
+     * {@code available} and {@link #checkedOut()} count titles by their
+     * {@link com.library.Book#isAvailable()} flag, whether they may be lent, not copies on
+     * loan, which are kept in each title's {@link com.library.inventory.CopyInventory}.
+     */
+    public record GroupStats(long count, long available, double totalPrice) {
+        public long checkedOut() {
+            return count - available;
+        }
+
+        public double averagePrice() {
+            return count == 0 ? 0 : totalPrice / count;
+        }
+    }
+
+    private final GroupStats total;
+    private final double minPrice;
+    private final double maxPrice;
+    private final Map<String, GroupStats> genres;
+    private final Map<String, GroupStats> authors;
+    private final Map<Integer, GroupStats> decades;
+
+    LibraryStatistics(GroupStats total, double minPrice, double maxPrice, Map<String, GroupStats> genres,
+                      Map<String, GroupStats> authors, Map<Integer, GroupStats> decades) {
+        this.total = total;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.genres = Collections.unmodifiableMap(genres);
+        this.authors = Collections.unmodifiableMap(authors);
+        this.decades = Collections.unmodifiableMap(new TreeMap<>(decades));
+    }
+
+    public long getTotalBooks() { return total.count(); }
+    public long getAvailableBooks() { return total.available(); }
+    public long getCheckedOutBooks() { return total.checkedOut(); }
+    public double getTotalPrice() { return total.totalPrice(); }
+    public double getAveragePrice() { return total.averagePrice(); }
+    public double getMinPrice() { return minPrice; }
+    public double getMaxPrice() { return maxPrice; }
+    public Map<String, GroupStats> getGenres() { return genres; }
+    public Map<String, GroupStats> getAuthors() { return authors; }
+
+    /**
+     * Groups keyed by the first year of the decade (1990 covers 1990-1999), in ascending order.
+     */
+    public Map<Integer, GroupStats> getDecades() { return decades; }
+
+    /**
+     * The {@code limit} largest groups, by book count and then by name.
+     */
+    public static <K extends Comparable<K>> List<Map.Entry<K, GroupStats>> top(Map<K, GroupStats> groups, int limit) {
+        PriorityQueue<Map.Entry<K, GroupStats>> heap = new PriorityQueue<>(LibraryStatistics.<K>byCountDesc().reversed());
+        for (Map.Entry<K, GroupStats> entry : groups.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<K, GroupStats>> result = new ArrayList<>(heap);
+        result.sort(byCountDesc());
+        return result;
+    }
+
+    private static <K extends Comparable<K>> Comparator<Map.Entry<K, GroupStats>> byCountDesc() {
+        return Comparator.<Map.Entry<K, GroupStats>>comparingLong(e -> -e.getValue().count())
+                .thenComparing(Map.Entry::getKey);
+    }
+}
@@ -0,0 +1,144 @@
+package com.library.stats;
+
+import com.library.Book;
+import com.library.index.BookIndex;
+import com.library.index.ParallelScan;
+import java.util.*;
+
+/**
+ * Running aggregates over the catalog, kept up to date on every add, update and delete
+ * so that statistics never rescan the books.
+ * <p>
+ * Prices are accumulated in whole cents (book prices are validated to two decimals),
+ * which keeps the sums exact however many adds and removes cancel out. Minimum and
+ * maximum price come from a price histogram, so deleting the cheapest book costs
+ * O(log distinct prices) instead of a rescan. An initial build of a large catalog
+ * aggregates segments in parallel and merges them. Not thread-safe: callers serialize
+ * mutations and snapshots.
+ */
+public class StatisticsAggregator implements BookIndex {
+    private final Group total = new Group();
+    private final NavigableMap<Long, Integer> priceHistogram = new TreeMap<>();
+    private final Map<String, Group> genres = new HashMap<>();
+    private final Map<String, Group> authors = new HashMap<>();
+    private final Map<Integer, Group> decades = new HashMap<>();
+
+    @Override
+    public void add(Book book) {
+        long cents = cents(book.getPrice());
+        boolean available = book.isAvailable();
+        total.add(cents, available);
+        priceHistogram.merge(cents, 1, Integer::sum);
+        genres.computeIfAbsent(book.getGenre(), g -> new Group()).add(cents, available);
+        authors.computeIfAbsent(book.getAuthor(), a -> new Group()).add(cents, available);
+        decades.computeIfAbsent(decade(book.getYear()), d -> new Group()).add(cents, available);
+    }
+
+    @Override
+    public void addAll(List<Book> books, ParallelScan scan) {
+        merge(scan.aggregate(0, books.size(), StatisticsAggregator::new, (part, i) -> part.add(books.get(i)),
+                StatisticsAggregator::merge));
+    }
+
+    @Override
+    public void remove(Book book) {
+        long cents = cents(book.getPrice());
+        boolean available = book.isAvailable();
+        total.remove(cents, available);
+        priceHistogram.computeIfPresent(cents, (price, count) -> count == 1 ? null : count - 1);
+        removeFrom(genres, book.getGenre(), cents, available);
+        removeFrom(authors, book.getAuthor(), cents, available);
+        removeFrom(decades, decade(book.getYear()), cents, available);
+    }
+
+    @Override
+    public void update(Book oldBook, Book newBook) {
+        remove(oldBook);
+        add(newBook);
+    }
+
+    /**
+     * Adds another aggregator's counts to this one.
+     *
+     * @return this aggregator
+     */
+    public StatisticsAggregator merge(StatisticsAggregator other) {
+        total.merge(other.total);
+        other.priceHistogram.forEach((cents, count) -> priceHistogram.merge(cents, count, Integer::sum));
+        mergeGroups(genres, other.genres);
+        mergeGroups(authors, other.authors);
+        mergeGroups(decades, other.decades);
+        return this;
+    }
+
+    /**
+     * Copies the aggregates into an immutable snapshot; O(number of groups).
+     */
+    public LibraryStatistics snapshot() {
+        return new LibraryStatistics(total.toStats(),
+                priceHistogram.isEmpty() ? 0 : priceHistogram.firstKey() / 100.0,
+                priceHistogram.isEmpty() ? 0 : priceHistogram.lastKey() / 100.0,
+                copy(genres), copy(authors), copy(decades));
+    }
+
+    public static int decade(int year) {
+        return Math.floorDiv(year, 10) * 10;
+    }
+
+    private static long cents(double price) {
+        return Math.round(price * 100);
+    }
+
+    private static <K> void removeFrom(Map<K, Group> groups, K key, long cents, boolean available) {
+        Group group = groups.get(key);
+        if (group == null) {
+            throw new IllegalStateException("Book was not aggregated: " + key);
+        }
+        group.remove(cents, available);
+        if (group.count == 0) {
+            groups.remove(key);
+        }
+    }
+
+    private static <K> void mergeGroups(Map<K, Group> target, Map<K, Group> source) {
+        source.forEach((key, group) -> target.computeIfAbsent(key, k -> new Group()).merge(group));
+    }
+
+    private static <K> Map<K, LibraryStatistics.GroupStats> copy(Map<K, Group> groups) {
+        Map<K, LibraryStatistics.GroupStats> result = new HashMap<>(groups.size() * 4 / 3 + 1);
+        groups.forEach((key, group) -> result.put(key, group.toStats()));
+        return result;
+    }
+
+    private static final class Group {
+        long count;
+        long available;
+        long priceCents;
+
+        void add(long cents, boolean isAvailable) {
+            count++;
+            priceCents += cents;
+            if (isAvailable) {
+                available++;
+            }
+        }
+
+        void remove(long cents, boolean isAvailable) {
+            count--;
+            priceCents -= cents;
+            if (isAvailable) {
+                available--;
+            }
+        }
+
+        void merge(Group other) {
+            count += other.count;
+            available += other.available;
+            priceCents += other.priceCents;
+        }
+
+        LibraryStatistics.GroupStats toStats() {
+            return new LibraryStatistics.GroupStats(count, available, priceCents / 100.0);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.library.storage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Replace-by-rename helpers so readers never observe a half-written data file.
+ * <p>
+ * A rename alone only survives a process crash: after power loss the new name can point
+ * at data that never reached the device, or the rename itself can be lost. Writing the
+ * temp file with {@link #create(Path, boolean)} and replacing with
+ * {@link #replace(Path, Path, boolean)}, both with {@code sync}, forces the data before
+ * the rename and the directory entry after it.
+ */
+public final class AtomicFile {
+    private AtomicFile() {
+    }
+
+    public static Path tempFor(Path target) {
+        Path absolute = target.toAbsolutePath();
+        return absolute.resolveSibling(absolute.getFileName() + ".tmp");
+    }
+
+    /**
+     * Opens {@code temp} for writing, truncating it. With {@code sync}, closing the stream
+     * forces its contents to the storage device.
+     */
+    public static OutputStream create(Path temp, boolean sync) throws IOException {
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream out = Channels.newOutputStream(channel);
+        if (!sync) {
+            return out;
+        }
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    channel.force(true);
+                } finally {
+                    out.close();
+                }
+            }
+        };
+    }
+
+    public static void replace(Path source, Path target) throws IOException {
+        replace(source, target, false);
+    }
+
+    /**
+     * Renames {@code source} over {@code target}; with {@code sync}, then forces the
+     * directory holding them so the rename itself is durable.
+     */
+    public static void replace(Path source, Path target, boolean sync) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (sync) {
+            syncDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Some platforms (Windows) cannot open a directory; their renames are
+            // journaled by the file system
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+}
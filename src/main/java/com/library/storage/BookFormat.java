@@ -0,0 +1,144 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Versioned binary encoding of {@link Book} records.
+ * <pre>
+ * file    := header record* trailer [dict index footer]
+ * header  := magic "LIBB" | version u16 | flags u16
+ * record  := 0x01 | id str | title str | author ref | year i32 | price f64 | genre ref | available u8
+ * ref     := varint 0 | str            first occurrence: defines the next dictionary code
+ *          | varint code + 1           every later occurrence
+ * trailer := 0x00 | count i64 | crc32 i32 (over all records and the 0x00 tag)
+ * str     := length u16 | UTF-8 bytes
+ * dict    := offset i64 * codes, the position of each code's defining str
+ * index   := record offset i64 * count, ordered by book ID     (flag {@link #FLAG_ID_INDEX})
+ * footer  := dict start i64 | index start i64 | magic "LIDX"
+ * </pre>
+ * Authors and genres share one dictionary, so each distinct value is stored once per
+ * file; a streaming reader learns codes from their definitions, random access resolves
+ * them through the dict offsets. Version 1 files, still readable, store author and genre
+ * as plain strs and have no dict section or dict start. Journal records ({@link #writeBook})
+ * stand alone and always use the version 1 record layout.
+ * <p>
+ * All numbers are big-endian. Readers reject files with an unknown version instead of
+ * guessing, and the trailer checksum catches truncated or damaged files.
+ */
+public final class BookFormat {
+    public static final int MAGIC = 0x4C494242; // "LIBB"
+    public static final int VERSION = 2;
+    static final int VERSION_PLAIN_STRINGS = 1;
+    public static final int FLAG_ID_INDEX = 1;
+    static final int INDEX_MAGIC = 0x4C494458; // "LIDX"
+    static final int HEADER_SIZE = 8;
+    static final int FOOTER_SIZE = 20;
+    static final int FOOTER_SIZE_V1 = 12;
+    static final int RECORD_TAG = 1;
+    static final int END_TAG = 0;
+    // First two bytes of any java.io serialization stream
+    static final int SERIALIZATION_MAGIC = 0xACED;
+
+    private BookFormat() {
+    }
+
+    public static void writeBook(DataOutput out, Book book) throws IOException {
+        writeString(out, book.getId());
+        writeString(out, book.getTitle());
+        writeString(out, book.getAuthor());
+        out.writeInt(book.getYear());
+        out.writeDouble(book.getPrice());
+        writeString(out, book.getGenre());
+        out.writeByte(book.isAvailable() ? 1 : 0);
+    }
+
+    public static Book readBook(DataInput in) throws IOException {
+        String id = readString(in);
+        String title = readString(in);
+        String author = readString(in);
+        int year = in.readInt();
+        double price = in.readDouble();
+        String genre = readString(in);
+        boolean available = in.readByte() != 0;
+        // Records are only ever written from validated books and are checksummed
+        return Book.trusted(id, title, author, year, price, genre, available);
+    }
+
+    /**
+     * {@code holding := id str | copies varint | (0x00 | 0x01 location str) * copies},
+     * 0x00 marking a withdrawn copy.
+     */
+    public static void writeHolding(DataOutput out, Holding holding) throws IOException {
+        writeString(out, holding.bookId());
+        writeVarInt(out, holding.locations().size());
+        for (String location : holding.locations()) {
+            if (location == null) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1);
+                writeString(out, location);
+            }
+        }
+    }
+
+    public static Holding readHolding(DataInput in) throws IOException {
+        String id = readString(in);
+        int copies = readVarInt(in);
+        String[] locations = new String[copies];
+        for (int i = 0; i < copies; i++) {
+            locations[i] = in.readByte() == 0 ? null : readString(in);
+        }
+        return new Holding(id, Arrays.asList(locations));
+    }
+
+    static boolean isSupported(int version) {
+        return version == VERSION || version == VERSION_PLAIN_STRINGS;
+    }
+
+    /**
+     * Checks whether a file holds the legacy {@code ObjectOutputStream} format.
+     */
+    public static boolean isJavaSerialized(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return file.length() >= 2 && in.readUnsignedShort() == SERIALIZATION_MAGIC;
+        }
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt data file: varint too long");
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for record: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Streams books out of the {@link BookFormat} binary format without
+ * materializing the whole catalog.
+ */
+public class BookReader implements Closeable {
+    private final InputStream source;
+    private final CRC32 crc = new CRC32();
+    private final DataInputStream records;
+    private final int version;
+    private final int flags;
+    private final StringDictionary pool;
+    // Author/genre values by dictionary code, as defined so far
+    private final List<String> dictionary = new ArrayList<>();
+    private long count;
+    private boolean finished;
+
+    public BookReader(InputStream in) throws IOException {
+        this(in, null);
+    }
+
+    /**
+     * @param pool if not {@code null}, authors and genres are interned into it, so books
+     *             loaded from different files or journals share their strings
+     */
+    public BookReader(InputStream in, StringDictionary pool) throws IOException {
+        this.source = new BufferedInputStream(in, 1 << 16);
+        this.pool = pool;
+        DataInputStream header = new DataInputStream(source);
+        if (header.readInt() != BookFormat.MAGIC) {
+            throw new IOException("Not a library data file");
+        }
+        this.version = header.readUnsignedShort();
+        if (!BookFormat.isSupported(version)) {
+            throw new IOException("Unsupported data file version: " + version);
+        }
+        this.flags = header.readUnsignedShort();
+        this.records = new DataInputStream(new CheckedInputStream(source, crc));
+    }
+
+    /**
+     * @return the next book, or {@code null} after the last one
+     */
+    public Book read() throws IOException {
+        if (finished) {
+            return null;
+        }
+        int tag = records.readUnsignedByte();
+        if (tag == BookFormat.RECORD_TAG) {
+            count++;
+            return version == BookFormat.VERSION_PLAIN_STRINGS ? readPlainBook() : readBook();
+        }
+        if (tag != BookFormat.END_TAG) {
+            throw new IOException("Corrupt data file: unexpected tag " + tag);
+        }
+        finished = true;
+        int actualChecksum = (int) crc.getValue();
+        DataInputStream trailer = new DataInputStream(source);
+        long expectedCount = trailer.readLong();
+        if (expectedCount != count) {
+            throw new IOException("Corrupt data file: expected " + expectedCount + " books, read " + count);
+        }
+        if (trailer.readInt() != actualChecksum) {
+            throw new IOException("Corrupt data file: checksum mismatch");
+        }
+        if ((flags & BookFormat.FLAG_ID_INDEX) != 0) {
+            // A missing or cut-off index means the file was truncated
+            boolean plain = version == BookFormat.VERSION_PLAIN_STRINGS;
+            trailer.skipNBytes(plain ? count * 8 + 8 : (dictionary.size() + count) * 8 + 16);
+            if (trailer.readInt() != BookFormat.INDEX_MAGIC) {
+                throw new IOException("Corrupt data file: bad ID index footer");
+            }
+        }
+        return null;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+    }
+
+    private Book readBook() throws IOException {
+        String id = BookFormat.readString(records);
+        String title = BookFormat.readString(records);
+        String author = readRef();
+        int year = records.readInt();
+        double price = records.readDouble();
+        String genre = readRef();
+        boolean available = records.readByte() != 0;
+        // Records are only ever written from validated books and are checksummed
+        return Book.trusted(id, title, author, year, price, genre, available);
+    }
+
+    private Book readPlainBook() throws IOException {
+        Book book = BookFormat.readBook(records);
+        if (pool == null) {
+            return book;
+        }
+        return Book.trusted(book.getId(), book.getTitle(), pool.intern(book.getAuthor()), book.getYear(),
+                book.getPrice(), pool.intern(book.getGenre()), book.isAvailable());
+    }
+
+    private String readRef() throws IOException {
+        int ref = BookFormat.readVarInt(records);
+        if (ref == 0) {
+            String value = BookFormat.readString(records);
+            dictionary.add(pool == null ? value : pool.intern(value));
+            return dictionary.get(dictionary.size() - 1);
+        }
+        if (ref > dictionary.size()) {
+            throw new IOException("Corrupt data file: undefined dictionary code " + (ref - 1));
+        }
+        return dictionary.get(ref - 1);
+    }
+}
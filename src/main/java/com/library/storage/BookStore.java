@@ -0,0 +1,56 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Primary storage of a library's books, keyed by ID and iterated in insertion order.
+ * <p>
+ * {@link #get} and {@link #contains} must be safe to call without locking while one
+ * writer mutates the store. Mutations, loading and iteration are serialized by the
+ * owning {@link com.library.Library}.
+ */
+public interface BookStore extends Iterable<Book>, Closeable {
+    /**
+     * Loads the snapshot written by {@link BookWriter}.
+     */
+    void load(Path file) throws IOException;
+
+    /**
+     * Called after a new snapshot has replaced {@code file} and the journal was cut back to
+     * the changes made since the snapshot was taken. Those changes are still in the store,
+     * but not in the file.
+     *
+     * @param changedSince IDs added, updated or deleted since the snapshot was taken
+     * @param deletedSince the IDs of those that were deleted, whether or not added back since
+     */
+    default void snapshotSaved(Path file, Set<String> changedSince, Set<String> deletedSince) throws IOException {
+    }
+
+    Book get(String id);
+
+    default boolean contains(String id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Inserts or replaces a book.
+     *
+     * @return the replaced version, or {@code null} for a new ID
+     */
+    Book put(Book book);
+
+    /**
+     * @return the removed book, or {@code null} if there was none
+     */
+    Book remove(String id);
+
+    int size();
+
+    @Override
+    default void close() throws IOException {
+    }
+}
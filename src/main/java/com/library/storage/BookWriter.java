@@ -0,0 +1,119 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Streams books into the {@link BookFormat} binary format.
+ * The trailer, the dictionary offsets and the ID index used by {@link MappedCatalog}
+ * are written by {@link #close()}; a file without the trailer is rejected on read.
+ */
+public class BookWriter implements Closeable {
+    private final OutputStream target;
+    private final CRC32 crc = new CRC32();
+    private final CountingOutputStream position;
+    private final DataOutputStream records;
+    private final List<IndexEntry> index = new ArrayList<>();
+    // Dictionary code of each author/genre value written so far, and where it was defined
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<Long> definitions = new ArrayList<>();
+    private long count;
+    private boolean closed;
+
+    public BookWriter(OutputStream out) throws IOException {
+        this.target = new BufferedOutputStream(out, 1 << 16);
+        DataOutputStream header = new DataOutputStream(target);
+        header.writeInt(BookFormat.MAGIC);
+        header.writeShort(BookFormat.VERSION);
+        header.writeShort(BookFormat.FLAG_ID_INDEX);
+        this.position = new CountingOutputStream(target, BookFormat.HEADER_SIZE);
+        this.records = new DataOutputStream(new CheckedOutputStream(position, crc));
+    }
+
+    public void write(Book book) throws IOException {
+        index.add(new IndexEntry(book.getId(), position.count));
+        records.writeByte(BookFormat.RECORD_TAG);
+        BookFormat.writeString(records, book.getId());
+        BookFormat.writeString(records, book.getTitle());
+        writeRef(book.getAuthor());
+        records.writeInt(book.getYear());
+        records.writeDouble(book.getPrice());
+        writeRef(book.getGenre());
+        records.writeByte(book.isAvailable() ? 1 : 0);
+        count++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        records.writeByte(BookFormat.END_TAG);
+        records.flush();
+        DataOutputStream trailer = new DataOutputStream(position);
+        trailer.writeLong(count);
+        trailer.writeInt((int) crc.getValue());
+
+        long dictStart = position.count;
+        for (long offset : definitions) {
+            trailer.writeLong(offset);
+        }
+        long indexStart = position.count;
+        index.sort(Comparator.comparing(IndexEntry::id));
+        for (IndexEntry entry : index) {
+            trailer.writeLong(entry.offset());
+        }
+        trailer.writeLong(dictStart);
+        trailer.writeLong(indexStart);
+        trailer.writeInt(BookFormat.INDEX_MAGIC);
+        trailer.close();
+    }
+
+    private void writeRef(String value) throws IOException {
+        Integer code = codes.get(value);
+        if (code != null) {
+            BookFormat.writeVarInt(records, code + 1);
+            return;
+        }
+        codes.put(value, definitions.size());
+        records.writeByte(0);
+        definitions.add(position.count);
+        BookFormat.writeString(records, value);
+    }
+
+    private record IndexEntry(String id, long offset) {
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out, long initial) {
+            super(out);
+            this.count = initial;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Keeps the catalog as columns instead of one object per book: primitive arrays for
+ * year, price and availability, dictionary codes for author and genre, and all titles
+ * packed into one UTF-8 byte array. Each book costs a few array slots plus its ID, and
+ * a scan over one field walks a single contiguous array.
+ * <p>
+ * Rows stay in insertion order; an update rewrites its row in place and a delete leaves
+ * a hole until enough holes (or stale title bytes) accumulate to repack the columns.
+ * IDs map to rows through an open-addressing table of row numbers.
+ * <p>
+ * {@link Book} instances are built only when a row is read and are not retained.
+ * Lock-free {@link #get} uses an optimistic {@link StampedLock} read and retries under
+ * the read lock if a writer interfered.
+ */
+public class ColumnarBookStore implements BookStore {
+    private static final int MIN_COMPACT_DEAD = 1024;
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+
+    private final StampedLock stamp = new StampedLock();
+    // Authors and genres share one code space, and with the owning library one set of strings
+    private final StringDictionary strings;
+
+    // Row columns; ids[row] == null marks a deleted row
+    private String[] ids = new String[16];
+    private int[] titleStart = new int[16];
+    private int[] titleLength = new int[16];
+    private int[] years = new int[16];
+    private double[] prices = new double[16];
+    private int[] authorCodes = new int[16];
+    private int[] genreCodes = new int[16];
+    private long[] availableBits = new long[1];
+    private byte[] titleBytes = new byte[256];
+    private int titleUsed;
+    private int titleGarbage;
+    private int rows;
+    private int size;
+
+    // Open addressing over IDs: row + 1, EMPTY or DELETED
+    private int[] table = new int[32];
+    private int tableUsed;
+
+    public ColumnarBookStore() {
+        this(new StringDictionary());
+    }
+
+    public ColumnarBookStore(StringDictionary strings) {
+        this.strings = strings;
+    }
+
+    @Override
+    public void load(Path file) throws IOException {
+        try (BookReader reader = new BookReader(Files.newInputStream(file))) {
+            for (Book book = reader.read(); book != null; book = reader.read()) {
+                put(book);
+            }
+        }
+    }
+
+    @Override
+    public Book get(String id) {
+        if (id == null) {
+            return null;
+        }
+        long optimistic = stamp.tryOptimisticRead();
+        if (optimistic != 0) {
+            try {
+                int row = find(id);
+                Book book = row < 0 ? null : book(row);
+                if (stamp.validate(optimistic)) {
+                    return book;
+                }
+            } catch (RuntimeException e) {
+                // Read torn by a concurrent writer; retry under the lock
+            }
+        }
+        long read = stamp.readLock();
+        try {
+            int row = find(id);
+            return row < 0 ? null : book(row);
+        } finally {
+            stamp.unlockRead(read);
+        }
+    }
+
+    @Override
+    public boolean contains(String id) {
+        if (id == null) {
+            return false;
+        }
+        long optimistic = stamp.tryOptimisticRead();
+        if (optimistic != 0) {
+            try {
+                boolean found = find(id) >= 0;
+                if (stamp.validate(optimistic)) {
+                    return found;
+                }
+            } catch (RuntimeException e) {
+                // Read torn by a concurrent writer; retry under the lock
+            }
+        }
+        long read = stamp.readLock();
+        try {
+            return find(id) >= 0;
+        } finally {
+            stamp.unlockRead(read);
+        }
+    }
+
+    @Override
+    public Book put(Book book) {
+        long write = stamp.writeLock();
+        try {
+            int row = find(book.getId());
+            Book previous = null;
+            if (row >= 0) {
+                previous = book(row);
+                titleGarbage += titleLength[row];
+            } else {
+                row = rows++;
+                ensureCapacity(rows);
+                // Into the table first: a rehash inside insert() must not see the row yet
+                insert(book.getId(), row);
+                ids[row] = book.getId();
+                size++;
+            }
+            writeRow(row, book);
+            return previous;
+        } finally {
+            stamp.unlockWrite(write);
+        }
+    }
+
+    @Override
+    public Book remove(String id) {
+        if (id == null) {
+            return null;
+        }
+        long write = stamp.writeLock();
+        try {
+            int row = find(id);
+            if (row < 0) {
+                return null;
+            }
+            Book previous = book(row);
+            delete(id);
+            ids[row] = null;
+            titleGarbage += titleLength[row];
+            size--;
+            int dead = rows - size;
+            if ((dead >= MIN_COMPACT_DEAD && dead > size) || titleGarbage > Math.max(titleUsed / 2, 1 << 16)) {
+                compact();
+            }
+            return previous;
+        } finally {
+            stamp.unlockWrite(write);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Book> iterator() {
+        return new Iterator<>() {
+            private int row = nextLive(0);
+
+            @Override
+            public boolean hasNext() {
+                return row < rows;
+            }
+
+            @Override
+            public Book next() {
+                if (row >= rows) {
+                    throw new NoSuchElementException();
+                }
+                Book book = book(row);
+                row = nextLive(row + 1);
+                return book;
+            }
+        };
+    }
+
+    // Column access for scans that should not build Book objects. Like iteration, these
+    // must not race a writer: call them under the owning library's read lock.
+
+    /**
+     * Rows in use, including deleted ones; valid rows are {@code 0 .. rowCount() - 1}.
+     */
+    public int rowCount() {
+        return rows;
+    }
+
+    public boolean isLive(int row) {
+        return ids[row] != null;
+    }
+
+    public int year(int row) {
+        return years[row];
+    }
+
+    public double price(int row) {
+        return prices[row];
+    }
+
+    public boolean isAvailable(int row) {
+        return (availableBits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    public String genre(int row) {
+        return strings.decode(genreCodes[row]);
+    }
+
+    public String author(int row) {
+        return strings.decode(authorCodes[row]);
+    }
+
+    /**
+     * Builds the book of a live row.
+     */
+    public Book book(int row) {
+        return Book.trusted(ids[row],
+                new String(titleBytes, titleStart[row], titleLength[row], StandardCharsets.UTF_8),
+                strings.decode(authorCodes[row]), years[row], prices[row],
+                strings.decode(genreCodes[row]), isAvailable(row));
+    }
+
+    private int nextLive(int row) {
+        while (row < rows && ids[row] == null) {
+            row++;
+        }
+        return row;
+    }
+
+    private void writeRow(int row, Book book) {
+        byte[] title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        if (titleUsed + title.length > titleBytes.length) {
+            titleBytes = Arrays.copyOf(titleBytes, Math.max(titleBytes.length * 2, titleUsed + title.length));
+        }
+        System.arraycopy(title, 0, titleBytes, titleUsed, title.length);
+        titleStart[row] = titleUsed;
+        titleLength[row] = title.length;
+        titleUsed += title.length;
+        years[row] = book.getYear();
+        prices[row] = book.getPrice();
+        authorCodes[row] = strings.encode(book.getAuthor());
+        genreCodes[row] = strings.encode(book.getGenre());
+        if (book.isAvailable()) {
+            availableBits[row >>> 6] |= 1L << row;
+        } else {
+            availableBits[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int length = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, length);
+        titleStart = Arrays.copyOf(titleStart, length);
+        titleLength = Arrays.copyOf(titleLength, length);
+        years = Arrays.copyOf(years, length);
+        prices = Arrays.copyOf(prices, length);
+        authorCodes = Arrays.copyOf(authorCodes, length);
+        genreCodes = Arrays.copyOf(genreCodes, length);
+        availableBits = Arrays.copyOf(availableBits, (length + 63) >>> 6);
+    }
+
+    // Drops deleted rows and stale title bytes, keeping the order of the remaining rows
+    private void compact() {
+        byte[] packed = new byte[Math.max(256, titleUsed - titleGarbage)];
+        int used = 0;
+        int live = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] == null) {
+                continue;
+            }
+            System.arraycopy(titleBytes, titleStart[row], packed, used, titleLength[row]);
+            boolean available = isAvailable(row);
+            ids[live] = ids[row];
+            titleStart[live] = used;
+            titleLength[live] = titleLength[row];
+            years[live] = years[row];
+            prices[live] = prices[row];
+            authorCodes[live] = authorCodes[row];
+            genreCodes[live] = genreCodes[row];
+            if (available) {
+                availableBits[live >>> 6] |= 1L << live;
+            } else {
+                availableBits[live >>> 6] &= ~(1L << live);
+            }
+            used += titleLength[row];
+            live++;
+        }
+        Arrays.fill(ids, live, rows, null);
+        titleBytes = packed;
+        titleUsed = used;
+        titleGarbage = 0;
+        rows = live;
+        rehash(table.length);
+    }
+
+    private int find(String id) {
+        int[] slots = table;
+        int mask = slots.length - 1;
+        for (int i = hash(id) & mask; ; i = (i + 1) & mask) {
+            int entry = slots[i];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != DELETED && id.equals(ids[entry - 1])) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insert(String id, int row) {
+        if ((tableUsed + 1) * 4 > table.length * 3) {
+            rehash(size * 4 > table.length ? table.length * 2 : table.length);
+        }
+        int mask = table.length - 1;
+        int i = hash(id) & mask;
+        while (table[i] != EMPTY && table[i] != DELETED) {
+            i = (i + 1) & mask;
+        }
+        if (table[i] == EMPTY) {
+            tableUsed++;
+        }
+        table[i] = row + 1;
+    }
+
+    private void delete(String id) {
+        int mask = table.length - 1;
+        for (int i = hash(id) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] != DELETED && id.equals(ids[table[i] - 1])) {
+                table[i] = DELETED;
+                return;
+            }
+        }
+    }
+
+    // Rebuilds the table from the live rows into a fresh array, then publishes it
+    private void rehash(int length) {
+        int[] fresh = new int[length];
+        int mask = length - 1;
+        int used = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] == null) {
+                continue;
+            }
+            int i = hash(ids[row]) & mask;
+            while (fresh[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            fresh[i] = row + 1;
+            used++;
+        }
+        table = fresh;
+        tableUsed = used;
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every book on the heap: a concurrent hash map for lock-free O(1) lookups and
+ * an insertion-ordered map for iteration. Load time and memory are proportional to
+ * the catalog; loaded authors and genres are interned into the given dictionary.
+ */
+public class HeapBookStore implements BookStore {
+    private final Map<String, Book> byId = new ConcurrentHashMap<>();
+    private final Map<String, Book> ordered = new LinkedHashMap<>();
+    private final StringDictionary strings;
+
+    public HeapBookStore() {
+        this(new StringDictionary());
+    }
+
+    public HeapBookStore(StringDictionary strings) {
+        this.strings = strings;
+    }
+
+    @Override
+    public void load(Path file) throws IOException {
+        try (BookReader reader = new BookReader(Files.newInputStream(file), strings)) {
+            for (Book book = reader.read(); book != null; book = reader.read()) {
+                put(book);
+            }
+        }
+    }
+
+    @Override
+    public Book get(String id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return id != null && byId.containsKey(id);
+    }
+
+    @Override
+    public Book put(Book book) {
+        ordered.put(book.getId(), book);
+        return byId.put(book.getId(), book);
+    }
+
+    @Override
+    public Book remove(String id) {
+        if (id == null) {
+            return null;
+        }
+        ordered.remove(id);
+        return byId.remove(id);
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public Iterator<Book> iterator() {
+        return Collections.unmodifiableCollection(ordered.values()).iterator();
+    }
+}
@@ -0,0 +1,11 @@
+package com.library.storage;
+
+import java.util.List;
+
+/**
+ * The copies a library holds of one title, as persisted: the location of each copy by
+ * copy number, {@code null} for a withdrawn copy and {@code ""} for a copy with no
+ * location assigned.
+ */
+public record Holding(String bookId, List<String> locations) {
+}
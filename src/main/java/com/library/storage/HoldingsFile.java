@@ -0,0 +1,92 @@
+package com.library.storage;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot of the copies held per title, saved next to the book snapshot.
+ * <pre>
+ * file    := magic "LIBH" | version u16 | (0x01 holding)* | trailer
+ * trailer := 0x00 | count i64 | crc32 i32 (over all holdings and the 0x00 tag)
+ * </pre>
+ * with {@code holding} as written by {@link BookFormat#writeHolding}. Titles with just
+ * their one implicit copy are not written.
+ */
+public final class HoldingsFile {
+    public static final int MAGIC = 0x4C494248; // "LIBH"
+    public static final int VERSION = 1;
+
+    private HoldingsFile() {
+    }
+
+    /**
+     * @return holdings written
+     */
+    public static long write(Path file, Iterable<Holding> holdings) throws IOException {
+        return write(file, holdings, false);
+    }
+
+    /**
+     * As {@link #write(Path, Iterable)}, forcing the file to the storage device if
+     * {@code sync} is set.
+     *
+     * @return holdings written
+     */
+    public static long write(Path file, Iterable<Holding> holdings, boolean sync) throws IOException {
+        CRC32 crc = new CRC32();
+        long count = 0;
+        try (OutputStream target = new BufferedOutputStream(AtomicFile.create(file, sync), 1 << 16)) {
+            DataOutputStream header = new DataOutputStream(target);
+            header.writeInt(MAGIC);
+            header.writeShort(VERSION);
+            DataOutputStream records = new DataOutputStream(new CheckedOutputStream(target, crc));
+            for (Holding holding : holdings) {
+                records.writeByte(BookFormat.RECORD_TAG);
+                BookFormat.writeHolding(records, holding);
+                count++;
+            }
+            records.writeByte(BookFormat.END_TAG);
+            records.flush();
+            header.writeLong(count);
+            header.writeInt((int) crc.getValue());
+        }
+        return count;
+    }
+
+    /**
+     * @return holdings read
+     */
+    public static long read(Path file, Consumer<Holding> holdings) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream source = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream header = new DataInputStream(source);
+            if (header.readInt() != MAGIC) {
+                throw new IOException("Not a library holdings file");
+            }
+            int version = header.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported holdings file version: " + version);
+            }
+            DataInputStream records = new DataInputStream(new CheckedInputStream(source, crc));
+            long count = 0;
+            int tag;
+            while ((tag = records.readUnsignedByte()) == BookFormat.RECORD_TAG) {
+                holdings.accept(BookFormat.readHolding(records));
+                count++;
+            }
+            if (tag != BookFormat.END_TAG) {
+                throw new IOException("Corrupt holdings file: unexpected tag " + tag);
+            }
+            int actualChecksum = (int) crc.getValue();
+            if (header.readLong() != count || header.readInt() != actualChecksum) {
+                throw new IOException("Corrupt holdings file: count or checksum mismatch");
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of catalog mutations.
+ * <p>
+ * Each record is framed as {@code [length][crc32][payload]} so a record torn by a
+ * crash is detected on replay and cut off. Adds and updates carry the full book, and a
+ * change to the copies of a title carries every copy of it, which makes replay
+ * idempotent: replaying a journal over a snapshot that already contains some of its
+ * changes yields the same catalog. A batch of changes is one record, so a crash keeps
+ * either all of it or none.
+ */
+public class Journal implements Closeable {
+    private static final Logger logger = Logger.getLogger(Journal.class.getName());
+    private static final int HEADER_SIZE = 8;
+
+    public enum Op {
+        ADD, UPDATE, DELETE, COPIES, BATCH
+    }
+
+    /**
+     * Position of the journal when a snapshot was taken; see {@link #truncateBefore}.
+     */
+    public record Mark(long offset, int records) {
+    }
+
+    private final Path path;
+    private final boolean sync;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    // Read without the owner's lock by autosave, to see whether there is anything to save
+    private volatile int records;
+
+    public Journal(Path path, boolean sync) {
+        this.path = path;
+        this.sync = sync;
+    }
+
+    /**
+     * Replays the book records, skipping copy records; see {@link #replay(Consumer, Consumer, Consumer)}.
+     */
+    public int replay(Consumer<Book> put, Consumer<String> delete) throws IOException {
+        return replay(put, delete, holding -> { });
+    }
+
+    /**
+     * Replays all intact records and opens the journal for appending.
+     * A torn or corrupt tail is truncated so new records follow the last good one, and so
+     * is a record that passes its checksum but cannot be applied, with everything after
+     * it. If the file cannot be read at all the journal is left closed, so appends fail
+     * rather than overwrite records that were not replayed.
+     *
+     * @return number of records replayed
+     */
+    public int replay(Consumer<Book> put, Consumer<String> delete, Consumer<Holding> copies) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long validEnd = 0;
+        records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                long checksum = in.readInt() & 0xFFFFFFFFL;
+                if (length <= 0 || length > channel.size()) {
+                    logger.warning("Corrupt journal record at offset " + validEnd + ", truncating");
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if (crc.getValue() != checksum) {
+                    logger.warning("Journal checksum mismatch at offset " + validEnd + ", truncating");
+                    break;
+                }
+                try {
+                    records += apply(payload, put, delete, copies);
+                } catch (IOException e) {
+                    logger.warning("Unreadable journal record at offset " + validEnd + " (" + e.getMessage()
+                            + "), truncating");
+                    break;
+                }
+                validEnd += HEADER_SIZE + length;
+            }
+        } catch (EOFException e) {
+            logger.warning("Torn journal record at offset " + validEnd + ", truncating");
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            channel = null;
+            throw e;
+        }
+        if (channel.size() > validEnd) {
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+        return records;
+    }
+
+    /**
+     * @return bytes written
+     */
+    public int append(Op op, Book book) throws IOException {
+        return appendAll(op, List.of(book));
+    }
+
+    /**
+     * Appends one record per book with a single write (and a single force when syncing).
+     *
+     * @return bytes written
+     */
+    public int appendAll(Op op, List<Book> books) throws IOException {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(books.size() * 128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        for (Book book : books) {
+            buffer.reset();
+            out.writeByte(op.ordinal());
+            BookFormat.writeBook(out, book);
+            frame(batch);
+        }
+        return write(batch, books.size());
+    }
+
+    /**
+     * @return bytes written
+     */
+    public int appendDelete(String id) throws IOException {
+        buffer.reset();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(Op.DELETE.ordinal());
+        out.writeUTF(id);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(HEADER_SIZE + buffer.size());
+        frame(record);
+        return write(record, 1);
+    }
+
+    /**
+     * @return bytes written
+     */
+    public int appendHolding(Holding holding) throws IOException {
+        buffer.reset();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(Op.COPIES.ordinal());
+        BookFormat.writeHolding(out, holding);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(HEADER_SIZE + buffer.size());
+        frame(record);
+        return write(record, 1);
+    }
+
+    /**
+     * Appends the deletes and then the puts as a single record, replayed whole or not at
+     * all. It counts as one record per change towards {@link #size()}.
+     *
+     * @return bytes written
+     */
+    public int appendBatch(List<String> deletes, List<Book> puts) throws IOException {
+        buffer.reset();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(Op.BATCH.ordinal());
+        out.writeInt(deletes.size());
+        for (String id : deletes) {
+            out.writeUTF(id);
+        }
+        out.writeInt(puts.size());
+        for (Book book : puts) {
+            BookFormat.writeBook(out, book);
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream(HEADER_SIZE + buffer.size());
+        frame(record);
+        return write(record, deletes.size() + puts.size());
+    }
+
+    /**
+     * Drops all records once their effect is captured by a snapshot.
+     */
+    public void reset() throws IOException {
+        ensureOpen();
+        channel.truncate(0);
+        channel.position(0);
+        if (sync) {
+            channel.force(true);
+        }
+        records = 0;
+    }
+
+    public Mark mark() throws IOException {
+        ensureOpen();
+        return new Mark(channel.position(), records);
+    }
+
+    /**
+     * Drops the records written before the mark, once a snapshot taken at the mark has
+     * replaced the data file. Records appended since are kept, moved to the start of a new
+     * journal that atomically replaces this one, and passed to the callbacks in order.
+     */
+    public void truncateBefore(Mark mark, Consumer<Book> put, Consumer<String> delete) throws IOException {
+        truncateBefore(mark, put, delete, holding -> { });
+    }
+
+    /**
+     * As {@link #truncateBefore(Mark, Consumer, Consumer)}, passing the kept copy records too.
+     */
+    public void truncateBefore(Mark mark, Consumer<Book> put, Consumer<String> delete, Consumer<Holding> copies)
+            throws IOException {
+        ensureOpen();
+        long end = channel.size();
+        if (mark.offset() >= end) {
+            reset();
+            return;
+        }
+        ByteBuffer tail = ByteBuffer.allocate(Math.toIntExact(end - mark.offset()));
+        while (tail.hasRemaining()) {
+            if (channel.read(tail, mark.offset() + tail.position()) < 0) {
+                throw new EOFException("Journal shorter than its mark: " + path);
+            }
+        }
+        tail.flip();
+        Path temp = AtomicFile.tempFor(path);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (tail.hasRemaining()) {
+                out.write(tail);
+            }
+            if (sync) {
+                out.force(true);
+            }
+        }
+        channel.close();
+        channel = null;
+        AtomicFile.replace(temp, path, sync);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records -= mark.records();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(tail.array()));
+        while (in.available() > 0) {
+            int length = in.readInt();
+            in.readInt();
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            apply(payload, put, delete, copies);
+        }
+    }
+
+    /**
+     * Number of records written since the last snapshot.
+     */
+    public int size() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // Moves the payload in buffer into target as one framed record
+    private void frame(ByteArrayOutputStream target) throws IOException {
+        byte[] payload = buffer.toByteArray();
+        crc.reset();
+        crc.update(payload);
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    private int write(ByteArrayOutputStream framed, int count) throws IOException {
+        ensureOpen();
+        ByteBuffer data = ByteBuffer.wrap(framed.toByteArray());
+        int size = data.remaining();
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        records += count;
+        return size;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("Journal is not open: " + path);
+        }
+    }
+
+    // Returns the number of changes in the record
+    private static int apply(byte[] payload, Consumer<Book> put, Consumer<String> delete, Consumer<Holding> copies)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int op = in.readUnsignedByte();
+        if (op == Op.DELETE.ordinal()) {
+            delete.accept(in.readUTF());
+        } else if (op == Op.ADD.ordinal() || op == Op.UPDATE.ordinal()) {
+            put.accept(BookFormat.readBook(in));
+        } else if (op == Op.COPIES.ordinal()) {
+            copies.accept(BookFormat.readHolding(in));
+        } else if (op == Op.BATCH.ordinal()) {
+            // Decoded whole before any of it is applied, so an unreadable batch changes nothing
+            int deletes = in.readInt();
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < deletes; i++) {
+                ids.add(in.readUTF());
+            }
+            int puts = in.readInt();
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < puts; i++) {
+                books.add(BookFormat.readBook(in));
+            }
+            ids.forEach(delete);
+            books.forEach(put);
+            return deletes + puts;
+        } else {
+            throw new IOException("Unknown journal operation: " + op);
+        }
+        return 1;
+    }
+}
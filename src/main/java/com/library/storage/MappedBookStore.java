@@ -0,0 +1,188 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Serves books straight from a memory-mapped snapshot, decoding them on access.
+ * Changes since the snapshot live in a small heap overlay until the next snapshot
+ * folds them in, so resident memory follows the working set plus recent edits.
+ */
+public class MappedBookStore implements BookStore {
+    private static final Logger logger = Logger.getLogger(MappedBookStore.class.getName());
+
+    private volatile MappedCatalog base;
+    // Books added or updated since the snapshot
+    private final Map<String, Book> overlay = new ConcurrentHashMap<>();
+    // IDs added since the snapshot, in insertion order
+    private final Set<String> added = new LinkedHashSet<>();
+    // Snapshot IDs deleted since the snapshot. A book added back keeps its tombstone, which
+    // hides its old slot, and is iterated with the added ones, as in insertion order.
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private volatile int size;
+
+    @Override
+    public void load(Path file) throws IOException {
+        if (!MappedCatalog.hasIdIndex(file)) {
+            addIdIndex(file);
+        }
+        // Swap in the new mapping before dropping the overlay: the new snapshot already
+        // contains every overlay change, so lock-free readers never see a gap.
+        // The old mapping is left to the garbage collector for readers still using it.
+        MappedCatalog catalog = MappedCatalog.open(file);
+        base = catalog;
+        overlay.clear();
+        added.clear();
+        deleted.clear();
+        size = catalog.size();
+    }
+
+    /**
+     * Maps the new snapshot, keeping overlay entries and tombstones only for books changed
+     * since it was taken. A book deleted since then is tombstoned in the new snapshot too,
+     * and if it was added back it stays with the added books, at the end. Tombstones are
+     * laid before the swap, and overlay entries are dropped only after it, so lock-free
+     * readers see the current version of every book throughout.
+     */
+    @Override
+    public void snapshotSaved(Path file, Set<String> changedSince, Set<String> deletedSince) throws IOException {
+        MappedCatalog catalog = MappedCatalog.open(file);
+        Set<String> tombstones = new HashSet<>();
+        for (String id : changedSince) {
+            if (catalog.contains(id) && (!overlay.containsKey(id) || deletedSince.contains(id))) {
+                tombstones.add(id);
+            }
+        }
+        deleted.addAll(tombstones);
+        base = catalog;
+        overlay.keySet().retainAll(changedSince);
+        deleted.retainAll(tombstones);
+        added.retainAll(changedSince);
+        added.removeIf(id -> catalog.contains(id) && !tombstones.contains(id));
+    }
+
+    @Override
+    public Book get(String id) {
+        if (id == null) {
+            return null;
+        }
+        Book book = overlay.get(id);
+        MappedCatalog snapshot = base;
+        if (book != null || snapshot == null || deleted.contains(id)) {
+            return book;
+        }
+        return snapshot.get(id);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        if (id == null) {
+            return false;
+        }
+        if (overlay.containsKey(id)) {
+            return true;
+        }
+        MappedCatalog snapshot = base;
+        return snapshot != null && !deleted.contains(id) && snapshot.contains(id);
+    }
+
+    // Overlay and tombstones change in an order that never lets a concurrent
+    // lock-free get() fall through to a stale snapshot record.
+    @Override
+    public Book put(Book book) {
+        String id = book.getId();
+        Book previous = get(id);
+        overlay.put(id, book);
+        if (previous == null) {
+            // New, or a snapshot book added back after a delete: either way it goes last
+            added.add(id);
+            size++;
+        }
+        return previous;
+    }
+
+    @Override
+    public Book remove(String id) {
+        Book previous = get(id);
+        if (previous == null) {
+            return null;
+        }
+        boolean inSnapshot = base != null && base.contains(id);
+        if (inSnapshot) {
+            deleted.add(id);
+        }
+        overlay.remove(id);
+        added.remove(id);
+        size--;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Snapshot books first, in file order and with overlay edits applied,
+     * then books added since the snapshot.
+     */
+    @Override
+    public Iterator<Book> iterator() {
+        Iterator<Book> snapshot = base == null ? Collections.emptyIterator() : base.iterator();
+        Iterator<String> newIds = added.iterator();
+        return new Iterator<>() {
+            private Book next = advance();
+
+            private Book advance() {
+                while (snapshot.hasNext()) {
+                    Book book = snapshot.next();
+                    if (!deleted.contains(book.getId())) {
+                        return overlay.getOrDefault(book.getId(), book);
+                    }
+                }
+                return newIds.hasNext() ? overlay.get(newIds.next()) : null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Book next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Book current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (base != null) {
+            base.close();
+            base = null;
+        }
+    }
+
+    // Files written before the ID index existed are rewritten once
+    private static void addIdIndex(Path file) throws IOException {
+        Path temp = AtomicFile.tempFor(file);
+        try (BookReader reader = new BookReader(Files.newInputStream(file));
+             BookWriter writer = new BookWriter(AtomicFile.create(temp, true))) {
+            for (Book book = reader.read(); book != null; book = reader.read()) {
+                writer.write(book);
+            }
+        }
+        AtomicFile.replace(temp, file, true);
+        logger.info("Added ID index to data file: " + file);
+    }
+}
@@ -0,0 +1,263 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only, memory-mapped view of a {@link BookFormat} file that decodes books on access.
+ * <p>
+ * Opening costs a header and footer check regardless of catalog size; the operating
+ * system pages records in as they are touched. Lookups binary-search the ID index
+ * at the end of the file and compare the raw UTF-8 ID bytes, which for the ASCII IDs
+ * {@link Book} allows sorts exactly like {@link String#compareTo}. Authors and genres
+ * are decoded once per dictionary code and shared by every book that refers to them.
+ * Files are limited to 2 GB, the size of a single mapping.
+ */
+public class MappedCatalog implements Closeable {
+    private final Path file;
+    private MappedByteBuffer buffer;
+    private final int indexStart;
+    private final int count;
+    private final int dictStart;
+    // Decoded author/genre values by code, filled on first use; null for version 1 files
+    private final String[] dictionary;
+
+    private MappedCatalog(Path file, MappedByteBuffer buffer, int indexStart, int count, int dictStart,
+                          int codes) {
+        this.file = file;
+        this.buffer = buffer;
+        this.indexStart = indexStart;
+        this.count = count;
+        this.dictStart = dictStart;
+        this.dictionary = dictStart < 0 ? null : new String[codes];
+    }
+
+    public static MappedCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Data file too large to map: " + size + " bytes");
+            }
+            if (size < BookFormat.HEADER_SIZE + BookFormat.FOOTER_SIZE_V1) {
+                throw new IOException("Data file has no ID index: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != BookFormat.MAGIC) {
+                throw new IOException("Not a library data file: " + file);
+            }
+            int version = buffer.getShort(4) & 0xFFFF;
+            if (!BookFormat.isSupported(version)) {
+                throw new IOException("Unsupported data file version: " + version);
+            }
+            boolean plain = version == BookFormat.VERSION_PLAIN_STRINGS;
+            int flags = buffer.getShort(6) & 0xFFFF;
+            int footer = (int) size - (plain ? BookFormat.FOOTER_SIZE_V1 : BookFormat.FOOTER_SIZE);
+            if ((flags & BookFormat.FLAG_ID_INDEX) == 0 || footer < BookFormat.HEADER_SIZE
+                    || buffer.getInt((int) size - 4) != BookFormat.INDEX_MAGIC) {
+                throw new IOException("Data file has no ID index: " + file);
+            }
+            long indexStart = buffer.getLong(footer + (plain ? 0 : 8));
+            long dictStart = plain ? indexStart : buffer.getLong(footer);
+            if (dictStart < BookFormat.HEADER_SIZE + 12 || dictStart > indexStart || indexStart > footer
+                    || (indexStart - dictStart) % 8 != 0) {
+                throw new IOException("Corrupt ID index: " + file);
+            }
+            long count = buffer.getLong((int) dictStart - 12);
+            if (indexStart + count * 8 != footer) {
+                throw new IOException("Corrupt ID index: " + file);
+            }
+            return new MappedCatalog(file, buffer, (int) indexStart, (int) count, plain ? -1 : (int) dictStart,
+                    (int) ((indexStart - dictStart) / 8));
+        }
+    }
+
+    /**
+     * Checks the flags of a data file without mapping it.
+     */
+    public static boolean hasIdIndex(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(BookFormat.HEADER_SIZE);
+            return channel.read(header, 0) == BookFormat.HEADER_SIZE
+                    && header.getInt(0) == BookFormat.MAGIC
+                    && (header.getShort(6) & BookFormat.FLAG_ID_INDEX) != 0;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Book get(String id) {
+        int offset = find(id);
+        return offset < 0 ? null : decode(offset);
+    }
+
+    public boolean contains(String id) {
+        return find(id) >= 0;
+    }
+
+    /**
+     * Iterates books in file order, decoding each one as it is reached.
+     */
+    public Iterator<Book> iterator() {
+        return new Iterator<>() {
+            private int position = BookFormat.HEADER_SIZE;
+
+            @Override
+            public boolean hasNext() {
+                return buffer().get(position) == BookFormat.RECORD_TAG;
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Book book = decode(position);
+                position = skip(position);
+                return book;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // Mappings are released by the garbage collector; drop our reference so it can be.
+        buffer = null;
+    }
+
+    private MappedByteBuffer buffer() {
+        if (buffer == null) {
+            throw new IllegalStateException("Catalog is closed: " + file);
+        }
+        return buffer;
+    }
+
+    private int find(String id) {
+        if (id == null) {
+            return -1;
+        }
+        MappedByteBuffer data = buffer();
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = (int) data.getLong(indexStart + mid * 8);
+            int cmp = compareId(data, offset + 1, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static int compareId(MappedByteBuffer data, int position, byte[] key) {
+        int length = data.getShort(position) & 0xFFFF;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (data.get(position + 2 + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    private Book decode(int offset) {
+        MappedByteBuffer data = buffer();
+        int position = offset + 1;
+        String id = readString(data, position);
+        position = skipString(data, position);
+        String title = readString(data, position);
+        position = skipString(data, position);
+        String author = readValue(data, position);
+        position = skipValue(data, position);
+        int year = data.getInt(position);
+        double price = data.getDouble(position + 4);
+        position += 12;
+        String genre = readValue(data, position);
+        position = skipValue(data, position);
+        boolean available = data.get(position) != 0;
+        return Book.trusted(id, title, author, year, price, genre, available);
+    }
+
+    private int skip(int offset) {
+        MappedByteBuffer data = buffer();
+        int position = offset + 1;
+        position = skipString(data, position);
+        position = skipString(data, position);
+        position = skipValue(data, position);
+        position += 12;
+        return skipValue(data, position) + 1;
+    }
+
+    // Author or genre: a plain str in version 1, a dictionary reference since version 2
+    private String readValue(MappedByteBuffer data, int position) {
+        if (dictionary == null) {
+            return readString(data, position);
+        }
+        int ref = readVarInt(data, position);
+        if (ref == 0) {
+            return readString(data, position + 1);
+        }
+        String value = dictionary[ref - 1];
+        if (value == null) {
+            // Racing decoders may both fill the slot; either equal copy is fine
+            value = readString(data, (int) data.getLong(dictStart + (ref - 1) * 8));
+            dictionary[ref - 1] = value;
+        }
+        return value;
+    }
+
+    private int skipValue(MappedByteBuffer data, int position) {
+        if (dictionary == null) {
+            return skipString(data, position);
+        }
+        if (data.get(position) == 0) {
+            return skipString(data, position + 1);
+        }
+        while ((data.get(position) & 0x80) != 0) {
+            position++;
+        }
+        return position + 1;
+    }
+
+    private static int readVarInt(MappedByteBuffer data, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = data.get(position++);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int skipString(MappedByteBuffer data, int position) {
+        return position + 2 + (data.getShort(position) & 0xFFFF);
+    }
+
+    private static String readString(MappedByteBuffer data, int position) {
+        byte[] bytes = new byte[data.getShort(position) & 0xFFFF];
+        data.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,66 @@
+package com.library.storage;
+
+import com.library.Book;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * One-time conversion of a legacy {@code ObjectOutputStream} data file into {@link BookFormat}.
+ * The original file is kept next to the result with a {@code .bak} suffix.
+ * <p>
+ * Usage: {@code java -cp library-system.jar com.library.storage.SerMigrator library_data.ser}
+ */
+public final class SerMigrator {
+    private static final Logger logger = Logger.getLogger(SerMigrator.class.getName());
+
+    private SerMigrator() {
+    }
+
+    /**
+     * Rewrites {@code file} in place if it is in the legacy format.
+     *
+     * @return number of migrated books, or -1 if the file was already binary
+     */
+    public static long migrate(Path file) throws IOException {
+        if (!BookFormat.isJavaSerialized(file.toFile())) {
+            return -1;
+        }
+        List<Book> books = readSerialized(file);
+        Path temp = AtomicFile.tempFor(file);
+        try (BookWriter writer = new BookWriter(AtomicFile.create(temp, true))) {
+            for (Book book : books) {
+                writer.write(book);
+            }
+        }
+        Files.copy(file, file.resolveSibling(file.getFileName() + ".bak"),
+                StandardCopyOption.REPLACE_EXISTING);
+        AtomicFile.replace(temp, file, true);
+        logger.info("Migrated " + books.size() + " books from Java serialization: " + file);
+        return books.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Book> readSerialized(Path file) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            Object obj = ois.readObject();
+            if (!(obj instanceof List)) {
+                throw new IOException("Unexpected legacy data: " + obj.getClass().getName());
+            }
+            return (List<Book>) obj;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Incompatible legacy data: " + e.getMessage(), e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "library_data.ser");
+        long migrated = migrate(file);
+        System.out.println(migrated < 0 ? "Already in binary format: " + file
+                : "Migrated books: " + migrated);
+    }
+}
@@ -0,0 +1,46 @@
+package com.library.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each distinct string a dense int code, so a column of repetitive values
+ * (authors, genres) stores one int per row and one string per distinct value, and
+ * books holding {@link #intern interned} values share those strings.
+ * Codes are never reused. Not thread-safe for writers; a reader that may race a
+ * writer must validate what it read, as {@link ColumnarBookStore} does.
+ */
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size;
+
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    /**
+     * @return the dictionary's own instance of the value, so equal values share one String
+     */
+    public String intern(String value) {
+        return decode(encode(value));
+    }
+
+    public String decode(int code) {
+        return values[code];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,168 @@
+package com.library.ui;
+
+import com.googlecode.lanterna.gui2.table.Table;
+import com.googlecode.lanterna.gui2.table.TableModel;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.library.Book;
+import com.library.BookPage;
+import com.library.BookQuery;
+import com.library.Library;
+import com.library.index.SortKey;
+import java.util.List;
+
+/**
+ * Virtualized book table: the model only ever holds the visible rows. Scrolling past
+ * the first or last row, PageUp/PageDown, Home/End and page jumps fetch the next window
+ * from {@link Library#query}, so cost and memory follow the window size, not the catalog.
+ */
+class BookTable extends Table<String> {
+    private static final String[] COLUMNS = {"ID", "Title", "Author", "Year", "Price", "Genre", "Available"};
+    private static final SortKey[] COLUMN_KEYS = {
+            SortKey.ID, SortKey.TITLE, SortKey.AUTHOR, SortKey.YEAR, SortKey.PRICE, null, null};
+    private static final int MAX_TEXT = 30;
+
+    private final Library library;
+    private final int rows;
+    private String text;
+    private SortKey sortKey = SortKey.ADDED;
+    private boolean descending;
+    private int top;
+    private int total;
+    private List<Book> window = List.of();
+    private Runnable onMove = () -> {};
+
+    BookTable(Library library, int rows) {
+        super(COLUMNS);
+        this.library = library;
+        this.rows = rows;
+        setVisibleRows(rows);
+        refresh();
+    }
+
+    void setOnMove(Runnable onMove) {
+        this.onMove = onMove;
+    }
+
+    void sortBy(SortKey key, boolean descending) {
+        this.sortKey = key;
+        this.descending = descending;
+        top = 0;
+        refresh();
+        setSelectedRow(0);
+    }
+
+    void filter(String text) {
+        this.text = text;
+        top = 0;
+        refresh();
+        setSelectedRow(0);
+    }
+
+    SortKey getSortKey() {
+        return sortKey;
+    }
+
+    boolean isDescending() {
+        return descending;
+    }
+
+    int getTotal() {
+        return total;
+    }
+
+    int getPage() {
+        return top / rows + 1;
+    }
+
+    int getPageCount() {
+        return Math.max(1, (total + rows - 1) / rows);
+    }
+
+    void goToPage(int page) {
+        top = (Math.max(1, Math.min(page, getPageCount())) - 1) * rows;
+        refresh();
+        setSelectedRow(0);
+    }
+
+    Book getSelectedBook() {
+        int row = getSelectedRow();
+        return row >= 0 && row < window.size() ? window.get(row) : null;
+    }
+
+    /**
+     * Re-reads the visible window, e.g. after the catalog changed.
+     */
+    void refresh() {
+        BookQuery query = new BookQuery().setText(text).setSort(sortKey, descending).setLimit(rows);
+        BookPage page = library.query(query.setOffset(Math.max(0, top)));
+        if (top > 0 && top + rows > page.getTotal()) {
+            // Past the end, e.g. after End or deletions: show the last full window instead
+            top = Math.max(0, page.getTotal() - rows);
+            page = library.query(query.setOffset(top));
+        }
+        total = page.getTotal();
+        window = page.getBooks();
+
+        TableModel<String> model = getTableModel();
+        model.clear();
+        for (Book book : window) {
+            model.addRow(book.getId(), clip(book.getTitle()), clip(book.getAuthor()),
+                    String.valueOf(book.getYear()), String.format("%.2f", book.getPrice()),
+                    clip(book.getGenre()), book.isAvailable() ? "yes" : "no");
+        }
+        for (int c = 0; c < COLUMNS.length; c++) {
+            String arrow = COLUMN_KEYS[c] != null && COLUMN_KEYS[c] == sortKey ? (descending ? " v" : " ^") : "";
+            model.setColumnLabel(c, COLUMNS[c] + arrow);
+        }
+        if (getSelectedRow() >= window.size()) {
+            setSelectedRow(Math.max(0, window.size() - 1));
+        }
+        onMove.run();
+    }
+
+    @Override
+    public Result handleKeyStroke(KeyStroke keyStroke) {
+        int row = getSelectedRow();
+        switch (keyStroke.getKeyType()) {
+            case ArrowDown:
+                if (row == window.size() - 1 && top + window.size() < total) {
+                    scrollTo(top + 1, row);
+                    return Result.HANDLED;
+                }
+                break;
+            case ArrowUp:
+                if (row == 0 && top > 0) {
+                    scrollTo(top - 1, row);
+                    return Result.HANDLED;
+                }
+                break;
+            case PageDown:
+                scrollTo(top + rows, row);
+                return Result.HANDLED;
+            case PageUp:
+                scrollTo(top - rows, row);
+                return Result.HANDLED;
+            case Home:
+                scrollTo(0, 0);
+                return Result.HANDLED;
+            case End:
+                scrollTo(total, rows - 1);
+                return Result.HANDLED;
+            default:
+                break;
+        }
+        Result result = super.handleKeyStroke(keyStroke);
+        onMove.run();
+        return result;
+    }
+
+    private void scrollTo(int newTop, int row) {
+        top = newTop;
+        refresh();
+        setSelectedRow(Math.max(0, Math.min(row, window.size() - 1)));
+    }
+
+    private static String clip(String text) {
+        return text.length() <= MAX_TEXT ? text : text.substring(0, MAX_TEXT - 1) + "~";
+    }
+}
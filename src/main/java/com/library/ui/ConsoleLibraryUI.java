@@ -1,13 +1,25 @@
 package com.library.ui;
 
 import com.library.Book;
+import com.library.BookPage;
+import com.library.BookQuery;
 import com.library.Library;
+import com.library.index.QueryCache;
+import com.library.io.BookExporter;
+import com.library.io.BookImporter;
+import com.library.io.TransferReport;
+import com.library.stats.LibraryStatistics;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Year;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class ConsoleLibraryUI extends com.library.ui.BaseLibraryUI {
+    private static final int PAGE_SIZE = 20;
     private final Scanner scanner;
     private boolean running;
 
@@ -38,22 +50,26 @@ public class ConsoleLibraryUI extends com.library.ui.BaseLibraryUI {
         System.out.println("1. Manage Books");
         System.out.println("2. Search Books");
         System.out.println("3. Statistics");
+        System.out.println("4. Import / Export");
+        System.out.println("5. Metrics");
         System.out.println("0. Exit");
         System.out.print("Select option: ");
     }
 
     private void handleMainMenuInput() {
         try {
-            int choice = readIntInput(0, 3);
+            int choice = readIntInput(0, 5);
             switch (choice) {
                 case 1 -> showBookManagementMenu();
                 case 2 -> showSearchMenu();
                 case 3 -> showStatistics();
+                case 4 -> showImportExportMenu();
+                case 5 -> showMetrics();
                 case 0 -> running = false;
                 default -> System.out.println("Invalid choice, try again.");
             }
         } catch (InputMismatchException e) {
-            System.out.println("Error: enter number 0-3");
+            System.out.println("Error: enter number 0-5");
             scanner.nextLine();
         }
     }
@@ -89,23 +105,72 @@ public class ConsoleLibraryUI extends com.library.ui.BaseLibraryUI {
         System.out.print("Enter search query (title, author, genre or ID): ");
         String query = scanner.nextLine();
 
-        List<Book> results = library.searchBooks(query);
-        if (results.isEmpty()) {
+        if (query.isBlank()) {
             System.out.println("No books found.");
-        } else {
-            System.out.println("\nSearch Results:");
-            results.forEach(book -> System.out.println("- " + book));
+            return;
         }
+        printPages("Search Results", new BookQuery().setText(query), "No books found.");
+    }
+
+    private void showMetrics() {
+        System.out.println("\nMetrics (latencies in microseconds, since startup):");
+        System.out.print(library.getMetrics().dump());
     }
 
     private void showStatistics() {
-        List<Book> books = library.getAllBooks();
+        LibraryStatistics stats = library.getStatistics();
         System.out.println("\nLibrary Statistics:");
-        System.out.println("- Total books: " + books.size());
-        System.out.println("- Available: " + books.stream().filter(Book::isAvailable).count());
-        System.out.println("- Checked out: " + books.stream().filter(b -> !b.isAvailable()).count());
-        System.out.printf("- Average price: %.2f\n",
-                books.stream().mapToDouble(Book::getPrice).average().orElse(0));
+        System.out.println("- Total books: " + stats.getTotalBooks());
+        System.out.println("- Available: " + stats.getAvailableBooks());
+        System.out.println("- Checked out: " + stats.getCheckedOutBooks());
+        System.out.printf("- Average price: %.2f\n", stats.getAveragePrice());
+        System.out.printf("- Price range: %.2f - %.2f\n", stats.getMinPrice(), stats.getMaxPrice());
+        System.out.printf("- Total value: %.2f\n", stats.getTotalPrice());
+        QueryCache.Stats cache = library.getSearchCacheStats();
+        System.out.printf("- Search cache: %d hits, %d misses (%.0f%%), %d evicted, %d invalidated\n",
+                cache.hits(), cache.misses(), cache.hitRate() * 100, cache.evictions(), cache.invalidations());
+
+        printGroups("Top genres", LibraryStatistics.top(stats.getGenres(), 10), stats.getGenres().size());
+        printGroups("Top authors", LibraryStatistics.top(stats.getAuthors(), 10), stats.getAuthors().size());
+        System.out.println("\nBy decade:");
+        stats.getDecades().forEach((decade, group) -> printGroup(decade + "s", group));
+    }
+
+    private <K> void printGroups(String title, List<Map.Entry<K, LibraryStatistics.GroupStats>> top, int total) {
+        System.out.println("\n" + title + " (" + top.size() + " of " + total + "):");
+        top.forEach(entry -> printGroup(String.valueOf(entry.getKey()), entry.getValue()));
+    }
+
+    private void printGroup(String name, LibraryStatistics.GroupStats group) {
+        System.out.printf("- %-25s %6d books, %6d available, avg price %.2f\n",
+                name, group.count(), group.available(), group.averagePrice());
+    }
+
+    private void showImportExportMenu() {
+        System.out.println("\nImport / Export:");
+        System.out.println("1. Import books from file (.csv, .jsonl)");
+        System.out.println("2. Export books to file (.csv, .jsonl)");
+        System.out.println("0. Back");
+        System.out.print("Select option: ");
+
+        try {
+            int choice = readIntInput(0, 2);
+            if (choice == 0) return;
+            Path file = Paths.get(readNonEmptyInput("File path: "));
+            TransferReport report = choice == 1
+                    ? new BookImporter(library).importFile(file)
+                    : new BookExporter(library).exportFile(file);
+            System.out.println(report);
+            report.getErrors().stream().limit(20).forEach(error -> System.out.println("- " + error));
+            if (report.getErrorCount() > 20) {
+                System.out.println("... and " + (report.getErrorCount() - 20) + " more errors");
+            }
+        } catch (InputMismatchException e) {
+            System.out.println("Error: enter number 0-2");
+            scanner.nextLine();
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
     }
 
     private void addBookViaConsole() {
@@ -127,14 +192,31 @@ public class ConsoleLibraryUI extends com.library.ui.BaseLibraryUI {
     }
 
     private void displayAllBooks() {
-        List<Book> books = library.getAllBooks();
-        if (books.isEmpty()) {
-            System.out.println("No books in library.");
+        printPages("All Books", new BookQuery(), "No books in library.");
+    }
+
+    // Prints one page at a time and fetches the next one only if asked
+    private void printPages(String title, BookQuery query, String emptyMessage) {
+        query.setLimit(PAGE_SIZE);
+        BookPage page = library.query(query);
+        if (page.getTotal() == 0) {
+            System.out.println(emptyMessage);
             return;
         }
-        System.out.println("\nAll Books:");
-        books.forEach(book -> System.out.println("- " + book));
-        System.out.println("Total books: " + books.size());
+        System.out.println("\n" + title + ":");
+        while (true) {
+            page.getBooks().forEach(book -> System.out.println("- " + book));
+            System.out.printf("Shown %d-%d of %d%n", page.getOffset() + 1,
+                    page.getOffset() + page.getBooks().size(), page.getTotal());
+            if (!page.hasMore()) {
+                return;
+            }
+            System.out.print("Enter for next page, q to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            page = library.query(query.setCursor(page.getNextCursor()));
+        }
     }
 
     private void editBook() {
@@ -184,19 +266,15 @@ public class ConsoleLibraryUI extends com.library.ui.BaseLibraryUI {
     }
 
     // Helper methods for input
+    // On InputMismatchException the bad token is left for the caller to consume with the line
     private int readIntInput(int min, int max) throws InputMismatchException {
         while (true) {
-            try {
-                int input = scanner.nextInt();
-                scanner.nextLine();
-                if (input >= min && input <= max) {
-                    return input;
-                }
-                System.out.printf("Enter number %d-%d: ", min, max);
-            } catch (InputMismatchException e) {
-                scanner.nextLine();
-                throw e;
+            int input = scanner.nextInt();
+            scanner.nextLine();
+            if (input >= min && input <= max) {
+                return input;
             }
+            System.out.printf("Enter number %d-%d: ", min, max);
         }
     }
 
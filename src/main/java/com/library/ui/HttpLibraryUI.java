@@ -0,0 +1,448 @@
+package com.library.ui;
+
+import com.library.Book;
+import com.library.BookFilter;
+import com.library.BookNotFoundException;
+import com.library.BookPage;
+import com.library.BookQuery;
+import com.library.DuplicateBookException;
+import com.library.Library;
+import com.library.index.SortKey;
+import com.library.io.BookJson;
+import com.library.io.Json;
+import com.library.stats.LibraryStatistics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the library as a JSON API on a local port instead of an interactive screen, so
+ * any number of clients share one {@link Library}:
+ * <pre>
+ * GET    /books/{id}          the book, or 404
+ * GET    /books?q=&amp;genre=&amp;author=&amp;available=&amp;sort=&amp;desc=&amp;offset=&amp;limit=&amp;cursor=
+ *                             one page of {@link Library#query}, of at most
+ *                             {@value #MAX_LIMIT} books
+ * POST   /books               adds a book, or an array of books at once
+ * PUT    /books/{id}          replaces the book's fields
+ * DELETE /books/{id}          204, or 404
+ * GET    /stats               counts, prices and per-genre/decade breakdowns
+ * POST   /batch               [{"method":..,"path":..,"body":..}, ..] run in order in one
+ *                             round trip, answered by [{"status":..,"body":..}, ..]
+ * </pre>
+ * Errors are {@code {"error":".."}} with 400 for invalid input, 404 for unknown books,
+ * 409 for conflicts such as an existing ID.
+ * <p>
+ * Built on the JDK's {@link HttpServer}, which keeps HTTP/1.1 connections alive between
+ * requests. Handlers block on the library's locks and disk, so each request gets a
+ * virtual thread where the runtime has them (Java 21 on), which costs nothing while it
+ * waits; on older runtimes it gets one of a fixed pool of platform threads. Many small
+ * requests are cheaper sent as one {@code /batch}, which takes one round trip and one
+ * thread for all of them.
+ */
+public class HttpLibraryUI extends BaseLibraryUI {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_THREADS = 64;
+    static final int MAX_BODY = 16 << 20;
+    static final int MAX_BATCH = 10_000;
+    static final int MAX_LIMIT = 1_000;
+    private static final Logger logger = Logger.getLogger(HttpLibraryUI.class.getName());
+    private static final Response NOT_ALLOWED = error(405, "Method not allowed");
+
+    private final InetSocketAddress address;
+    private final int threads;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * A JSON body, already encoded, or {@code null} for none.
+     */
+    record Response(int status, String body) {
+    }
+
+    /**
+     * Listens on the host and port given by the {@code library.http.host} and
+     * {@code library.http.port} system properties, loopback and {@value #DEFAULT_PORT} by default.
+     */
+    public HttpLibraryUI(Library library) {
+        this(library, new InetSocketAddress(System.getProperty("library.http.host", "127.0.0.1"),
+                Integer.getInteger("library.http.port", DEFAULT_PORT)), DEFAULT_THREADS);
+    }
+
+    /**
+     * @param threads size of the platform thread pool used when virtual threads are not available
+     */
+    public HttpLibraryUI(Library library, InetSocketAddress address, int threads) {
+        super(library);
+        this.address = Objects.requireNonNull(address, "Address cannot be null");
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Serves until the process is stopped.
+     */
+    @Override
+    public void start() throws IOException {
+        bind();
+        Thread hook = new Thread(this::shutdown, "library-http-shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shutdown();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; the hook is what stopped us
+        }
+    }
+
+    /**
+     * Starts serving in the background.
+     * <p>
+     * Sets the JDK server's {@code sun.net.httpserver.nodelay} system property to
+     * {@code true} unless it is already set: without TCP_NODELAY each small keep-alive
+     * response waits out the client's delayed ACK, about 40 ms. The property is read once,
+     * when the first server in the process is created, and applies to every server
+     * created after it.
+     *
+     * @return the address listened on, with the actual port if port 0 was asked for
+     */
+    public synchronized InetSocketAddress bind() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(address, 256);
+        server.createContext("/", this::exchange);
+        String mode = startExecutor();
+        server.setExecutor(executor);
+        server.start();
+        InetSocketAddress bound = server.getAddress();
+        logger.info("Serving library on http://" + bound.getHostString() + ":" + bound.getPort() + "/ with " + mode);
+        return bound;
+    }
+
+    /**
+     * Stops accepting requests, lets running ones finish for up to a second and saves.
+     */
+    @Override
+    public synchronized void shutdown() {
+        if (server == null || stopped.getCount() == 0) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Requests still running after shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        library.saveData();
+        stopped.countDown();
+    }
+
+    /**
+     * Runs one request against the library. Also used for the requests in a batch.
+     */
+    Response handle(String method, URI uri, Object body) {
+        String path = uri.getPath() == null ? "" : uri.getPath();
+        try {
+            if (path.equals("/books")) {
+                return switch (method) {
+                    case "GET" -> query(parameters(uri.getRawQuery()));
+                    case "POST" -> add(body);
+                    default -> NOT_ALLOWED;
+                };
+            }
+            if (path.startsWith("/books/") && path.length() > "/books/".length()) {
+                String id = path.substring("/books/".length());
+                return switch (method) {
+                    case "GET" -> get(id);
+                    case "PUT" -> update(id, body);
+                    case "DELETE" -> library.deleteBook(id) ? new Response(204, null) : notFound(id);
+                    default -> NOT_ALLOWED;
+                };
+            }
+            if (path.equals("/stats")) {
+                return method.equals("GET") ? new Response(200, statistics(library.getStatistics())) : NOT_ALLOWED;
+            }
+            if (path.equals("/batch")) {
+                return method.equals("POST") ? batch(body) : NOT_ALLOWED;
+            }
+            return error(404, "No such resource: " + path);
+        } catch (DuplicateBookException e) {
+            return error(409, e.getMessage());
+        } catch (BookNotFoundException e) {
+            return error(404, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(409, e.getMessage());
+        }
+    }
+
+    private void exchange(HttpExchange exchange) throws IOException {
+        try {
+            Response response;
+            try {
+                response = handle(exchange.getRequestMethod(), exchange.getRequestURI(), readBody(exchange));
+            } catch (IllegalArgumentException e) {
+                // Malformed JSON or an oversized body
+                response = error(400, e.getMessage());
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Request failed: " + exchange.getRequestURI(), e);
+                response = error(500, "Internal error");
+            }
+            send(exchange, response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response get(String id) {
+        Book book = library.getBookById(id);
+        return book == null ? notFound(id) : new Response(200, BookJson.write(new StringBuilder(160), book).toString());
+    }
+
+    private Response query(Map<String, String> parameters) {
+        BookQuery query = new BookQuery();
+        BookFilter filter = null;
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            String value = parameter.getValue();
+            switch (parameter.getKey()) {
+                case "q" -> query.setText(value);
+                case "genre" -> filter = and(filter, BookFilter.genre(value));
+                case "author" -> filter = and(filter, BookFilter.author(value));
+                case "available" -> filter = and(filter, BookFilter.available(Boolean.parseBoolean(value)));
+                case "sort" -> query.setSort(SortKey.valueOf(value.toUpperCase(Locale.ROOT)), query.isDescending());
+                case "desc" -> query.setSort(query.getSortKey(), Boolean.parseBoolean(value));
+                case "offset" -> query.setOffset(Integer.parseInt(value));
+                case "limit" -> query.setLimit(Math.min(Integer.parseInt(value), MAX_LIMIT));
+                case "cursor" -> query.setCursor(value);
+                default -> throw new IllegalArgumentException("Unknown parameter: " + parameter.getKey());
+            }
+        }
+        query.setFilter(filter);
+        BookPage page = library.query(query);
+        StringBuilder json = new StringBuilder(64 + page.getBooks().size() * 160);
+        json.append("{\"total\":").append(page.getTotal()).append(",\"offset\":").append(page.getOffset())
+                .append(",\"next\":");
+        if (page.getNextCursor() == null) {
+            json.append("null");
+        } else {
+            Json.quote(json, page.getNextCursor());
+        }
+        json.append(",\"books\":");
+        return new Response(200, books(json, page.getBooks()).append('}').toString());
+    }
+
+    private Response add(Object body) {
+        if (body instanceof List<?> list) {
+            List<Book> books = new ArrayList<>(list.size());
+            for (Object item : list) {
+                books.add(BookJson.read(object(item)));
+            }
+            List<Book> skipped = library.addBooks(books);
+            StringBuilder json = new StringBuilder("{\"added\":").append(books.size() - skipped.size())
+                    .append(",\"skipped\":[");
+            for (int i = 0; i < skipped.size(); i++) {
+                Json.quote(i == 0 ? json : json.append(','), skipped.get(i).getId());
+            }
+            return new Response(200, json.append("]}").toString());
+        }
+        Book book = BookJson.read(object(body));
+        library.addBook(book);
+        return new Response(201, BookJson.write(new StringBuilder(160), book).toString());
+    }
+
+    private Response update(String id, Object body) {
+        Map<String, Object> fields = new LinkedHashMap<>(object(body));
+        Object bodyId = fields.putIfAbsent("id", id);
+        if (bodyId != null && !bodyId.equals(id)) {
+            throw new IllegalArgumentException("Book ID in body does not match the path");
+        }
+        library.updateBook(id, BookJson.read(fields));
+        return get(id);
+    }
+
+    private Response batch(Object body) {
+        if (!(body instanceof List<?> requests)) {
+            throw new IllegalArgumentException("Expected a JSON array of requests");
+        }
+        if (requests.size() > MAX_BATCH) {
+            throw new IllegalArgumentException("Too many requests in batch: " + requests.size() + " > " + MAX_BATCH);
+        }
+        StringBuilder json = new StringBuilder(requests.size() * 200).append('[');
+        for (Object item : requests) {
+            Map<String, Object> request = object(item);
+            String method = String.valueOf(request.getOrDefault("method", "GET")).toUpperCase(Locale.ROOT);
+            Object path = request.get("path");
+            Response response;
+            if (!(path instanceof String target) || !target.startsWith("/")) {
+                response = error(400, "Missing or relative path");
+            } else if (target.startsWith("/batch")) {
+                response = error(400, "Batches cannot be nested");
+            } else {
+                URI uri;
+                try {
+                    uri = URI.create(target);
+                } catch (IllegalArgumentException e) {
+                    uri = null;
+                }
+                response = uri == null ? error(400, "Invalid path: " + target) : handle(method, uri, request.get("body"));
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"status\":").append(response.status()).append(",\"body\":")
+                    .append(response.body() == null ? "null" : response.body()).append('}');
+        }
+        return new Response(200, json.append(']').toString());
+    }
+
+    private static String statistics(LibraryStatistics statistics) {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"books\":").append(statistics.getTotalBooks())
+                .append(",\"available\":").append(statistics.getAvailableBooks())
+                .append(",\"checkedOut\":").append(statistics.getCheckedOutBooks())
+                .append(",\"totalPrice\":").append(number(statistics.getTotalPrice()))
+                .append(",\"averagePrice\":").append(number(statistics.getAveragePrice()))
+                .append(",\"minPrice\":").append(number(statistics.getMinPrice()))
+                .append(",\"maxPrice\":").append(number(statistics.getMaxPrice()))
+                .append(",\"genres\":");
+        groups(json, statistics.getGenres()).append(",\"decades\":");
+        groups(json, statistics.getDecades()).append(",\"topAuthors\":");
+        Map<String, LibraryStatistics.GroupStats> authors = new LinkedHashMap<>();
+        for (Map.Entry<String, LibraryStatistics.GroupStats> entry : LibraryStatistics.top(statistics.getAuthors(), 10)) {
+            authors.put(entry.getKey(), entry.getValue());
+        }
+        return groups(json, authors).append('}').toString();
+    }
+
+    private static StringBuilder groups(StringBuilder json, Map<?, LibraryStatistics.GroupStats> groups) {
+        json.append('{');
+        for (Map.Entry<?, LibraryStatistics.GroupStats> entry : groups.entrySet()) {
+            if (json.charAt(json.length() - 1) != '{') {
+                json.append(',');
+            }
+            LibraryStatistics.GroupStats group = entry.getValue();
+            Json.quote(json, String.valueOf(entry.getKey())).append(":{\"count\":").append(group.count())
+                    .append(",\"available\":").append(group.available())
+                    .append(",\"totalPrice\":").append(number(group.totalPrice())).append('}');
+        }
+        return json.append('}');
+    }
+
+    private static StringBuilder books(StringBuilder json, List<Book> books) {
+        json.append('[');
+        for (int i = 0; i < books.size(); i++) {
+            BookJson.write(i == 0 ? json : json.append(','), books.get(i));
+        }
+        return json.append(']');
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "null";
+    }
+
+    private static BookFilter and(BookFilter filter, BookFilter next) {
+        return filter == null ? next : filter.and(next);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    private static Object readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY + 1);
+        }
+        if (bytes.length > MAX_BODY) {
+            throw new IllegalArgumentException("Request body larger than " + MAX_BODY + " bytes");
+        }
+        return bytes.length == 0 ? null : Json.parse(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        if (response.body() == null) {
+            exchange.sendResponseHeaders(response.status(), -1);
+            return;
+        }
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Response notFound(String id) {
+        return error(404, "Book with ID " + id + " not found");
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Json.quote(new StringBuilder("{\"error\":"),
+                message == null ? "Error" : message).append('}').toString());
+    }
+
+    // Virtual threads through reflection, as the build targets an older release
+    private String startExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            executor = (ExecutorService) factory.invoke(null);
+            return "a virtual thread per request";
+        } catch (ReflectiveOperationException e) {
+            // Before Java 21, or Java 19-20 without preview features
+            AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "library-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            return threads + " platform threads";
+        }
+    }
+}
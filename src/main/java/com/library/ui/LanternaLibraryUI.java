@@ -1,14 +1,23 @@
 package com.library.ui;
 
+import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.gui2.*;
 import com.googlecode.lanterna.gui2.dialogs.MessageDialog;
 import com.googlecode.lanterna.gui2.dialogs.MessageDialogButton;
+import com.googlecode.lanterna.gui2.dialogs.TextInputDialog;
 import com.googlecode.lanterna.screen.Screen;
 import com.googlecode.lanterna.terminal.DefaultTerminalFactory;
 import com.library.Book;
 import com.library.Library;
+import com.library.io.BookExporter;
+import com.library.io.BookImporter;
+import com.library.index.SortKey;
+import com.library.io.TransferReport;
+import com.library.stats.LibraryStatistics;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 public class LanternaLibraryUI extends BaseLibraryUI {
@@ -46,6 +55,7 @@ public class LanternaLibraryUI extends BaseLibraryUI {
         } catch (IOException e) {
             System.err.println("Error closing screen: " + e.getMessage());
         }
+        library.saveData();
     }
 
     private static class MainWindow extends BasicWindow {
@@ -59,10 +69,33 @@ public class LanternaLibraryUI extends BaseLibraryUI {
                     new BookFormWindow(gui, library, null).show()));
             panel.addComponent(new Button("List Books", () ->
                     new BookListWindow(gui, library).show()));
+            panel.addComponent(new Button("Statistics", () ->
+                    new StatisticsWindow(gui, library).show()));
+            panel.addComponent(new Button("Import", () -> transfer(gui, library, true)));
+            panel.addComponent(new Button("Export", () -> transfer(gui, library, false)));
             panel.addComponent(new Button("Exit", this::close));
 
             setComponent(panel);
         }
+
+        private static void transfer(WindowBasedTextGUI gui, Library library, boolean importing) {
+            String path = TextInputDialog.showDialog(gui, importing ? "Import Books" : "Export Books",
+                    "File path (.csv or .jsonl):", "");
+            if (path == null || path.isBlank()) {
+                return;
+            }
+            try {
+                TransferReport report = importing
+                        ? new BookImporter(library).importFile(Paths.get(path.trim()))
+                        : new BookExporter(library).exportFile(Paths.get(path.trim()));
+                StringBuilder message = new StringBuilder(report.toString());
+                report.getErrors().stream().limit(10).forEach(error -> message.append('\n').append(error));
+                MessageDialog.showMessageDialog(gui, importing ? "Import" : "Export",
+                        message.toString(), MessageDialogButton.OK);
+            } catch (Exception e) {
+                MessageDialog.showMessageDialog(gui, "Error", e.getMessage(), MessageDialogButton.OK);
+            }
+        }
     }
 
     private static class BookFormWindow extends BasicWindow {
@@ -148,7 +181,56 @@ public class LanternaLibraryUI extends BaseLibraryUI {
         }
     }
 
+    private static class StatisticsWindow extends BasicWindow {
+        private static final int TOP_GROUPS = 10;
+        private final WindowBasedTextGUI gui;
+
+        public StatisticsWindow(WindowBasedTextGUI gui, Library library) {
+            super("Statistics");
+            this.gui = gui;
+            setHints(List.of(Window.Hint.CENTERED));
+
+            LibraryStatistics stats = library.getStatistics();
+            Panel panel = new Panel(new GridLayout(2));
+            addRow(panel, "Total books:", String.valueOf(stats.getTotalBooks()));
+            addRow(panel, "Available:", String.valueOf(stats.getAvailableBooks()));
+            addRow(panel, "Checked out:", String.valueOf(stats.getCheckedOutBooks()));
+            addRow(panel, "Average price:", String.format("%.2f", stats.getAveragePrice()));
+            addRow(panel, "Price range:", String.format("%.2f - %.2f", stats.getMinPrice(), stats.getMaxPrice()));
+            addRow(panel, "Total value:", String.format("%.2f", stats.getTotalPrice()));
+
+            addGroups(panel, "Top genres", LibraryStatistics.top(stats.getGenres(), TOP_GROUPS));
+            addGroups(panel, "Top authors", LibraryStatistics.top(stats.getAuthors(), TOP_GROUPS));
+            addGroups(panel, "By decade", List.copyOf(stats.getDecades().entrySet()));
+
+            panel.addComponent(new Button("Close", this::close));
+            setComponent(panel);
+        }
+
+        private static void addRow(Panel panel, String name, String value) {
+            panel.addComponent(new Label(name));
+            panel.addComponent(new Label(value));
+        }
+
+        private static <K> void addGroups(Panel panel, String title,
+                                          List<Map.Entry<K, LibraryStatistics.GroupStats>> groups) {
+            panel.addComponent(new EmptySpace());
+            panel.addComponent(new EmptySpace());
+            addRow(panel, title, "");
+            for (Map.Entry<K, LibraryStatistics.GroupStats> entry : groups) {
+                LibraryStatistics.GroupStats group = entry.getValue();
+                addRow(panel, "  " + entry.getKey(), String.format("%d books, %d available, avg %.2f",
+                        group.count(), group.available(), group.averagePrice()));
+            }
+        }
+
+        public void show() {
+            gui.addWindowAndWait(this);
+        }
+    }
+
     private static class BookListWindow extends BasicWindow {
+        private static final int PAGE_ROWS = 20;
         private final WindowBasedTextGUI gui;
 
         public BookListWindow(WindowBasedTextGUI gui, Library library) {
@@ -157,15 +239,34 @@ public class LanternaLibraryUI extends BaseLibraryUI {
             setHints(List.of(Window.Hint.CENTERED));
 
             Panel panel = new Panel(new LinearLayout(Direction.VERTICAL));
-            List<Book> books = library.getAllBooks();
+            BookTable table = new BookTable(library, PAGE_ROWS);
+            Label status = new Label("");
+            table.setOnMove(() -> status.setText(String.format("Page %d of %d, %d books, sorted by %s%s",
+                    table.getPage(), table.getPageCount(), table.getTotal(),
+                    table.getSortKey().getLabel(), table.isDescending() ? " (desc)" : "")));
+            table.refresh();
 
-            if (books.isEmpty()) {
-                panel.addComponent(new Label("No books in library"));
-            } else {
-                books.forEach(book ->
-                        panel.addComponent(new Label(book.toString())));
-            }
+            Panel controls = new Panel(new LinearLayout(Direction.HORIZONTAL));
+            ComboBox<SortKey> sortBox = new ComboBox<>(SortKey.values());
+            CheckBox descendingBox = new CheckBox("Desc");
+            sortBox.addListener((selected, previous, byUser) ->
+                    table.sortBy(sortBox.getSelectedItem(), descendingBox.isChecked()));
+            descendingBox.addListener(checked -> table.sortBy(sortBox.getSelectedItem(), checked));
+            TextBox searchField = new TextBox(new TerminalSize(16, 1));
+            TextBox pageField = new TextBox(new TerminalSize(6, 1)).setValidationPattern(Pattern.compile("\\d*"));
+            controls.addComponent(new Label("Search:"));
+            controls.addComponent(searchField);
+            controls.addComponent(new Button("Find", () -> table.filter(searchField.getText())));
+            controls.addComponent(new Label("Sort:"));
+            controls.addComponent(sortBox);
+            controls.addComponent(descendingBox);
+            controls.addComponent(new Label("Page:"));
+            controls.addComponent(pageField);
+            controls.addComponent(new Button("Go", () -> table.goToPage(pageNumber(pageField.getText(), table.getPage()))));
 
+            panel.addComponent(controls);
+            panel.addComponent(table);
+            panel.addComponent(status);
             panel.addComponent(new Button("Close", this::close));
             setComponent(panel);
         }
@@ -174,4 +275,18 @@ public class LanternaLibraryUI extends BaseLibraryUI {
             gui.addWindowAndWait(this);
         }
     }
-}
\ No newline at end of file
+
+    // The page typed in, or the current one if the text is not a number; goToPage clamps it
+    static int pageNumber(String text, int current) {
+        String digits = text.strip();
+        if (digits.isEmpty()) {
+            return current;
+        }
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            // Too many digits for an int is past the last page
+            return digits.chars().allMatch(Character::isDigit) ? Integer.MAX_VALUE : current;
+        }
+    }
+}
@@ -6,7 +6,8 @@ import java.util.Objects;
 public class UIFactory {
     public enum UIType {
         CONSOLE,
-        LANTERNA
+        LANTERNA,
+        SERVER
     }
 
     public static BaseLibraryUI createUI(UIType type, Library library) {
@@ -16,6 +17,7 @@ public class UIFactory {
         switch (type) {
             case LANTERNA: return new LanternaLibraryUI(library);
             case CONSOLE: return new ConsoleLibraryUI(library);
+            case SERVER: return new HttpLibraryUI(library);
             default:
                 throw new IllegalArgumentException("UI type not supported: " + type);
         }
@@ -0,0 +1,57 @@
+package com.library;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Year;
+import org.junit.jupiter.api.Test;
+
+public class BookTest {
+    private static Book withId(String id) {
+        return new Book(id, "Title", "Author", 2000, 1, "Genre");
+    }
+
+    @Test
+    public void validatesIdCharactersAndLength() {
+        assertEquals("Ab-9", withId("Ab-9").getId());
+        assertEquals("x".repeat(20), withId("x".repeat(20)).getId());
+        assertThrows(IllegalArgumentException.class, () -> withId("ab"));
+        assertThrows(IllegalArgumentException.class, () -> withId("x".repeat(21)));
+        assertThrows(IllegalArgumentException.class, () -> withId("ab c"));
+        assertThrows(IllegalArgumentException.class, () -> withId("abc_1"));
+        assertThrows(IllegalArgumentException.class, () -> withId("абв"));
+        IllegalArgumentException empty = assertThrows(IllegalArgumentException.class, () -> withId("   "));
+        assertEquals("Book ID cannot be empty", empty.getMessage());
+    }
+
+    @Test
+    public void trimsTextAndRejectsBlankOrLong() {
+        Book book = new Book("B-001", "  Dune ", "\tFrank Herbert", 1965, 10, " Sci-Fi");
+        assertEquals("Dune", book.getTitle());
+        assertEquals("Frank Herbert", book.getAuthor());
+        assertEquals("Sci-Fi", book.getGenre());
+
+        assertThrows(IllegalArgumentException.class, () -> book.setTitle(" \t\n"));
+        assertThrows(IllegalArgumentException.class, () -> book.setTitle("t".repeat(101)));
+        assertThrows(IllegalArgumentException.class, () -> book.setAuthor("a".repeat(51)));
+        assertThrows(IllegalArgumentException.class, () -> book.setGenre("g".repeat(31)));
+        assertThrows(IllegalArgumentException.class, () -> book.setGenre(null));
+    }
+
+    @Test
+    public void validatesYearAndPrice() {
+        Book book = withId("B-001");
+        int nextYear = Year.now().getValue() + 1;
+        book.setYear(1450);
+        book.setYear(nextYear);
+        assertEquals(nextYear, book.getYear());
+        assertThrows(IllegalArgumentException.class, () -> book.setYear(1449));
+        IllegalArgumentException future = assertThrows(IllegalArgumentException.class,
+                () -> book.setYear(nextYear + 1));
+        assertEquals("Year must be between 1450 and " + nextYear, future.getMessage());
+
+        book.setPrice(12.345);
+        assertEquals(12.35, book.getPrice());
+        assertThrows(IllegalArgumentException.class, () -> book.setPrice(-0.01));
+        assertThrows(IllegalArgumentException.class, () -> book.setPrice(1_000_000.01));
+    }
+}
@@ -0,0 +1,114 @@
+package com.library;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+public class LibraryConcurrencyTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int BOOKS_PER_WRITER = 400;
+    private static final Logger libraryLogger = Logger.getLogger(Library.class.getName());
+
+    @TempDir
+    Path tempDir;
+
+    private Level previousLevel;
+
+    @BeforeEach
+    public void quietLogs() {
+        previousLevel = libraryLogger.getLevel();
+        libraryLogger.setLevel(Level.WARNING);
+    }
+
+    @AfterEach
+    public void restoreLogs() {
+        libraryLogger.setLevel(previousLevel);
+    }
+
+    // Title and author always carry the same revision, so a torn update is detectable
+    private static Book revision(String id, int revision) {
+        return new Book(id, "Title " + id + " r" + revision, "Author " + id + " r" + revision,
+                2000, revision, "Stress");
+    }
+
+    private static void assertConsistent(Book book) {
+        String titleRevision = book.getTitle().substring(book.getTitle().lastIndexOf(' '));
+        String authorRevision = book.getAuthor().substring(book.getAuthor().lastIndexOf(' '));
+        assertEquals(titleRevision, authorRevision, "Torn update of " + book.getId());
+        assertEquals(titleRevision, " r" + (int) book.getPrice(), "Torn update of " + book.getId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(LibraryConfig.StorageMode.class)
+    public void concurrentMutationsAndReadsStayConsistent(LibraryConfig.StorageMode mode) throws Exception {
+        String dataFile = tempDir.resolve("library_data.ser").toString();
+        Library library = new Library(new LibraryConfig().setDataFile(dataFile).setCompactionThreshold(500)
+                .setStorageMode(mode));
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < BOOKS_PER_WRITER; i++) {
+                    String id = String.format("W%d-%04d", writer, i);
+                    library.addBook(revision(id, 0));
+                    library.updateBook(id, revision(id, 1));
+                    if (i % 4 == 0) {
+                        assertTrue(library.deleteBook(id));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(pool.submit(() -> {
+                Random random = new Random();
+                while (writing.get()) {
+                    String id = String.format("W%d-%04d", random.nextInt(WRITERS), random.nextInt(BOOKS_PER_WRITER));
+                    Book book = library.getBookById(id);
+                    if (book != null) {
+                        assertConsistent(book);
+                    }
+                    List<Book> all = library.getAllBooks();
+                    assertEquals(all.size(), new HashSet<>(all).size(), "Duplicate books in snapshot");
+                    all.forEach(LibraryConcurrencyTest::assertConsistent);
+                    library.searchBooks("r1").forEach(b -> assertTrue(b.getTitle().endsWith("r1")));
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int expected = WRITERS * (BOOKS_PER_WRITER - BOOKS_PER_WRITER / 4);
+        assertEquals(expected, library.getAllBooks().size());
+        assertEquals(expected, library.searchBooks(" r1").size());
+        library.close();
+
+        Library reloaded = new Library(dataFile);
+        assertEquals(expected, reloaded.getAllBooks().size());
+        reloaded.getAllBooks().forEach(b -> assertTrue(b.getTitle().endsWith("r1")));
+        reloaded.close();
+    }
+}
@@ -0,0 +1,786 @@
+package com.library;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.index.QueryCache;
+import com.library.metrics.LibraryMetrics;
+import com.library.index.SortKey;
+import com.library.inventory.CopyInventory;
+import com.library.stats.LibraryStatistics;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LibraryTest {
+    @TempDir
+    Path tempDir;
+
+    private Library newLibrary() {
+        return new Library(tempDir.resolve("library_data.ser").toString());
+    }
+
+    private Library newLibrary(int compactionThreshold) {
+        return new Library(new LibraryConfig()
+                .setDataFile(tempDir.resolve("library_data.ser").toString())
+                .setCompactionThreshold(compactionThreshold));
+    }
+
+    private static Book book(String id, String title) {
+        return new Book(id, title, "Author " + id, 2000, 10.0, "Fiction");
+    }
+
+    @Test
+    public void addAndLookupById() {
+        Library library = newLibrary();
+        Book book = book("B-001", "Dune");
+        library.addBook(book);
+
+        assertEquals("Dune", library.getBookById("B-001").getTitle());
+        assertNull(library.getBookById("B-404"));
+        assertNull(library.getBookById(null));
+        assertFalse(library.isIdUnique("B-001"));
+        assertTrue(library.isIdUnique("B-002"));
+    }
+
+    @Test
+    public void rejectsDuplicateIds() {
+        Library library = newLibrary();
+        library.addBook(book("B-001", "Dune"));
+        assertThrows(IllegalArgumentException.class, () -> library.addBook(book("B-001", "Emma")));
+        assertEquals(1, library.getAllBooks().size());
+    }
+
+    @Test
+    public void getAllBooksKeepsInsertionOrder() {
+        Library library = newLibrary();
+        library.addBook(book("B-003", "C"));
+        library.addBook(book("B-001", "A"));
+        library.addBook(book("B-002", "B"));
+        library.deleteBook("B-001");
+        library.addBook(book("B-001", "A again"));
+
+        List<String> ids = library.getAllBooks().stream().map(Book::getId).toList();
+        assertEquals(List.of("B-003", "B-002", "B-001"), ids);
+    }
+
+    @Test
+    public void updateAndDelete() {
+        Library library = newLibrary();
+        library.addBook(book("B-001", "Dune"));
+
+        Book changed = new Book("B-001", "Dune Messiah", "Frank Herbert", 1969, 12.5, "Sci-Fi");
+        changed.setAvailable(false);
+        library.updateBook("B-001", changed);
+
+        Book stored = library.getBookById("B-001");
+        assertEquals("Dune Messiah", stored.getTitle());
+        assertEquals(1969, stored.getYear());
+        assertFalse(stored.isAvailable());
+        assertThrows(IllegalArgumentException.class, () -> library.updateBook("B-404", changed));
+
+        assertTrue(library.deleteBook("B-001"));
+        assertFalse(library.deleteBook("B-001"));
+        assertTrue(library.getAllBooks().isEmpty());
+    }
+
+    @Test
+    public void saveAndReload() {
+        Library library = newLibrary();
+        library.addBook(book("B-001", "Dune"));
+        library.addBook(book("B-002", "Emma"));
+        library.saveData();
+
+        Library reloaded = newLibrary();
+        assertEquals(2, reloaded.getAllBooks().size());
+        assertEquals("Emma", reloaded.getBookById("B-002").getTitle());
+    }
+
+    @Test
+    public void searchMatchesSubstringsOfAllFields() {
+        Library library = newLibrary();
+        library.addBook(new Book("LOTR-1", "The Fellowship of the Ring", "J.R.R. Tolkien", 1954, 20, "Fantasy"));
+        library.addBook(new Book("DUNE-1", "Dune", "Frank Herbert", 1965, 15, "Sci-Fi"));
+        library.addBook(new Book("HOB-1", "The Hobbit", "J.R.R. Tolkien", 1937, 12, "Fantasy"));
+
+        assertEquals(List.of("LOTR-1", "HOB-1"), ids(library.searchBooks("TOLKIEN")));
+        assertEquals(List.of("DUNE-1"), ids(library.searchBooks("sci")));
+        assertEquals(List.of("HOB-1"), ids(library.searchBooks("hob-")));
+        assertEquals(List.of("LOTR-1", "HOB-1"), ids(library.searchBooks("th")));
+        assertTrue(library.searchBooks("tolkein").isEmpty());
+        assertTrue(library.searchBooks("  ").isEmpty());
+        assertTrue(library.searchBooks(null).isEmpty());
+    }
+
+    @Test
+    public void searchFollowsUpdatesAndDeletes() {
+        Library library = newLibrary();
+        library.addBook(book("B-001", "Dune"));
+        library.addBook(book("B-002", "Emma"));
+
+        library.updateBook("B-001", new Book("B-001", "Solaris", "Stanislaw Lem", 1961, 9, "Sci-Fi"));
+        assertTrue(library.searchBooks("dune").isEmpty());
+        assertEquals(List.of("B-001"), ids(library.searchBooks("solaris")));
+        assertEquals("Solaris", library.searchBooks("lem").get(0).getTitle());
+
+        library.deleteBook("B-002");
+        assertTrue(library.searchBooks("emma").isEmpty());
+    }
+
+    @Test
+    public void searchSurvivesIndexCompaction() {
+        Library library = newLibrary();
+        for (int i = 0; i < 3000; i++) {
+            library.addBook(book(String.format("B-%05d", i), "Title " + i));
+        }
+        for (int i = 0; i < 3000; i += 3) {
+            library.addBook(book(String.format("X-%05d", i), "Extra " + i));
+        }
+        for (int i = 0; i < 3000; i++) {
+            if (i % 3 != 0) {
+                library.deleteBook(String.format("B-%05d", i));
+            }
+        }
+
+        assertEquals(1000, library.searchBooks("title ").size());
+        assertEquals(List.of("B-00300", "X-00300"), ids(library.searchBooks(" 300")));
+        assertTrue(library.searchBooks("title 1").stream().allMatch(b -> b.getId().startsWith("B-")));
+    }
+
+    @Test
+    public void journalRecoversChangesWithoutSnapshot() {
+        Library library = newLibrary();
+        library.addBook(book("B-001", "Dune"));
+        library.addBook(book("B-002", "Emma"));
+        library.saveData();
+        library.addBook(book("B-003", "Ulysses"));
+        library.updateBook("B-001", new Book("B-001", "Dune Messiah", "Frank Herbert", 1969, 12.5, "Sci-Fi"));
+        library.deleteBook("B-002");
+        // Simulated crash: no saveData, no close
+
+        Library recovered = newLibrary();
+        assertEquals(List.of("B-001", "B-003"), ids(recovered.getAllBooks()));
+        assertEquals("Dune Messiah", recovered.getBookById("B-001").getTitle());
+        assertEquals(List.of("B-001"), ids(recovered.searchBooks("messiah")));
+        recovered.close();
+        library.close();
+    }
+
+    @Test
+    public void journalIgnoresTornTail() throws IOException {
+        Library library = newLibrary();
+        library.addBook(book("B-001", "Dune"));
+        library.addBook(book("B-002", "Emma"));
+        library.close();
+
+        Path journal = tempDir.resolve("library_data.ser.journal");
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        Library recovered = newLibrary();
+        assertEquals(List.of("B-001"), ids(recovered.getAllBooks()));
+        recovered.addBook(book("B-003", "Ulysses"));
+        recovered.close();
+
+        Library again = newLibrary();
+        assertEquals(List.of("B-001", "B-003"), ids(again.getAllBooks()));
+        again.close();
+    }
+
+    @Test
+    public void journalIsCompactedIntoSnapshot() throws Exception {
+        Library library = newLibrary(5);
+        for (int i = 0; i < 12; i++) {
+            library.addBook(book(String.format("B-%03d", i), "Title " + i));
+        }
+        // Compaction only schedules the save, which runs in the background
+        Path data = tempDir.resolve("library_data.ser");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!Files.exists(data) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.exists(data));
+        library.addBook(book("B-012", "Title 12"));
+        library.close();
+
+        Path journal = tempDir.resolve("library_data.ser.journal");
+        assertTrue(Files.size(journal) > 0);
+
+        Library reloaded = newLibrary(5);
+        assertEquals(13, reloaded.getAllBooks().size());
+        reloaded.saveData();
+        assertEquals(0, Files.size(journal));
+        reloaded.close();
+    }
+
+    @Test
+    public void autosaveSnapshotsChangesInTheBackground() throws Exception {
+        Path journal = tempDir.resolve("library_data.ser.journal");
+        Library library = new Library(new LibraryConfig()
+                .setDataFile(tempDir.resolve("library_data.ser").toString())
+                .setAutosaveInterval(Duration.ofMillis(50)));
+        library.addBook(book("B-001", "First"));
+        library.addBook(book("B-002", "Second"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (Files.size(journal) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, Files.size(journal));
+        library.deleteBook("B-001");
+        library.close();
+
+        Library reloaded = newLibrary();
+        assertEquals(List.of("B-002"), reloaded.getAllBooks().stream().map(Book::getId).toList());
+        reloaded.close();
+    }
+
+    @Test
+    public void mappedStorageDecodesOnAccess() {
+        Library heap = newLibrary();
+        for (int i = 0; i < 50; i++) {
+            heap.addBook(book(String.format("B-%03d", 49 - i), "Title " + i));
+        }
+        heap.saveData();
+        heap.close();
+
+        LibraryConfig mappedConfig = new LibraryConfig()
+                .setDataFile(tempDir.resolve("library_data.ser").toString())
+                .setStorageMode(LibraryConfig.StorageMode.MAPPED);
+        Library mapped = new Library(mappedConfig);
+        assertEquals("Title 7", mapped.getBookById("B-042").getTitle());
+        assertNull(mapped.getBookById("B-999"));
+        assertFalse(mapped.isIdUnique("B-000"));
+
+        mapped.updateBook("B-042", new Book("B-042", "Renamed", "Someone", 1999, 5, "Poetry"));
+        mapped.deleteBook("B-049");
+        mapped.addBook(book("C-001", "Appended"));
+        assertEquals("Renamed", mapped.getBookById("B-042").getTitle());
+        assertNull(mapped.getBookById("B-049"));
+        assertEquals(List.of("B-042"), ids(mapped.searchBooks("renamed")));
+        assertEquals(50, mapped.getStatistics().getTotalBooks());
+        assertEquals(1, mapped.getStatistics().getGenres().get("Poetry").count());
+
+        List<String> order = ids(mapped.getAllBooks());
+        assertEquals(50, order.size());
+        assertEquals("B-048", order.get(0));
+        assertEquals("B-042", order.get(6));
+        assertEquals("C-001", order.get(49));
+
+        mapped.saveData();
+        assertEquals("Renamed", mapped.getBookById("B-042").getTitle());
+        assertEquals(order, ids(mapped.getAllBooks()));
+        mapped.close();
+
+        Library reopened = newLibrary();
+        assertEquals(order, ids(reopened.getAllBooks()));
+        reopened.close();
+    }
+
+    @Test
+    public void syncedSavesReplaceTheSnapshotAndEmptyTheJournal() throws IOException {
+        LibraryConfig config = new LibraryConfig()
+                .setDataFile(tempDir.resolve("library_data.ser").toString())
+                .setJournalSync(true);
+        Library library = new Library(config);
+        library.addBooks(List.of(book("B-A", "First"), book("B-B", "Second")));
+        library.addCopies("B-A", 2, "Annex");
+        library.saveData();
+        library.deleteBook("B-B");
+        library.saveData();
+        assertEquals(0, Files.size(Path.of(config.getJournalFile())));
+        library.close();
+
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(), files.filter(file -> file.toString().endsWith(".tmp")).toList());
+        }
+        Library reopened = new Library(config);
+        assertEquals(List.of("B-A"), ids(reopened.getAllBooks()));
+        assertEquals(3, reopened.getCopies("B-A").total());
+        reopened.close();
+    }
+
+    @Test
+    public void booksAddedBackGoLastInEveryStorageMode() {
+        Map<LibraryConfig.StorageMode, List<List<String>>> orders = new EnumMap<>(LibraryConfig.StorageMode.class);
+        for (LibraryConfig.StorageMode mode : LibraryConfig.StorageMode.values()) {
+            LibraryConfig config = new LibraryConfig()
+                    .setDataFile(tempDir.resolve(mode + ".ser").toString())
+                    .setStorageMode(mode);
+            List<List<String>> seen = new ArrayList<>();
+            Library library = new Library(config);
+            library.addBooks(List.of(book("B-A", "First"), book("B-B", "Second"), book("B-C", "Third")));
+            library.saveData();
+
+            library.deleteBook("B-A");
+            library.addBook(book("B-A", "First again"));
+            seen.add(ids(library.getAllBooks()));
+            library.saveData();
+            seen.add(ids(library.getAllBooks()));
+
+            library.deleteBook("B-B");
+            library.addBook(book("B-B", "Second again"));
+            seen.add(ids(library.getAllBooks()));
+            library.close();
+
+            Library reopened = new Library(config);
+            seen.add(ids(reopened.getAllBooks()));
+            reopened.close();
+            orders.put(mode, seen);
+        }
+        List<List<String>> expected = List.of(List.of("B-B", "B-C", "B-A"), List.of("B-B", "B-C", "B-A"),
+                List.of("B-C", "B-A", "B-B"), List.of("B-C", "B-A", "B-B"));
+        for (Map.Entry<LibraryConfig.StorageMode, List<List<String>>> entry : orders.entrySet()) {
+            assertEquals(expected, entry.getValue(), entry.getKey().toString());
+        }
+    }
+
+    @Test
+    public void statisticsFollowMutationsAndReload() {
+        Library library = newLibrary();
+        library.addBook(new Book("B-001", "Dune", "Frank Herbert", 1965, 10.10, "Sci-Fi"));
+        library.addBook(new Book("B-002", "Emma", "Jane Austen", 1815, 20.20, "Classic"));
+        library.addBook(new Book("B-003", "Persuasion", "Jane Austen", 1817, 0.30, "Classic"));
+        Book checkedOut = new Book("B-001", "Dune", "Frank Herbert", 1965, 10.10, "Sci-Fi");
+        checkedOut.setAvailable(false);
+        library.updateBook("B-001", checkedOut);
+        library.deleteBook("B-003");
+
+        LibraryStatistics stats = library.getStatistics();
+        assertEquals(2, stats.getTotalBooks());
+        assertEquals(1, stats.getAvailableBooks());
+        assertEquals(1, stats.getCheckedOutBooks());
+        assertEquals(30.30, stats.getTotalPrice(), 1e-9);
+        assertEquals(10.10, stats.getMinPrice(), 1e-9);
+        assertEquals(20.20, stats.getMaxPrice(), 1e-9);
+        assertEquals(1, stats.getAuthors().get("Jane Austen").count());
+        assertEquals(0, stats.getGenres().get("Sci-Fi").available());
+        assertEquals(List.of(1810, 1960), List.copyOf(stats.getDecades().keySet()));
+        library.close();
+
+        LibraryStatistics reloaded = newLibrary().getStatistics();
+        assertEquals(stats.getTotalBooks(), reloaded.getTotalBooks());
+        assertEquals(stats.getCheckedOutBooks(), reloaded.getCheckedOutBooks());
+        assertEquals(stats.getTotalPrice(), reloaded.getTotalPrice(), 1e-9);
+        assertEquals(stats.getGenres(), reloaded.getGenres());
+    }
+
+    @Test
+    public void pagesFollowSortKeyAndMutations() {
+        Library library = newLibrary();
+        library.addBook(book("B-003", "Cyrano"));
+        library.addBook(book("B-001", "anna Karenina"));
+        library.addBook(book("B-002", "Beloved"));
+
+        assertEquals(List.of("B-003", "B-001"), ids(library.getBooks(SortKey.ADDED, false, 0, 2)));
+        assertEquals(List.of("B-002", "B-001"), ids(library.getBooks(SortKey.ADDED, true, 0, 2)));
+        assertEquals(List.of("B-001", "B-002", "B-003"), ids(library.getBooks(SortKey.TITLE, false, 0, 10)));
+        assertEquals(List.of("B-002"), ids(library.getBooks(SortKey.ID, true, 1, 1)));
+
+        library.updateBook("B-003", new Book("B-003", "Aardvark", "X", 2000, 1, "Y"));
+        library.deleteBook("B-002");
+        library.addBook(book("B-004", "Zorba"));
+        assertEquals(List.of("B-003", "B-001", "B-004"), ids(library.getBooks(SortKey.TITLE, false, 0, 10)));
+        assertEquals(List.of("B-004"), ids(library.getBooks(SortKey.ADDED, false, 2, 10)));
+        assertTrue(library.getBooks(SortKey.PRICE, false, 5, 10).isEmpty());
+        assertEquals(3, library.getBookCount());
+    }
+
+    @Test
+    public void cursorsContinueAfterConcurrentChanges() {
+        Library library = newLibrary();
+        for (String title : List.of("Alpha", "Bravo", "Charlie", "Delta", "Echo")) {
+            library.addBook(book("B-" + title.charAt(0), title));
+        }
+        BookQuery query = new BookQuery().setSort(SortKey.TITLE, false).setLimit(2);
+        BookPage first = library.query(query);
+        assertEquals(List.of("B-A", "B-B"), ids(first.getBooks()));
+        assertEquals(5, first.getTotal());
+
+        // A book sorted before the cursor and a deleted one must not shift the next page
+        library.addBook(book("B-0", "Aardvark"));
+        library.deleteBook("B-C");
+        BookPage second = library.query(query.setCursor(first.getNextCursor()));
+        assertEquals(List.of("B-D", "B-E"), ids(second.getBooks()));
+        assertFalse(second.hasMore());
+
+        assertEquals(List.of("B-E", "B-D", "B-B", "B-A", "B-0"),
+                ids(library.stream(new BookQuery().setSort(SortKey.TITLE, true).setLimit(2)).toList()));
+        assertEquals(List.of("B-B"), ids(library.stream(new BookQuery().setText("bravo")).toList()));
+
+        BookQuery byText = new BookQuery().setText("b-").setLimit(3);
+        BookPage matches = library.query(byText);
+        assertEquals(List.of("B-A", "B-B", "B-D"), ids(matches.getBooks()));
+        assertEquals(List.of("B-E", "B-0"), ids(library.query(byText.setCursor(matches.getNextCursor())).getBooks()));
+
+        assertThrows(IllegalArgumentException.class, () -> library.query(new BookQuery().setCursor("garbage")));
+        assertThrows(IllegalArgumentException.class, () -> library.query(new BookQuery()
+                .setSort(SortKey.YEAR, false).setCursor(first.getNextCursor())));
+    }
+
+    @Test
+    public void rejectsCursorsWithNegativePositions() {
+        Library library = newLibrary();
+        for (String title : List.of("Alpha", "Bravo", "Charlie")) {
+            library.addBook(book("B-" + title.charAt(0), title));
+        }
+        BookQuery query = new BookQuery().setLimit(1);
+        String cursor = library.query(query).getNextCursor();
+        // Positional cursors end with the position as an int
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - 4, -2);
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> library.query(query.setLimit(10).setCursor(forged)));
+        assertTrue(error.getMessage().startsWith("Invalid cursor"), error.getMessage());
+        assertEquals(List.of("B-B", "B-C"), ids(library.query(query.setCursor(cursor)).getBooks()));
+        library.close();
+    }
+
+    @Test
+    public void filtersUseTheMostSelectiveIndex() {
+        Library library = newLibrary();
+        for (int i = 0; i < 200; i++) {
+            Book book = new Book(String.format("B-%03d", i), "Title " + i, i % 50 == 0 ? "Rare Author" : "Common Author",
+                    1900 + i % 100, i % 40 + 0.5, i % 2 == 0 ? "Fiction" : "Poetry");
+            book.setAvailable(i % 3 != 0);
+            library.addBook(book);
+        }
+
+        BookFilter filter = BookFilter.genre("Fiction").and(BookFilter.yearBetween(1990, 1999))
+                .and(BookFilter.priceBelow(20)).and(BookFilter.available(true));
+        List<String> expected = library.getAllBooks().stream().filter(filter).map(Book::getId).sorted().toList();
+        BookPage page = library.query(new BookQuery().setFilter(filter).setLimit(1000));
+        assertEquals(expected, ids(page.getBooks()));
+        assertFalse(expected.isEmpty());
+        assertTrue(library.explain(new BookQuery().setFilter(filter)).startsWith("year in [1990.0, 1999.0]"));
+
+        BookFilter rare = BookFilter.available(true).and(BookFilter.author("Rare Author"));
+        assertTrue(library.explain(new BookQuery().setFilter(rare)).startsWith("author = Rare Author (~4 "));
+        assertEquals(List.of("B-050", "B-100"), ids(library.query(new BookQuery().setFilter(rare)).getBooks()));
+
+        // Filters follow updates and combine with text and sorting
+        library.updateBook("B-100", new Book("B-100", "Renamed", "Someone", 1950, 99, "Poetry"));
+        assertEquals(List.of("B-050"), ids(library.query(new BookQuery().setFilter(rare)).getBooks()));
+        BookPage priced = library.query(new BookQuery().setText("title 1")
+                .setFilter(BookFilter.priceBetween(10.5, 12.5)).setSort(SortKey.PRICE, true).setLimit(2));
+        assertEquals(9, priced.getTotal());
+        assertEquals(List.of("B-172", "B-132"), ids(priced.getBooks()));
+        assertEquals(List.of("B-012", "B-171"), ids(library.query(new BookQuery().setText("title 1")
+                .setFilter(BookFilter.priceBetween(10.5, 12.5)).setSort(SortKey.PRICE, true).setLimit(2)
+                .setCursor(priced.getNextCursor())).getBooks()));
+    }
+
+    @Test
+    public void columnarStorageKeepsOrderAcrossUpdatesAndRepacking() {
+        LibraryConfig columnar = new LibraryConfig()
+                .setDataFile(tempDir.resolve("library_data.ser").toString())
+                .setStorageMode(LibraryConfig.StorageMode.COLUMNAR);
+        Library library = new Library(columnar);
+        for (int i = 0; i < 3000; i++) {
+            library.addBook(new Book(String.format("B-%04d", i), "Título " + i, "Author " + i % 7, 1900 + i % 120,
+                    i % 50, i % 2 == 0 ? "Fiction" : "Poetry"));
+        }
+        // Enough deletes to repack the columns
+        for (int i = 0; i < 3000; i++) {
+            if (i % 3 != 0) {
+                assertTrue(library.deleteBook(String.format("B-%04d", i)));
+            }
+        }
+        Book update = new Book("B-0003", "Renamed", "Someone", 1999, 5, "Drama");
+        update.setAvailable(false);
+        library.updateBook("B-0003", update);
+
+        assertEquals(1000, library.getBookCount());
+        assertNull(library.getBookById("B-0001"));
+        Book stored = library.getBookById("B-0003");
+        assertEquals("Renamed", stored.getTitle());
+        assertFalse(stored.isAvailable());
+        assertEquals("Título 2997", library.getBookById("B-2997").getTitle());
+        List<String> order = ids(library.getAllBooks());
+        assertEquals(List.of("B-0000", "B-0003", "B-0006"), order.subList(0, 3));
+        assertEquals(List.of("B-0003"), ids(library.searchBooks("renamed")));
+        assertEquals(1, library.getStatistics().getGenres().get("Drama").count());
+        library.close();
+
+        Library reopened = new Library(columnar);
+        assertEquals(order, ids(reopened.getAllBooks()));
+        assertEquals("Someone", reopened.getBookById("B-0003").getAuthor());
+        reopened.close();
+    }
+
+    @Test
+    public void columnarQueriesScanTheColumnsAndMatchTheIndexes() {
+        Library heap = new Library(new LibraryConfig().setDataFile(tempDir.resolve("heap.dat").toString()));
+        Library columnar = new Library(new LibraryConfig().setDataFile(tempDir.resolve("columnar.dat").toString())
+                .setStorageMode(LibraryConfig.StorageMode.COLUMNAR));
+        List<Book> catalog = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Book book = new Book(String.format("B-%04d", i), "Title " + i % 400, "Author " + i % 13, 1900 + i % 97,
+                    i % 41 + 0.5, i % 3 == 0 ? "Fiction" : "Poetry");
+            book.setAvailable(i % 5 != 0);
+            catalog.add(book);
+        }
+        heap.addBooks(catalog);
+        columnar.addBooks(catalog);
+        assertEquals(ids(heap.fuzzySearch("titel 17 autor", 20)), ids(columnar.fuzzySearch("titel 17 autor", 20)));
+        // Enough deletes to compact the fuzzy index
+        for (int i = 0; i < 3000; i += 3) {
+            heap.deleteBook(String.format("B-%04d", i));
+            columnar.deleteBook(String.format("B-%04d", i));
+            heap.deleteBook(String.format("B-%04d", i + 1));
+            columnar.deleteBook(String.format("B-%04d", i + 1));
+        }
+
+        List<BookQuery> queries = new ArrayList<>();
+        for (SortKey key : SortKey.values()) {
+            queries.add(new BookQuery().setSort(key, false).setLimit(7));
+            queries.add(new BookQuery().setSort(key, true).setOffset(40).setLimit(25));
+            queries.add(new BookQuery().setText("title 1").setSort(key, true).setLimit(30));
+            queries.add(new BookQuery().setFilter(BookFilter.genre("Poetry").and(BookFilter.yearBetween(1950, 1960))
+                    .and(BookFilter.available(true))).setSort(key, false).setLimit(9));
+            queries.add(new BookQuery().setText("author 4").setFilter(BookFilter.priceBelow(20))
+                    .setSort(key, false).setLimit(50));
+        }
+        for (BookQuery query : queries) {
+            BookPage expected = heap.query(query);
+            BookPage actual = columnar.query(query);
+            assertEquals(ids(expected.getBooks()), ids(actual.getBooks()), query.toString());
+            assertEquals(expected.getTotal(), actual.getTotal());
+            assertEquals(ids(heap.stream(query).toList()), ids(columnar.stream(query).toList()), query.toString());
+        }
+        assertEquals(ids(heap.searchBooks("TITLE 39")), ids(columnar.searchBooks("TITLE 39")));
+        assertEquals(List.of(), columnar.searchBooks(" "));
+        assertEquals(ids(heap.fuzzySearch("titel 17 autor", 20)), ids(columnar.fuzzySearch("titel 17 autor", 20)));
+        assertEquals("column scan", columnar.explain(new BookQuery().setFilter(BookFilter.genre("Poetry"))));
+        heap.close();
+        columnar.close();
+    }
+
+    @Test
+    public void parallelScansMatchSequentialResults() {
+        LibraryConfig parallel = new LibraryConfig().setDataFile(tempDir.resolve("parallel.dat").toString())
+                .setParallelism(4).setParallelThreshold(1);
+        LibraryConfig sequential = new LibraryConfig().setDataFile(tempDir.resolve("sequential.dat").toString())
+                .setParallelism(1);
+        List<Book> books = new java.util.ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            books.add(new Book(String.format("B-%05d", i), "Title " + i, "Author " + i % 97, 1900 + i % 120,
+                    i % 300 / 4.0, i % 3 == 0 ? "Fiction" : "Poetry"));
+        }
+        Library fast = new Library(parallel);
+        Library slow = new Library(sequential);
+        fast.addBooks(books);
+        slow.addBooks(books);
+        fast.saveData();
+        fast.close();
+        fast = new Library(parallel);
+
+        for (String text : List.of("12", "title 1", "author 5", "zz")) {
+            assertEquals(ids(slow.searchBooks(text)), ids(fast.searchBooks(text)), text);
+        }
+        BookQuery broad = new BookQuery().setFilter(BookFilter.genre("Poetry").and(BookFilter.priceBelow(40)))
+                .setLimit(100_000);
+        List<String> expected = ids(slow.query(broad).getBooks());
+        assertEquals(expected, ids(fast.query(broad).getBooks()));
+        assertTrue(expected.size() > 5000);
+        LibraryStatistics expectedStats = slow.getStatistics();
+        LibraryStatistics stats = fast.getStatistics();
+        assertEquals(expectedStats.getTotalBooks(), stats.getTotalBooks());
+        assertEquals(expectedStats.getTotalPrice(), stats.getTotalPrice());
+        assertEquals(expectedStats.getMinPrice(), stats.getMinPrice());
+        assertEquals(expectedStats.getMaxPrice(), stats.getMaxPrice());
+        assertEquals(expectedStats.getAuthors(), stats.getAuthors());
+        assertEquals(expectedStats.getDecades(), stats.getDecades());
+        fast.close();
+        slow.close();
+    }
+
+    @Test
+    public void searchCacheDropsOnlyAffectedQueries() {
+        Library library = newLibrary();
+        library.addBook(new Book("LOTR-1", "The Fellowship of the Ring", "J.R.R. Tolkien", 1954, 20, "Fantasy"));
+        library.addBook(new Book("DUNE-1", "Dune", "Frank Herbert", 1965, 15, "Sci-Fi"));
+        List<Book> tolkien = library.searchBooks("Tolkien");
+        List<Book> herbert = library.searchBooks("herbert");
+        assertSame(tolkien, library.searchBooks("TOLKIEN"));
+        assertEquals(1, library.getSearchCacheStats().hits());
+
+        library.addBook(new Book("HOB-1", "The Hobbit", "J.R.R. Tolkien", 1937, 12, "Fantasy"));
+        assertSame(herbert, library.searchBooks("herbert"));
+        assertEquals(List.of("LOTR-1", "HOB-1"), ids(library.searchBooks("tolkien")));
+
+        // Availability is not searchable, but cached results must not keep the old instance
+        Book checkedOut = new Book("DUNE-1", "Dune", "Frank Herbert", 1965, 15, "Sci-Fi");
+        checkedOut.setAvailable(false);
+        library.updateBook("DUNE-1", checkedOut);
+        assertFalse(library.searchBooks("herbert").get(0).isAvailable());
+        List<Book> fantasy = library.query(new BookQuery().setText("fantasy")).getBooks();
+        library.deleteBook("DUNE-1");
+        assertTrue(library.searchBooks("herbert").isEmpty());
+        assertEquals(fantasy, library.query(new BookQuery().setText("fantasy")).getBooks());
+
+        QueryCache.Stats stats = library.getSearchCacheStats();
+        assertEquals(3, stats.hits());
+        assertEquals(6, stats.misses());
+        assertEquals(3, stats.invalidations());
+    }
+
+    @Test
+    public void metricsCountOperationsAndIoAndAreVisibleOverJmx() throws Exception {
+        LibraryConfig config = new LibraryConfig().setDataFile(tempDir.resolve("library_data.ser").toString())
+                .setJmxEnabled(true);
+        Library library = new Library(config);
+        library.addBook(book("B-001", "Dune"));
+        library.addBook(book("B-002", "Emma"));
+        library.getBookById("B-001");
+        library.searchBooks("dune");
+        library.saveData();
+
+        LibraryMetrics metrics = library.getMetrics();
+        assertEquals(2, metrics.get(LibraryMetrics.Operation.ADD_BOOK).getCount());
+        assertEquals(1, metrics.get(LibraryMetrics.Operation.GET_BOOK_BY_ID).getCount());
+        assertEquals(0, metrics.get(LibraryMetrics.Operation.DELETE_BOOK).getCount());
+        assertTrue(metrics.get(LibraryMetrics.Operation.ADD_BOOK).getMaxMicros() > 0);
+        assertEquals(2, metrics.get(LibraryMetrics.Io.JOURNAL_APPEND).getCount());
+        assertTrue(metrics.get(LibraryMetrics.Io.JOURNAL_APPEND).getBytes() > 0);
+        assertEquals(Files.size(tempDir.resolve("library_data.ser")),
+                metrics.get(LibraryMetrics.Io.SNAPSHOT_SAVE).getBytes());
+        String dump = metrics.dump();
+        assertTrue(dump.contains("addBook"));
+        assertTrue(dump.contains("snapshot.save"));
+        assertFalse(dump.contains("deleteBook"));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String base = "com.library:type=Library,name="
+                + ObjectName.quote(tempDir.resolve("library_data.ser").toAbsolutePath().toString());
+        ObjectName addBook = new ObjectName(base + ",operation=addBook");
+        assertEquals(2L, server.getAttribute(addBook, "Count"));
+        assertTrue(((String) server.invoke(new ObjectName(base), "dump", null, null)).contains("searchBooks"));
+        library.close();
+        assertFalse(server.isRegistered(addBook));
+    }
+
+    @Test
+    public void copiesAreJournaledSnapshottedAndDroppedWithTheirTitle() {
+        Library original = newLibrary();
+        original.addBook(book("B-001", "Dune"));
+        original.addBook(book("B-002", "Emma"));
+        original.addBook(book("B-003", "Ulysses"));
+        assertEquals(3, original.getCopyCount());
+        assertEquals(1, original.addCopies("B-001", 4, "Main"));
+        original.moveCopy("B-001", 2, "North");
+        original.withdrawCopy("B-001", 3);
+        assertThrows(IllegalArgumentException.class, () -> original.addCopies("B-404", 1, "Main"));
+        assertThrows(IllegalArgumentException.class, () -> original.addCopies("B-001", 1, " "));
+        assertThrows(IllegalArgumentException.class, () -> original.moveCopy("B-001", 3, "Main"));
+        assertEquals(6, original.getCopyCount());
+        original.close();
+
+        // Replayed from the journal
+        Library library = newLibrary();
+        CopyInventory copies = library.getCopies("B-001");
+        assertEquals(4, copies.total());
+        assertEquals(4, copies.available());
+        assertEquals(List.of("", "Main", "North", "Main"),
+                List.of(copies.location(0), copies.location(1), copies.location(2), copies.location(4)));
+        assertFalse(copies.exists(3));
+        assertEquals(1, library.getCopies("B-002").total());
+        assertNull(library.getCopies("B-404"));
+        library.saveData();
+        library.addCopies("B-003", 2, "South");
+        library.close();
+
+        // Loaded from the snapshot, with the journal on top
+        library = newLibrary();
+        assertEquals(8, library.getCopyCount());
+        assertEquals("North", library.getCopies("B-001").location(2));
+        assertEquals(3, library.getCopies("B-003").available());
+        // Searches and statistics stay per title
+        assertEquals(1, library.searchBooks("dune").size());
+        assertEquals(3, library.getStatistics().getTotalBooks());
+        library.deleteBook("B-001");
+        assertEquals(4, library.getCopyCount());
+        library.addBook(book("B-001", "Dune"));
+        assertEquals(1, library.getCopies("B-001").total());
+        library.close();
+    }
+
+    @Test
+    public void batchesApplyAllChangesOrNone() {
+        Library original = newLibrary();
+        original.addBook(book("B-001", "Dune"));
+        original.addBook(book("B-002", "Emma"));
+        original.addBook(book("B-003", "Ulysses"));
+        Book cheaper = new Book("B-002", "Emma", "Author B-002", 2000, 5.0, "Fiction");
+
+        BookBatch invalid = new BookBatch()
+                .update("B-002", cheaper)
+                .delete("B-001")
+                .setAvailable("B-001", false);
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> original.applyBatch(invalid));
+        assertTrue(error.getMessage().startsWith("Batch change 2:"), error.getMessage());
+        assertEquals(10.0, original.getBookById("B-002").getPrice());
+        assertNotNull(original.getBookById("B-001"));
+
+        original.applyBatch(new BookBatch()
+                .add(book("B-004", "Walden"))
+                .update("B-002", cheaper)
+                .setAvailable("B-003", false)
+                .delete("B-001")
+                .add(book("B-001", "Dune again"))
+                .add(book("B-005", "Gone"))
+                .delete("B-005"));
+        assertEquals(List.of("B-002", "B-003", "B-004", "B-001"), ids(original.getAllBooks()));
+        assertEquals(5.0, original.getBookById("B-002").getPrice());
+        assertFalse(original.getBookById("B-003").isAvailable());
+        assertEquals(List.of("B-001"), ids(original.searchBooks("dune again")));
+        assertEquals(1, original.getStatistics().getCheckedOutBooks());
+        original.close();
+
+        // Replayed from the journal's single batch record
+        Library library = newLibrary();
+        assertEquals(List.of("B-002", "B-003", "B-004", "B-001"), ids(library.getAllBooks()));
+        assertEquals("Dune again", library.getBookById("B-001").getTitle());
+        assertFalse(library.getBookById("B-003").isAvailable());
+        library.close();
+    }
+
+    @Test
+    public void fuzzySearchToleratesTyposAndFollowsMutations() {
+        Library library = newLibrary();
+        library.addBook(new Book("B-001", "The Hobbit", "J. R. R. Tolkien", 1937, 10.0, "Fantasy"));
+        library.addBook(new Book("B-002", "War and Peace", "Leo Tolstoy", 1869, 12.0, "Classics"));
+        assertEquals(List.of(), library.searchBooks("tolkein"));
+        assertEquals(List.of("B-001"), ids(library.fuzzySearch("tolkein", 5)));
+        assertThrows(IllegalArgumentException.class, () -> library.fuzzySearch("tolkein", 0));
+
+        library.addBook(new Book("B-003", "The Silmarillion", "J. R. R. Tolkien", 1977, 15.0, "Fantasy"));
+        library.applyBatch(new BookBatch()
+                .update("B-001", new Book("B-001", "The Hobbit", "Anonymous", 1937, 10.0, "Fantasy"))
+                .delete("B-002"));
+        assertEquals(List.of("B-003"), ids(library.fuzzySearch("tolkein silmarilion", 5)));
+        assertEquals(List.of(), library.fuzzySearch("tolstoi", 5));
+        library.close();
+    }
+
+    private static List<String> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+}
@@ -0,0 +1,134 @@
+package com.library.audit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AuditLogTest {
+    private final Logger logger = Logger.getLogger(AuditLogTest.class.getName());
+    private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile boolean stalled;
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            try {
+                if (stalled) {
+                    entered.countDown();
+                    released.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @BeforeEach
+    public void attachHandler() {
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+        logger.addHandler(handler);
+    }
+
+    @AfterEach
+    public void detachHandler() {
+        released.countDown();
+        logger.removeHandler(handler);
+    }
+
+    @Test
+    public void publishesInOrderWithCallerSourceAndLazyMessage() {
+        try (AuditLog audit = new AuditLog(logger, "com.example.Caller", 16, AuditLog.OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 100; i++) {
+                audit.info("work", "Item {0}: {1,number,#}", "id-" + i, i * 1000);
+            }
+            audit.flush();
+            assertEquals(100, records.size());
+            LogRecord last = records.get(99);
+            assertEquals("Item id-99: 99000", new SimpleFormatter().formatMessage(last));
+            assertEquals("com.example.Caller", last.getSourceClassName());
+            assertEquals("work", last.getSourceMethodName());
+            assertEquals(0, audit.getDropped());
+        }
+    }
+
+    @Test
+    public void dropsWhenTheHandlerFallsBehind() {
+        stalled = true;
+        try (AuditLog audit = new AuditLog(logger, "Caller", 4, AuditLog.OverflowPolicy.DROP_NEWEST)) {
+            for (int i = 0; i < 20; i++) {
+                audit.info("work", "Item {0}", i);
+            }
+            // The stalled writer holds the first event and at most four drained with it,
+            // the queue four more
+            assertTrue(audit.getDropped() >= 20 - 1 - 4 - 4);
+            released.countDown();
+            audit.flush();
+            assertEquals(20, records.stream().filter(r -> r.getLevel() == Level.INFO).count() + audit.getDropped());
+            assertTrue(records.stream().anyMatch(r -> r.getLevel() == Level.WARNING
+                    && r.getMessage().contains("dropped " + audit.getDropped())));
+        }
+    }
+
+    @Test
+    public void dropOldestKeepsTheLatestEvents() throws InterruptedException {
+        stalled = true;
+        try (AuditLog audit = new AuditLog(logger, "Caller", 2, AuditLog.OverflowPolicy.DROP_OLDEST)) {
+            audit.info("work", "Item {0}", "first");
+            entered.await();
+            for (int i = 0; i < 10; i++) {
+                audit.info("work", "Item {0}", i);
+            }
+            assertEquals(8, audit.getDropped());
+            released.countDown();
+            audit.flush();
+        }
+        List<Object> published = records.stream().filter(r -> r.getLevel() == Level.INFO)
+                .map(r -> r.getParameters()[0]).toList();
+        assertEquals(List.of("first", 8, 9), published);
+    }
+
+    @Test
+    public void capacityZeroLogsInTheCallingThreadAndSkipsDisabledLevels() {
+        AuditLog audit = new AuditLog(logger, "Caller", 0, AuditLog.OverflowPolicy.BLOCK);
+        audit.info("work", "Item {0}", 1);
+        assertEquals(1, records.size());
+
+        logger.setLevel(Level.WARNING);
+        audit.info("work", "Item {0}", 2);
+        assertEquals(1, records.size());
+        audit.close();
+    }
+
+    @Test
+    public void closePublishesWhatIsQueuedAndLaterEventsSynchronously() {
+        AuditLog audit = new AuditLog(logger, "Caller", 1024, AuditLog.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 500; i++) {
+            audit.info("work", "Item {0}", i);
+        }
+        audit.close();
+        assertEquals(500, records.size());
+        audit.info("work", "Item {0}", "late");
+        assertEquals(501, records.size());
+    }
+}
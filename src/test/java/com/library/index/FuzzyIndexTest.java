@@ -0,0 +1,141 @@
+package com.library.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+public class FuzzyIndexTest {
+    private static final String[] WORDS = {
+            "night", "river", "shadow", "garden", "empire", "silent", "winter", "tower", "kingdom",
+            "stranger", "war", "peace", "tolkien", "tolstoy", "austen", "orwell", "dickens", "wells"};
+
+    private static Book book(String id, String title, String author) {
+        return new Book(id, title, author, 2000, 10.0, "Fiction");
+    }
+
+    @Test
+    public void misspelledWordsFindRankedMatches() {
+        FuzzyIndex index = new FuzzyIndex();
+        index.add(book("B-1", "The Hobbit", "J. R. R. Tolkien"));
+        index.add(book("B-2", "War and Peace", "Leo Tolstoy"));
+        index.add(book("B-3", "The Silmarillion", "J. R. R. Tolkien"));
+        index.add(book("B-4", "Emma", "Jane Austen"));
+
+        assertEquals(List.of("B-1", "B-3"), ids(index.search("tolkein", 10)));
+        assertEquals(List.of("B-3", "B-1"), ids(index.search("silmarilion tolkien", 10)));
+        assertEquals(List.of("B-2"), ids(index.search("Tolstoi peace", 10)));
+        assertEquals(List.of("B-1"), ids(index.search("tolkein", 1)));
+        // Short words match exactly only
+        assertEquals(List.of(), ids(index.search("emm", 10)));
+        assertEquals(List.of(), ids(index.search("  ", 10)));
+
+        index.update(index.search("hobbit", 1).get(0), book("B-1", "The Hobbit", "Anonymous"));
+        assertEquals(List.of("B-3"), ids(index.search("tolkein", 10)));
+        index.remove(book("B-3", "Any", "Any"));
+        assertEquals(List.of(), ids(index.search("tolkein", 10)));
+        assertEquals(List.of("B-1"), ids(index.search("hobit", 10)));
+    }
+
+    @Test
+    public void renamingBooksReclaimsRetiredTerms() {
+        FuzzyIndex index = new FuzzyIndex();
+        Book first = book("B-1", "Shadow", "Orwell");
+        Book second = book("B-2", "Garden", "Austen");
+        index.add(first);
+        index.add(second);
+        for (int i = 0; i < 10_000; i++) {
+            Book renamed = book("B-1", "Shadow edition" + i, "Orwell");
+            index.update(first, renamed);
+            first = renamed;
+        }
+        assertEquals(5, index.termCount());
+        assertTrue(index.termSlots() < 3000, "term slots: " + index.termSlots());
+        assertEquals(List.of("B-1"), ids(index.search("edition9999", 10)));
+        assertEquals(List.of("B-2"), ids(index.search("gardn austen", 10)));
+        assertEquals(List.of("B-1"), ids(index.search("shadwo", 10)));
+    }
+
+    @Test
+    public void distanceCountsSwapsAsOneEditAndStopsAtTheBound() {
+        assertEquals(1, FuzzyIndex.distance("tolkein", "tolkien", 2));
+        assertEquals(0, FuzzyIndex.distance("river", "river", 1));
+        assertEquals(2, FuzzyIndex.distance("kitten", "sittin", 2));
+        assertEquals(3, FuzzyIndex.distance("kitten", "sitting", 2));
+        assertEquals(2, FuzzyIndex.distance("abc", "abcdef", 1));
+    }
+
+    @Test
+    public void topResultsMatchScoringEveryBookUnderRandomMutations() {
+        Random random = new Random(7);
+        FuzzyIndex index = new FuzzyIndex();
+        // Insertion order, as the index breaks ties
+        Map<String, Book> reference = new LinkedHashMap<>();
+        for (int step = 0; step < 6000; step++) {
+            String id = "B-" + random.nextInt(2500);
+            Book current = reference.get(id);
+            Book next = book(id, phrase(random, 1 + random.nextInt(3)), phrase(random, 1));
+            if (current == null) {
+                index.add(next);
+                reference.put(id, next);
+            } else if (random.nextInt(3) > 0) {
+                index.update(current, next);
+                reference.put(id, next);
+            } else {
+                index.remove(current);
+                reference.remove(id);
+            }
+        }
+        assertEquals(reference.size(), index.size());
+        for (String query : new String[]{"nigth", "shadwo gardn", "tolkein war", "strangr kingdon peace", "welles"}) {
+            for (int limit : new int[]{1, 10, 200}) {
+                assertEquals(bruteForce(reference.values(), query, limit), ids(index.search(query, limit)),
+                        query + " top " + limit);
+            }
+        }
+    }
+
+    private static String phrase(Random random, int words) {
+        StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            phrase.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return phrase.toString();
+    }
+
+    // The index's scoring applied to every book, best first and stable for equal scores
+    private static List<String> bruteForce(Collection<Book> books, String query, int limit) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (Book book : books) {
+            for (String word : FuzzyIndex.words(book.getTitle() + ' ' + book.getAuthor())) {
+                frequencies.merge(word, 1, Integer::sum);
+            }
+        }
+        List<Map.Entry<String, Double>> scored = new ArrayList<>();
+        for (Book book : books) {
+            List<String> words = FuzzyIndex.words(book.getTitle() + ' ' + book.getAuthor());
+            double score = 0;
+            for (String queryWord : FuzzyIndex.words(query)) {
+                int maxEdits = queryWord.length() < 5 ? 0 : queryWord.length() < 9 ? 1 : 2;
+                double best = 0;
+                for (String word : words) {
+                    int edits = FuzzyIndex.distance(queryWord, word, maxEdits);
+                    if (edits <= maxEdits) {
+                        best = Math.max(best, Math.log(1 + (double) books.size() / frequencies.get(word)) / (1 + edits));
+                    }
+                }
+                score += best;
+            }
+            if (score > 0) {
+                scored.add(Map.entry(book.getId(), score));
+            }
+        }
+        scored.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return scored.stream().limit(limit).map(Map.Entry::getKey).toList();
+    }
+
+    private static List<String> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+}
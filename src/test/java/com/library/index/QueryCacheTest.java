@@ -0,0 +1,60 @@
+package com.library.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class QueryCacheTest {
+    private static final List<Book> RESULT = List.of();
+
+    @Test
+    public void lruEvictsTheLeastRecentlyUsedEntry() {
+        QueryCache cache = new QueryCache(2, QueryCache.Policy.LRU);
+        cache.put("a", RESULT);
+        cache.put("b", RESULT);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.put("c", RESULT);
+
+        assertNull(cache.get("a"));
+        assertSame(RESULT, cache.get("b"));
+        assertEquals(new QueryCache.Stats(4, 1, 1, 0, 2), cache.stats());
+    }
+
+    @Test
+    public void lfuEvictsTheLeastFrequentlyUsedEntry() {
+        QueryCache cache = new QueryCache(2, QueryCache.Policy.LFU);
+        cache.put("a", RESULT);
+        cache.put("b", RESULT);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.put("c", RESULT);
+
+        assertSame(RESULT, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    public void invalidationDropsOnlyKeysContainedInTheText() {
+        QueryCache cache = new QueryCache(10, QueryCache.Policy.LRU);
+        cache.put("tolkien", RESULT);
+        cache.put("fantasy", RESULT);
+        cache.put("herbert", RESULT);
+        cache.invalidate("the hobbit\u0000j.r.r. tolkien\u0000fantasy\u0000b-001");
+
+        assertNull(cache.get("tolkien"));
+        assertNull(cache.get("fantasy"));
+        assertSame(RESULT, cache.get("herbert"));
+        assertEquals(2, cache.stats().invalidations());
+
+        QueryCache disabled = new QueryCache(0, QueryCache.Policy.LFU);
+        disabled.put("a", RESULT);
+        assertNull(disabled.get("a"));
+        assertEquals(new QueryCache.Stats(0, 0, 0, 0, 0), disabled.stats());
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+public class SortedIndexTest {
+    private static Book book(int i, int year) {
+        return new Book(String.format("B-%05d", i), "Title " + i, "Author", year, 1.0, "Fiction");
+    }
+
+    @Test
+    public void pagesMatchSortedReferenceUnderRandomMutations() {
+        Random random = new Random(42);
+        SortedIndex index = new SortedIndex(SortKey.YEAR);
+        Map<String, Book> reference = new HashMap<>();
+        for (int step = 0; step < 20_000; step++) {
+            int i = random.nextInt(3000);
+            Book current = reference.get(String.format("B-%05d", i));
+            Book next = book(i, 1900 + random.nextInt(50));
+            if (current == null) {
+                index.add(next);
+                reference.put(next.getId(), next);
+            } else if (random.nextBoolean()) {
+                index.update(current, next);
+                reference.put(next.getId(), next);
+            } else {
+                index.remove(current);
+                reference.remove(current.getId());
+            }
+        }
+
+        List<Book> expected = new ArrayList<>(reference.values());
+        expected.sort(SortKey.YEAR.order());
+        assertEquals(expected.size(), index.size());
+        for (int offset : new int[]{0, 1, 511, 512, 1000, expected.size() - 5}) {
+            assertEquals(expected.subList(offset, Math.min(offset + 25, expected.size())), index.page(offset, 25, false));
+        }
+        List<Book> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        assertEquals(reversed.subList(700, 740), index.page(700, 40, true));
+        assertEquals(reversed, index.page(0, Integer.MAX_VALUE, true));
+        assertTrue(index.page(expected.size(), 10, false).isEmpty());
+    }
+
+    @Test
+    public void breaksTiesById() {
+        SortedIndex index = new SortedIndex(SortKey.YEAR);
+        index.add(book(3, 2000));
+        index.add(book(1, 2000));
+        index.add(book(2, 1999));
+        assertEquals(List.of("B-00002", "B-00001", "B-00003"),
+                index.page(0, 10, false).stream().map(Book::getId).toList());
+        assertThrows(IllegalStateException.class, () -> index.add(book(1, 2000)));
+    }
+}
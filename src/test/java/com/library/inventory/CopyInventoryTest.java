@@ -0,0 +1,108 @@
+package com.library.inventory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.storage.Holding;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+
+public class CopyInventoryTest {
+    private final Holdings holdings = new Holdings();
+
+    @Test
+    public void copiesSpanChunksAndKeepTheirNumbers() {
+        CopyInventory copies = holdings.getOrCreate("B-1");
+        assertEquals(1, copies.total());
+        assertEquals("", copies.location(0));
+        assertEquals(1, holdings.addCopies("B-1", 99, "Main"));
+        holdings.moveCopy("B-1", 70, "North");
+        assertEquals(100, copies.total());
+        assertEquals(100, copies.available());
+        assertEquals("Main", copies.location(64));
+        assertEquals("North", copies.location(70));
+        assertNull(copies.location(100));
+
+        assertTrue(copies.take(70));
+        assertFalse(copies.take(70));
+        assertThrows(IllegalStateException.class, () -> holdings.withdrawCopy("B-1", 5));
+        assertTrue(copies.take(5));
+        holdings.withdrawCopy("B-1", 5);
+        assertFalse(copies.exists(5));
+        assertThrows(IllegalArgumentException.class, () -> copies.putBack(5));
+        assertEquals(99, copies.total());
+        assertEquals(98, copies.available());
+        copies.putBack(70);
+        assertThrows(IllegalStateException.class, () -> copies.putBack(70));
+        assertEquals(0, copies.take());
+        assertEquals(1, copies.take());
+        assertEquals(2, copies.take());
+        assertEquals(101, holdings.copyCount(3));
+
+        Holding holding = holdings.holding("B-1");
+        assertNull(holding.locations().get(5));
+        Holdings restored = new Holdings();
+        restored.restore(holding);
+        CopyInventory reloaded = restored.get("B-1");
+        assertEquals(99, reloaded.total());
+        assertEquals(99, reloaded.available());
+        assertEquals("North", reloaded.location(70));
+        assertFalse(reloaded.exists(5));
+        assertEquals(holding, reloaded.toHolding("B-1"));
+    }
+
+    @Test
+    public void onlyTitlesWithMoreThanTheirImplicitCopyAreSnapshotted() {
+        holdings.getOrCreate("B-1");
+        holdings.getOrCreate("B-2").take(0);
+        holdings.addCopies("B-3", 1, "Main");
+        holdings.restore(new Holding("B-4", Arrays.asList((String) null)));
+        assertEquals(List.of("B-3", "B-4"), holdings.snapshot().stream().map(Holding::bookId).sorted().toList());
+        assertEquals(4, holdings.copyCount(4));
+        holdings.remove("B-3");
+        assertEquals(2, holdings.copyCount(3));
+    }
+
+    @Test
+    public void concurrentTakesHandOutEachCopyOnce() throws Exception {
+        holdings.addCopies("B-1", 199, "Main");
+        CopyInventory copies = holdings.get("B-1");
+        int threads = 8;
+        AtomicIntegerArray out = new AtomicIntegerArray(copies.size());
+        AtomicInteger doubleLent = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 20_000; i++) {
+                    int copy = copies.take();
+                    if (copy < 0) {
+                        continue;
+                    }
+                    if (out.getAndIncrement(copy) != 0) {
+                        doubleLent.incrementAndGet();
+                    }
+                    out.decrementAndGet(copy);
+                    copies.putBack(copy);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, doubleLent.get());
+        assertEquals(200, copies.available());
+    }
+}
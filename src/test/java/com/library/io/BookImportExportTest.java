@@ -0,0 +1,94 @@
+package com.library.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import com.library.Library;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BookImportExportTest {
+    @TempDir
+    Path tempDir;
+
+    private Library newLibrary(String name) {
+        return new Library(tempDir.resolve(name).toString());
+    }
+
+    @Test
+    public void importsCsvWithHeaderAndQuotedFields() throws IOException {
+        Library library = newLibrary("library_data.ser");
+        String csv = "title,id,author,year,price,genre,available\n"
+                + "\"Dune, Part One\",B-001,Frank Herbert,1965,9.99,Sci-Fi,yes\n"
+                + "\"Say \"\"hi\"\"\nagain\",B-002,Anon,2001,5,Poetry,false\n";
+
+        TransferReport report = new BookImporter(library).importFrom(new StringReader(csv), BookFileFormat.CSV);
+
+        assertEquals(2, report.getRowsAccepted());
+        assertEquals(0, report.getErrorCount());
+        assertEquals("Dune, Part One", library.getBookById("B-001").getTitle());
+        Book second = library.getBookById("B-002");
+        assertEquals("Say \"hi\"\nagain", second.getTitle());
+        assertFalse(second.isAvailable());
+    }
+
+    @Test
+    public void reportsRowErrorsAndDuplicatesWithoutStopping() throws IOException {
+        Library library = newLibrary("library_data.ser");
+        library.addBook(new Book("B-001", "Existing", "Someone", 2000, 1.0, "Fiction"));
+        String jsonl = "{\"id\":\"B-001\",\"title\":\"Dup\",\"author\":\"A\",\"year\":2000,\"price\":1,\"genre\":\"G\"}\n"
+                + "{\"id\":\"B-002\",\"title\":\"Ok\",\"author\":\"A\",\"year\":2000,\"price\":1,\"genre\":\"G\"}\n"
+                + "{\"id\":\"B-003\",\"title\":\"\",\"author\":\"A\",\"year\":2000,\"price\":1,\"genre\":\"G\"}\n"
+                + "not json\n"
+                + "{\"id\":\"B-002\",\"title\":\"Again\",\"author\":\"A\",\"year\":2000,\"price\":1,\"genre\":\"G\"}\n";
+
+        TransferReport report = new BookImporter(library).setBatchSize(2)
+                .importFrom(new StringReader(jsonl), BookFileFormat.JSON_LINES);
+
+        assertEquals(5, report.getRowsProcessed());
+        assertEquals(1, report.getRowsAccepted());
+        assertEquals(4, report.getErrorCount());
+        assertEquals("Existing", library.getBookById("B-001").getTitle());
+        assertEquals("Ok", library.getBookById("B-002").getTitle());
+        assertNull(library.getBookById("B-003"));
+        assertEquals(1, report.getErrors().get(0).line());
+    }
+
+    @Test
+    public void exportThenImportRoundTrips() throws IOException {
+        Library source = newLibrary("source.ser");
+        source.addBook(new Book("B-001", "Dune, \"The\" Saga", "Frank Herbert", 1965, 9.99, "Sci-Fi"));
+        source.addBook(new Book("B-002", "Emma", "Jane Austen", 1815, 0.1, "Classic"));
+
+        for (BookFileFormat format : BookFileFormat.values()) {
+            StringWriter out = new StringWriter();
+            TransferReport exported = new BookExporter(source).exportTo(out, format);
+            assertEquals(2, exported.getRowsAccepted());
+
+            Library target = newLibrary("target-" + format + ".ser");
+            TransferReport imported = new BookImporter(target).importFrom(new StringReader(out.toString()), format);
+            assertEquals(2, imported.getRowsAccepted(), format + ": " + imported.getErrors());
+            for (Book book : source.getAllBooks()) {
+                assertEquals(book.toString(), target.getBookById(book.getId()).toString());
+            }
+        }
+    }
+
+    @Test
+    public void exportFileChoosesFormatFromExtension() throws IOException {
+        Library library = newLibrary("library_data.ser");
+        library.addBook(new Book("B-001", "Dune", "Frank Herbert", 1965, 9.99, "Sci-Fi"));
+        Path file = tempDir.resolve("books.jsonl");
+
+        new BookExporter(library).exportFile(file);
+
+        assertTrue(Files.readString(file).startsWith("{\"id\":\"B-001\""));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookExporter(library).exportFile(tempDir.resolve("books.txt")));
+    }
+}
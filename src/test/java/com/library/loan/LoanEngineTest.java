@@ -0,0 +1,289 @@
+package com.library.loan;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import com.library.Library;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LoanEngineTest {
+    private static final Logger libraryLogger = Logger.getLogger("com.library");
+
+    @TempDir
+    Path tempDir;
+
+    private final MutableClock clock = new MutableClock();
+    private Level previousLevel;
+    private Library library;
+    private LoanEngine loans;
+
+    @BeforeEach
+    public void setUp() {
+        previousLevel = libraryLogger.getLevel();
+        libraryLogger.setLevel(Level.WARNING);
+        library = new Library(tempDir.resolve("library_data.ser").toString());
+        for (int i = 0; i < 10; i++) {
+            library.addBook(new Book(String.format("B-%03d", i), "Title " + i, "Author", 2000, 10.0, "Fiction"));
+        }
+        loans = new LoanEngine(library, tempDir.resolve("loans"), false, clock, Duration.ofDays(14));
+        loans.registerPatron(new Patron("P-1", "Ada", 2));
+        loans.registerPatron(new Patron("P-2", "Grace", 100));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loans.close();
+        library.close();
+        libraryLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    public void checkOutAndInWithLimits() {
+        Loan loan = loans.checkOut("B-000", "P-1");
+        assertEquals(clock.instant().plus(Duration.ofDays(14)), loan.due());
+        assertFalse(loans.isAvailable("B-000"));
+        assertThrows(IllegalStateException.class, () -> loans.checkOut("B-000", "P-2"));
+        loans.checkOut("B-001", "P-1");
+        assertThrows(IllegalStateException.class, () -> loans.checkOut("B-002", "P-1"));
+        assertThrows(IllegalArgumentException.class, () -> loans.checkOut("B-999", "P-2"));
+        assertThrows(IllegalArgumentException.class, () -> loans.checkOut("B-002", "P-9"));
+        assertEquals(List.of("B-000", "B-001"), loans.loansOf("P-1").stream().map(Loan::bookId).toList());
+
+        clock.advance(Duration.ofDays(3));
+        Loan returned = loans.checkIn("B-000", 0);
+        assertEquals(clock.instant(), returned.returned());
+        assertFalse(returned.isOpen());
+        assertTrue(loans.isAvailable("B-000"));
+        assertThrows(IllegalStateException.class, () -> loans.checkIn("B-000", 0));
+        loans.checkOut("B-002", "P-1");
+
+        Book withdrawn = library.getBookById("B-003");
+        Book changed = new Book(withdrawn.getId(), withdrawn.getTitle(), withdrawn.getAuthor(),
+                withdrawn.getYear(), withdrawn.getPrice(), withdrawn.getGenre());
+        changed.setAvailable(false);
+        library.updateBook(changed.getId(), changed);
+        assertThrows(IllegalStateException.class, () -> loans.checkOut("B-003", "P-2"));
+
+        LoanEngine.Stats stats = loans.stats();
+        assertEquals(3, stats.checkouts());
+        assertEquals(1, stats.returns());
+        assertEquals(2, stats.openLoans());
+    }
+
+    @Test
+    public void openLoansAndPatronsSurviveARestart() {
+        library.addCopies("B-000", 1, "Main");
+        loans.checkOut("B-000", "P-1");
+        loans.checkOut("B-001", "P-2");
+        loans.checkOut("B-002", "P-2");
+        clock.advance(Duration.ofDays(20));
+        Loan renewed = loans.renew("B-001", 0);
+        loans.checkIn("B-002", 0);
+        loans.checkOut("B-000", "P-1");
+        loans.close();
+        library.close();
+
+        library = new Library(tempDir.resolve("library_data.ser").toString());
+        loans = new LoanEngine(library, tempDir.resolve("loans"), false, clock, Duration.ofDays(14));
+        assertEquals("Ada", loans.getPatron("P-1").name());
+        assertEquals(renewed, loans.getLoan("B-001", 0));
+        assertNull(loans.getLoan("B-002", 0));
+        assertEquals(List.of(0, 1), loans.loansOf("P-1").stream().map(Loan::copy).toList());
+        assertFalse(loans.isAvailable("B-000"));
+        assertFalse(loans.isAvailable("B-001"));
+        assertTrue(loans.isAvailable("B-002"));
+        assertThrows(IllegalStateException.class, () -> loans.checkOut("B-003", "P-1"));
+        assertEquals(List.of("B-000"), loans.overdue(10).stream().map(Loan::bookId).toList());
+        assertEquals(3, loans.stats().openLoans());
+
+        loans.checkIn("B-000", 1);
+        List<Loan> history = new ArrayList<>();
+        loans.history(history::add);
+        assertEquals(List.of("B-000", "B-001", "B-002", "B-001", "B-002", "B-000", "B-000"),
+                history.stream().map(Loan::bookId).toList());
+        assertEquals(List.of(true, true, true, true, false, true, false),
+                history.stream().map(Loan::isOpen).toList());
+    }
+
+    @Test
+    public void overdueLoansComeOutByDueDateAndLeaveWhenRenewedOrReturned() {
+        loans.checkOut("B-000", "P-2", Duration.ofDays(7));
+        loans.checkOut("B-001", "P-2", Duration.ofDays(1));
+        loans.checkOut("B-002", "P-2", Duration.ofDays(30));
+        loans.checkOut("B-003", "P-2", Duration.ofDays(3));
+        assertEquals(List.of(), loans.overdue(10));
+
+        clock.advance(Duration.ofDays(10));
+        assertEquals(List.of("B-001", "B-003", "B-000"), loans.overdue(10).stream().map(Loan::bookId).toList());
+        assertEquals(List.of("B-001"), loans.overdue(1).stream().map(Loan::bookId).toList());
+        assertTrue(loans.getLoan("B-001", 0).isOverdue(clock.instant()));
+
+        Loan renewed = loans.renew("B-001", 0);
+        assertEquals(clock.instant().plus(Duration.ofDays(14)), renewed.due());
+        loans.checkIn("B-003", 0);
+        assertEquals(List.of("B-000"), loans.overdue(10).stream().map(Loan::bookId).toList());
+        // Renewing again on the same instant keeps the due date, and the loan stays indexed
+        loans.renew("B-001", 0);
+        clock.advance(Duration.ofDays(15));
+        assertEquals(List.of("B-000", "B-001"), loans.overdue(10).stream().map(Loan::bookId).toList());
+    }
+
+    @Test
+    public void concurrentCheckoutsLendEachCopyOnce() throws Exception {
+        int threads = 8;
+        for (int i = 0; i < threads; i++) {
+            loans.registerPatron(new Patron("T-" + i, "Thread " + i, 100));
+        }
+        ConcurrentHashMap<String, String> winners = new ConcurrentHashMap<>();
+        AtomicInteger lost = new AtomicInteger();
+        AtomicInteger doubleLent = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            String patron = "T-" + t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int round = 0; round < 200; round++) {
+                    for (int i = 0; i < 10; i++) {
+                        String bookId = String.format("B-%03d", i);
+                        try {
+                            loans.checkOut(bookId, patron);
+                            if (winners.put(bookId, patron) != null) {
+                                doubleLent.incrementAndGet();
+                            }
+                            winners.remove(bookId);
+                            loans.checkIn(bookId, 0);
+                        } catch (IllegalStateException e) {
+                            lost.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, doubleLent.get());
+        LoanEngine.Stats stats = loans.stats();
+        assertEquals(0, stats.openLoans());
+        assertEquals(threads * 200 * 10, stats.checkouts() + lost.get());
+        assertEquals(lost.get(), stats.conflicts());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(loans.isAvailable(String.format("B-%03d", i)));
+        }
+        clock.advance(Duration.ofDays(100));
+        assertEquals(List.of(), loans.overdue(100));
+    }
+
+    @Test
+    public void transitionsWrittenTogetherKeepTheirOrderPerCopy() throws Exception {
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            String bookId = String.format("B-%03d", t);
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int round = 0; round < 100; round++) {
+                    loans.checkOut(bookId, "P-2");
+                    loans.checkIn(bookId, 0);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        ConcurrentHashMap<String, Boolean> lastOpen = new ConcurrentHashMap<>();
+        AtomicInteger records = new AtomicInteger();
+        loans.history(loan -> {
+            records.incrementAndGet();
+            // A copy's return is on record before its next checkout
+            assertNotEquals(loan.isOpen(), lastOpen.getOrDefault(loan.bookId(), false));
+            lastOpen.put(loan.bookId(), loan.isOpen());
+        });
+        assertEquals(threads * 100 * 2, records.get());
+
+        loans.close();
+        assertThrows(UncheckedIOException.class, () -> loans.checkOut("B-000", "P-2"));
+        assertEquals(1, library.getCopies("B-000").available());
+        loans = new LoanEngine(library, tempDir.resolve("loans"), false, clock, Duration.ofDays(14));
+        assertEquals(0, loans.stats().openLoans());
+        assertTrue(loans.isAvailable("B-000"));
+    }
+
+    @Test
+    public void copiesOfOneTitleAreLentSeparately() {
+        assertEquals(1, library.addCopies("B-000", 2, "Main"));
+        loans.registerPatron(new Patron("P-3", "Edsger", 5));
+        Loan first = loans.checkOut("B-000", "P-3");
+        Loan second = loans.checkOut("B-000", "P-3");
+        Loan third = loans.checkOut("B-000", "P-2");
+        assertEquals(List.of(0, 1, 2), List.of(first.copy(), second.copy(), third.copy()));
+        assertFalse(loans.isAvailable("B-000"));
+        assertThrows(IllegalStateException.class, () -> loans.checkOut("B-000", "P-2"));
+        assertThrows(IllegalStateException.class, () -> library.withdrawCopy("B-000", 1));
+
+        loans.checkIn("B-000", 1);
+        assertTrue(loans.isAvailable("B-000"));
+        assertEquals(1, library.getCopies("B-000").available());
+        assertEquals(List.of(0), loans.loansOf("P-3").stream().map(Loan::copy).toList());
+        library.withdrawCopy("B-000", 1);
+        assertFalse(loans.isAvailable("B-000"));
+        assertThrows(IllegalStateException.class, () -> loans.checkIn("B-000", 1));
+        assertEquals(2, library.getCopies("B-000").total());
+        assertEquals(1, loans.stats().conflicts());
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2024-03-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
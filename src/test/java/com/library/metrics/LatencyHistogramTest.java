@@ -0,0 +1,35 @@
+package com.library.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketsCoverEveryValueWithBoundedError() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value += 1 + value / 64) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(index >= previous);
+            assertTrue(LatencyHistogram.upperBound(index) >= value);
+            assertTrue(LatencyHistogram.upperBound(index) <= value + value / 8 + 1, "value " + value);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void percentilesFollowTheDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(5_000_000_000L);
+
+        assertEquals(1001, histogram.getCount());
+        assertEquals(5_000_000_000L, histogram.getMax());
+        assertEquals(501_000, histogram.getPercentile(0.5), 501_000 / 8.0);
+        assertEquals(991_000, histogram.getPercentile(0.99), 991_000 / 8.0);
+        assertEquals(5_000_000_000L, histogram.getPercentile(1.0));
+    }
+}
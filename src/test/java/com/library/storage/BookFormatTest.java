@@ -0,0 +1,189 @@
+package com.library.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BookFormatTest {
+    @TempDir
+    Path tempDir;
+
+    private static List<Book> sampleBooks() {
+        Book checkedOut = new Book("B-002", "Война и мир", "Лев Толстой", 1869, 19.99, "Роман");
+        checkedOut.setAvailable(false);
+        return List.of(new Book("B-001", "Dune", "Frank Herbert", 1965, 12.5, "Sci-Fi"), checkedOut);
+    }
+
+    private static byte[] write(List<Book> books) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BookWriter writer = new BookWriter(bytes)) {
+            for (Book book : books) {
+                writer.write(book);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Book> read(byte[] data) throws IOException {
+        List<Book> books = new ArrayList<>();
+        try (BookReader reader = new BookReader(new ByteArrayInputStream(data))) {
+            for (Book book = reader.read(); book != null; book = reader.read()) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    @Test
+    public void roundTripPreservesAllFields() throws IOException {
+        List<Book> books = read(write(sampleBooks()));
+
+        assertEquals(2, books.size());
+        Book book = books.get(1);
+        assertEquals("B-002", book.getId());
+        assertEquals("Война и мир", book.getTitle());
+        assertEquals("Лев Толстой", book.getAuthor());
+        assertEquals(1869, book.getYear());
+        assertEquals(19.99, book.getPrice());
+        assertEquals("Роман", book.getGenre());
+        assertFalse(book.isAvailable());
+        assertTrue(books.get(0).isAvailable());
+    }
+
+    @Test
+    public void rejectsUnknownVersionAndDamage() throws IOException {
+        byte[] data = write(sampleBooks());
+
+        byte[] futureVersion = data.clone();
+        futureVersion[5] = 99;
+        IOException e = assertThrows(IOException.class, () -> read(futureVersion));
+        assertTrue(e.getMessage().contains("version"));
+
+        byte[] flipped = data.clone();
+        flipped[20] ^= 0x01;
+        assertThrows(IOException.class, () -> read(flipped));
+
+        byte[] truncated = java.util.Arrays.copyOf(data, data.length - 5);
+        assertThrows(IOException.class, () -> read(truncated));
+    }
+
+    @Test
+    public void migratesLegacySerializedFile() throws IOException {
+        Path file = tempDir.resolve("library_data.ser");
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(file))) {
+            oos.writeObject(new ArrayList<>(sampleBooks()));
+        }
+
+        assertEquals(2, SerMigrator.migrate(file));
+        assertEquals(-1, SerMigrator.migrate(file));
+        assertTrue(Files.exists(tempDir.resolve("library_data.ser.bak")));
+        assertEquals("Dune", read(Files.readAllBytes(file)).get(0).getTitle());
+    }
+
+    @Test
+    public void repeatedAuthorsAndGenresAreStoredOnceAndShared() throws IOException {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            books.add(new Book(String.format("B-%03d", i), "Title " + i, i % 2 == 0 ? "Frank Herbert" : "Лев Толстой",
+                    1900 + i, i, "Sci-Fi"));
+        }
+        byte[] data = write(books);
+
+        assertEquals(1, occurrences(data, "Frank Herbert"));
+        assertEquals(1, occurrences(data, "Лев Толстой"));
+        assertEquals(1, occurrences(data, "Sci-Fi"));
+        StringDictionary pool = new StringDictionary();
+        String herbert = pool.intern("Frank Herbert");
+        List<Book> read = new ArrayList<>();
+        try (BookReader reader = new BookReader(new ByteArrayInputStream(data), pool)) {
+            for (Book book = reader.read(); book != null; book = reader.read()) {
+                read.add(book);
+            }
+        }
+        assertEquals(100, read.size());
+        assertSame(herbert, read.get(98).getAuthor());
+        assertSame(read.get(1).getGenre(), read.get(99).getGenre());
+        assertEquals("Лев Толстой", read.get(99).getAuthor());
+
+        Path file = tempDir.resolve("books.dat");
+        Files.write(file, data);
+        try (MappedCatalog catalog = MappedCatalog.open(file)) {
+            Book first = catalog.get("B-000");
+            Book later = catalog.get("B-042");
+            assertEquals("Frank Herbert", first.getAuthor());
+            assertSame(later.getAuthor(), catalog.get("B-044").getAuthor());
+            assertEquals(1942, later.getYear());
+            int count = 0;
+            for (var it = catalog.iterator(); it.hasNext(); count++) {
+                assertEquals(books.get(count).getGenre(), it.next().getGenre());
+            }
+            assertEquals(100, count);
+        }
+    }
+
+    @Test
+    public void readsVersion1Files() throws IOException {
+        // Version 1 layout: plain author and genre strings, 12-byte footer without a dict start
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BookFormat.MAGIC);
+        out.writeShort(BookFormat.VERSION_PLAIN_STRINGS);
+        out.writeShort(BookFormat.FLAG_ID_INDEX);
+        List<Book> books = sampleBooks();
+        long[] offsets = new long[books.size()];
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < books.size(); i++) {
+            offsets[i] = out.size();
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            DataOutputStream recordOut = new DataOutputStream(record);
+            recordOut.writeByte(BookFormat.RECORD_TAG);
+            BookFormat.writeBook(recordOut, books.get(i));
+            crc.update(record.toByteArray());
+            out.write(record.toByteArray());
+        }
+        crc.update(BookFormat.END_TAG);
+        out.writeByte(BookFormat.END_TAG);
+        out.writeLong(books.size());
+        out.writeInt((int) crc.getValue());
+        long indexStart = out.size();
+        for (long offset : offsets) {
+            out.writeLong(offset);
+        }
+        out.writeLong(indexStart);
+        out.writeInt(BookFormat.INDEX_MAGIC);
+
+        List<Book> read = read(bytes.toByteArray());
+        assertEquals(2, read.size());
+        assertEquals("Лев Толстой", read.get(1).getAuthor());
+        assertEquals("Sci-Fi", read.get(0).getGenre());
+
+        Path file = tempDir.resolve("v1.dat");
+        Files.write(file, bytes.toByteArray());
+        try (MappedCatalog catalog = MappedCatalog.open(file)) {
+            assertEquals(2, catalog.size());
+            assertEquals("Роман", catalog.get("B-002").getGenre());
+            assertFalse(catalog.get("B-002").isAvailable());
+            assertEquals("Frank Herbert", catalog.iterator().next().getAuthor());
+        }
+    }
+
+    private static int occurrences(byte[] data, String value) {
+        byte[] needle = value.getBytes(StandardCharsets.UTF_8);
+        int count = 0;
+        for (int i = 0; i + needle.length <= data.length; i++) {
+            if (java.util.Arrays.equals(data, i, i + needle.length, needle, 0, needle.length)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JournalTest {
+    @TempDir
+    Path tempDir;
+
+    private static Book book(String id, String title) {
+        return new Book(id, title, "Author", 2000, 10.0, "Fiction");
+    }
+
+    @Test
+    public void recordThatCannotBeAppliedIsCutOffWithoutLosingEarlierOnes() throws IOException {
+        Path path = tempDir.resolve("journal");
+        Journal journal = new Journal(path, false);
+        journal.replay(book -> { }, id -> { });
+        journal.append(Journal.Op.ADD, book("B-A", "A"));
+        journal.appendDelete("B-B");
+        journal.close();
+        // A record with an intact checksum but an operation this version does not know
+        byte[] payload = {(byte) 0x7F, 1, 2, 3};
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+        Files.write(path, record.toByteArray(), StandardOpenOption.APPEND);
+
+        Journal reopened = new Journal(path, false);
+        List<String> replayed = new ArrayList<>();
+        assertEquals(2, reopened.replay(book -> replayed.add(book.getId()), id -> replayed.add("-" + id)));
+        assertEquals(List.of("B-A", "-B-B"), replayed);
+        reopened.append(Journal.Op.ADD, book("B-C", "C"));
+        reopened.close();
+
+        replayed.clear();
+        Journal again = new Journal(path, false);
+        assertEquals(3, again.replay(book -> replayed.add(book.getId()), id -> replayed.add("-" + id)));
+        assertEquals(List.of("B-A", "-B-B", "B-C"), replayed);
+        again.close();
+    }
+}
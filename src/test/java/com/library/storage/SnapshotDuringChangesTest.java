@@ -0,0 +1,94 @@
+package com.library.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * A snapshot is taken at a journal mark and saved while changes go on; everything
+ * after the mark must survive both in the journal and in a store that remaps the file.
+ */
+public class SnapshotDuringChangesTest {
+    @TempDir
+    Path tempDir;
+
+    private static Book book(String id, String title) {
+        return new Book(id, title, "Author", 2000, 10.0, "Fiction");
+    }
+
+    private static void writeSnapshot(Path file, Iterable<Book> books) throws IOException {
+        try (BookWriter writer = new BookWriter(Files.newOutputStream(file))) {
+            for (Book book : books) {
+                writer.write(book);
+            }
+        }
+    }
+
+    @Test
+    public void journalKeepsRecordsAfterTheMark() throws IOException {
+        Path path = tempDir.resolve("journal");
+        Journal journal = new Journal(path, false);
+        journal.replay(book -> { }, id -> { });
+        journal.append(Journal.Op.ADD, book("B-A", "A"));
+        journal.append(Journal.Op.ADD, book("B-B", "B"));
+        Journal.Mark mark = journal.mark();
+        journal.append(Journal.Op.UPDATE, book("B-A", "A2"));
+        journal.appendDelete("B-B");
+
+        List<String> kept = new ArrayList<>();
+        journal.truncateBefore(mark, book -> kept.add(book.getTitle()), id -> kept.add("-" + id));
+        assertEquals(List.of("A2", "-B-B"), kept);
+        assertEquals(2, journal.size());
+        journal.append(Journal.Op.ADD, book("B-C", "C"));
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        Journal reopened = new Journal(path, false);
+        assertEquals(3, reopened.replay(book -> replayed.add(book.getTitle()), id -> replayed.add("-" + id)));
+        assertEquals(List.of("A2", "-B-B", "C"), replayed);
+        reopened.truncateBefore(reopened.mark(), book -> fail(), id -> fail());
+        assertEquals(0, Files.size(path));
+        reopened.close();
+    }
+
+    @Test
+    public void mappedStoreKeepsChangesMadeWhileTheSnapshotWasWritten() throws IOException {
+        Path first = tempDir.resolve("first.dat");
+        writeSnapshot(first, List.of(book("B-A", "A"), book("B-B", "B"), book("B-C", "C")));
+        MappedBookStore store = new MappedBookStore();
+        store.load(first);
+        store.put(book("B-A", "A2"));
+        store.remove("B-B");
+        store.put(book("B-D", "D"));
+
+        List<Book> snapshot = new ArrayList<>();
+        store.forEach(snapshot::add);
+        store.put(book("B-C", "C2"));
+        store.remove("B-D");
+        store.put(book("B-E", "E"));
+        store.remove("B-A");
+
+        Path second = tempDir.resolve("second.dat");
+        writeSnapshot(second, snapshot);
+        store.snapshotSaved(second, Set.of("B-C", "B-D", "B-E", "B-A"), Set.of("B-D", "B-A"));
+
+        assertNull(store.get("B-A"));
+        assertNull(store.get("B-B"));
+        assertEquals("C2", store.get("B-C").getTitle());
+        assertNull(store.get("B-D"));
+        assertEquals("E", store.get("B-E").getTitle());
+        assertEquals(2, store.size());
+        List<String> titles = new ArrayList<>();
+        store.forEach(book -> titles.add(book.getTitle()));
+        assertEquals(List.of("C2", "E"), titles);
+        store.close();
+    }
+}
@@ -0,0 +1,137 @@
+package com.library.ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.library.Book;
+import com.library.Library;
+import com.library.io.Json;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HttpLibraryUITest {
+    private static final Logger libraryLogger = Logger.getLogger("com.library");
+
+    @TempDir
+    Path tempDir;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private Level previousLevel;
+    private Library library;
+    private HttpLibraryUI server;
+    private URI base;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        previousLevel = libraryLogger.getLevel();
+        libraryLogger.setLevel(Level.WARNING);
+        library = new Library(tempDir.resolve("library_data.ser").toString());
+        for (int i = 0; i < 5; i++) {
+            library.addBook(new Book("B-" + i, "Title " + i, i % 2 == 0 ? "Ada" : "Grace", 1990 + i, 10.0 + i,
+                    i % 2 == 0 ? "Fiction" : "Science"));
+        }
+        server = new HttpLibraryUI(library, new InetSocketAddress("127.0.0.1", 0), 4);
+        InetSocketAddress address = server.bind();
+        base = URI.create("http://127.0.0.1:" + address.getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.shutdown();
+        library.close();
+        libraryLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    public void booksCanBeAddedReadUpdatedAndDeleted() throws Exception {
+        String book = "{\"id\":\"N-1\",\"title\":\"New\",\"author\":\"Ada\",\"year\":2020,\"price\":5.5,\"genre\":\"Poetry\"}";
+        assertEquals(201, send("POST", "/books", book).statusCode());
+        assertEquals(409, send("POST", "/books", book).statusCode());
+        assertEquals("New", body(send("GET", "/books/N-1", null)).get("title"));
+
+        HttpResponse<String> updated = send("PUT", "/books/N-1",
+                "{\"title\":\"Renamed\",\"author\":\"Ada\",\"year\":2021,\"price\":6,\"genre\":\"Poetry\",\"available\":false}");
+        assertEquals(200, updated.statusCode());
+        assertEquals("Renamed", library.getBookById("N-1").getTitle());
+        assertFalse(library.getBookById("N-1").isAvailable());
+        assertEquals(400, send("PUT", "/books/N-1", book.replace("N-1", "N-2")).statusCode());
+        assertEquals(404, send("PUT", "/books/N-9",
+                "{\"title\":\"Missing\",\"author\":\"Ada\",\"year\":2021,\"price\":6,\"genre\":\"Poetry\"}").statusCode());
+        assertNull(library.getBookById("N-9"));
+
+        assertEquals(204, send("DELETE", "/books/N-1", null).statusCode());
+        assertEquals(404, send("DELETE", "/books/N-1", null).statusCode());
+        assertEquals(404, send("GET", "/books/N-1", null).statusCode());
+        assertNull(library.getBookById("N-1"));
+    }
+
+    @Test
+    public void searchesPageThroughTheCatalog() throws Exception {
+        Map<String, Object> page = body(send("GET", "/books?author=Ada&sort=year&desc=true&limit=2", null));
+        assertEquals(3.0, page.get("total"));
+        List<?> books = (List<?>) page.get("books");
+        assertEquals(List.of("B-4", "B-2"), books.stream().map(b -> ((Map<?, ?>) b).get("id")).toList());
+
+        assertEquals(400, send("GET", "/books?colour=red", null).statusCode());
+        assertEquals(405, send("PATCH", "/books", "{}").statusCode());
+        assertEquals(404, send("GET", "/shelves", null).statusCode());
+        assertEquals(400, send("POST", "/books", "{not json").statusCode());
+    }
+
+    @Test
+    public void pagesAreCappedAtTheMaximumLimit() throws Exception {
+        List<Book> more = new ArrayList<>();
+        for (int i = 0; i < HttpLibraryUI.MAX_LIMIT; i++) {
+            more.add(new Book("M-" + i, "More " + i, "Ada", 2000, 1.0, "Fiction"));
+        }
+        library.addBooks(more);
+        Map<String, Object> page = body(send("GET", "/books?limit=2147483647", null));
+        assertEquals(HttpLibraryUI.MAX_LIMIT + 5.0, page.get("total"));
+        assertEquals(HttpLibraryUI.MAX_LIMIT, ((List<?>) page.get("books")).size());
+        assertNotNull(page.get("next"));
+    }
+
+    @Test
+    public void statsAndBatchesAnswerInOneRoundTrip() throws Exception {
+        Map<String, Object> stats = body(send("GET", "/stats", null));
+        assertEquals(5.0, stats.get("books"));
+        assertEquals(3.0, ((Map<?, ?>) ((Map<?, ?>) stats.get("genres")).get("Fiction")).get("count"));
+
+        HttpResponse<String> response = send("POST", "/batch", "["
+                + "{\"method\":\"GET\",\"path\":\"/books/B-1\"},"
+                + "{\"method\":\"DELETE\",\"path\":\"/books/B-2\"},"
+                + "{\"method\":\"GET\",\"path\":\"/books/B-2\"},"
+                + "{\"method\":\"POST\",\"path\":\"/batch\",\"body\":[]}]");
+        assertEquals(200, response.statusCode());
+        List<?> results = (List<?>) Json.parse(response.body());
+        assertEquals(List.of(200.0, 204.0, 404.0, 400.0),
+                results.stream().map(r -> ((Map<?, ?>) r).get("status")).toList());
+        assertEquals("Title 1", ((Map<?, ?>) ((Map<?, ?>) results.get(0)).get("body")).get("title"));
+        assertNull(library.getBookById("B-2"));
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(path)).method(method, publisher).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(HttpResponse<String> response) {
+        assertEquals(200, response.statusCode(), response.body());
+        return (Map<String, Object>) Json.parse(response.body());
+    }
+}